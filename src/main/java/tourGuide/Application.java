@@ -16,9 +16,6 @@ public class Application implements CommandLineRunner {
 	@Autowired
 	private TrackerThread trackerThread;
 
-	@Value("${cores.number}")
-	private String numberOfCores;
-
 	@Setter
 	@Getter
 	@Value("${internal.liveTestMode.enabled}")
@@ -31,12 +28,6 @@ public class Application implements CommandLineRunner {
 	@Override
 	public void run(String... args) throws Exception {
 
-		/**
-		 * To have the same result output for each user, we are setting the parallelstream
-		 * pool to 10 cores (the value can be changed in application.properties)
-		 */
-		System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", numberOfCores);
-
 		// We only start the tracker thread if the mode has been set to live testing
 		if (isLiveTestMode()) {
 			trackerThread.start();
@@ -0,0 +1,123 @@
+package tourGuide.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared attraction catalog
+ *
+ * Attractions are static data, so they are fetched from gpsUtil once and kept in an immutable snapshot.
+ * The snapshot is refreshed in the background on a fixed schedule, and readers always get a complete snapshot.
+ */
+@Slf4j
+@Component
+public class AttractionCatalog {
+
+	private final GpsUtil gpsUtil;
+
+	@Setter
+	@Value("${attractionCatalog.refreshIntervalMinutes}")
+	private long refreshIntervalMinutes = 60;
+
+	private volatile AttractionSnapshot snapshot;
+
+	// Ordinals are given once per attraction name and kept across refreshes
+	private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService refreshExecutor;
+
+	public AttractionCatalog(GpsUtil gpsUtil) {
+		this.gpsUtil = gpsUtil;
+	}
+
+	/**
+	 * Load the first snapshot and schedule the background refresh
+	 */
+	@PostConstruct
+	public void startRefresh() {
+		getSnapshot();
+		refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "attraction-catalog-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refreshExecutor.scheduleWithFixedDelay(() -> {
+			try {
+				refresh();
+			} catch (RuntimeException e) {
+				log.debug("[Catalog] Error while refreshing attractions : {}", e.getMessage());
+			}
+		}, refreshIntervalMinutes, refreshIntervalMinutes, TimeUnit.MINUTES);
+	}
+
+	@PreDestroy
+	public void stopRefresh() {
+		if (refreshExecutor != null) {
+			refreshExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Get the current snapshot, loading it from gpsUtil if the catalog has never been loaded
+	 *
+	 * @return										AttractionSnapshot : The current attraction snapshot
+	 */
+	public AttractionSnapshot getSnapshot() {
+		AttractionSnapshot current = snapshot;
+		if (current == null) {
+			synchronized (this) {
+				current = snapshot;
+				if (current == null) {
+					current = refresh();
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Get every attraction of the current snapshot
+	 *
+	 * @return										List<Attraction> : An unmodifiable list of attractions
+	 */
+	public List<Attraction> getAttractions() {
+		return getSnapshot().getAttractions();
+	}
+
+	/**
+	 * Fetch the attractions from gpsUtil and publish a new snapshot
+	 *
+	 * @return										AttractionSnapshot : The new snapshot
+	 */
+	public synchronized AttractionSnapshot refresh() {
+		List<Attraction> attractions = gpsUtil.getAttractions();
+
+		List<CatalogAttraction> catalogAttractions = new ArrayList<>(attractions.size());
+		for (Attraction attraction : attractions) {
+			int ordinal = ordinals.computeIfAbsent(attraction.attractionName, name -> ordinals.size());
+			catalogAttractions.add(new CatalogAttraction(attraction, ordinal));
+		}
+
+		long version = (snapshot == null) ? 1 : snapshot.getVersion() + 1;
+		AttractionSnapshot newSnapshot = new AttractionSnapshot(version, catalogAttractions);
+		snapshot = newSnapshot;
+		log.debug("[Catalog] Loaded {} attractions (version {}).", newSnapshot.size(), version);
+		return newSnapshot;
+	}
+}
@@ -0,0 +1,22 @@
+package tourGuide.catalog;
+
+import gpsUtil.location.Attraction;
+import lombok.Getter;
+
+/**
+ * An attraction found by a NearestAttractionsQuery, with its distance to the query location
+ */
+@Getter
+public class AttractionDistance {
+
+	private final Attraction attraction;
+
+	// Distance in miles, within DistanceQuery.TOLERANCE_MILES of the exact distance
+	private final double distance;
+
+	public AttractionDistance(Attraction attraction, double distance) {
+		this.attraction = attraction;
+		this.distance = distance;
+	}
+
+}
@@ -0,0 +1,57 @@
+package tourGuide.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gpsUtil.location.Attraction;
+import lombok.Getter;
+import tourGuide.util.AttractionSpatialIndex;
+
+/**
+ * Immutable view of the attraction catalog at a given time
+ * Hot paths read everything they need from a snapshot instead of calling gpsUtil
+ */
+@Getter
+public class AttractionSnapshot {
+
+	// Incremented on every catalog refresh, allows callers to detect a new snapshot
+	private final long version;
+
+	private final List<Attraction> attractions;
+
+	private final List<CatalogAttraction> catalogAttractions;
+
+	private final AttractionSpatialIndex index;
+
+	private final Map<Attraction, CatalogAttraction> catalogAttractionByAttraction = new IdentityHashMap<>();
+
+	public AttractionSnapshot(long version, List<CatalogAttraction> catalogAttractions) {
+		this.version = version;
+		this.catalogAttractions = Collections.unmodifiableList(new ArrayList<>(catalogAttractions));
+
+		List<Attraction> rawAttractions = new ArrayList<>();
+		for (CatalogAttraction catalogAttraction : this.catalogAttractions) {
+			rawAttractions.add(catalogAttraction.getAttraction());
+			catalogAttractionByAttraction.put(catalogAttraction.getAttraction(), catalogAttraction);
+		}
+		this.attractions = Collections.unmodifiableList(rawAttractions);
+		this.index = new AttractionSpatialIndex(attractions);
+	}
+
+	/**
+	 * Get the precomputed data of an attraction belonging to this snapshot
+	 *
+	 * @param attraction							Attraction : An attraction of the snapshot
+	 * @return										CatalogAttraction : The attraction derived data, null if unknown
+	 */
+	public CatalogAttraction getCatalogAttraction(Attraction attraction) {
+		return catalogAttractionByAttraction.get(attraction);
+	}
+
+	public int size() {
+		return attractions.size();
+	}
+}
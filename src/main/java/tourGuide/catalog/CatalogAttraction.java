@@ -0,0 +1,37 @@
+package tourGuide.catalog;
+
+import gpsUtil.location.Attraction;
+import lombok.Getter;
+
+/**
+ * An attraction of the catalog with its precomputed derived data
+ * The ordinal is stable across catalog refreshes, as long as the attraction name does not change
+ */
+@Getter
+public class CatalogAttraction {
+
+	private final Attraction attraction;
+	private final int ordinal;
+	private final double latitudeRadians;
+	private final double longitudeRadians;
+	private final double sinLatitude;
+	private final double cosLatitude;
+
+	// Unit vector of the attraction on the sphere, used by DistanceQuery
+	private final double x;
+	private final double y;
+	private final double z;
+
+	public CatalogAttraction(Attraction attraction, int ordinal) {
+		this.attraction = attraction;
+		this.ordinal = ordinal;
+		this.latitudeRadians = Math.toRadians(attraction.latitude);
+		this.longitudeRadians = Math.toRadians(attraction.longitude);
+		this.sinLatitude = Math.sin(latitudeRadians);
+		this.cosLatitude = Math.cos(latitudeRadians);
+		this.x = cosLatitude * Math.cos(longitudeRadians);
+		this.y = cosLatitude * Math.sin(longitudeRadians);
+		this.z = sinLatitude;
+	}
+
+}
@@ -0,0 +1,156 @@
+package tourGuide.catalog;
+
+import gpsUtil.location.Location;
+import lombok.Getter;
+
+/**
+ * Distance kernel between one location and many catalog attractions
+ *
+ * The trigonometry of the location is computed once, the attractions carry theirs (see CatalogAttraction).
+ * A candidate is then checked in three steps :
+ * 1. a latitude / longitude bounding box rejects far attractions with two subtractions
+ * 2. the cosine of the angle between both points is a dot product, compared to the cosine of the threshold
+ * 3. only when the dot product is within DOT_EPSILON of the threshold, the exact formula (getExactDistance) decides
+ *
+ * Decisions are the same as comparing getExactDistance() with the threshold.
+ * The dot product only serves these decisions : the arc cosine of a value near 1 loses half of the digits, about
+ * 1e-4 miles for close points. getDistance() takes the angle from the cross and dot products with atan2 instead,
+ * and matches getExactDistance() within TOLERANCE_MILES at any distance.
+ */
+public class DistanceQuery {
+
+	public static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+
+	public static final double STATUTE_MILES_PER_RADIAN = 60 * Math.toDegrees(1) * STATUTE_MILES_PER_NAUTICAL_MILE;
+
+	// Maximum difference between getDistance() and getExactDistance(), in miles
+	public static final double TOLERANCE_MILES = 1e-6;
+
+	// Width of the band around the threshold where the exact formula is used
+	private static final double DOT_EPSILON = 1e-12;
+
+	private static final double EPSILON_DEGREES = 1e-9;
+
+	@Getter
+	private final Location location;
+
+	@Getter
+	private final double threshold;
+
+	private final double x;
+	private final double y;
+	private final double z;
+
+	private final double cosThreshold;
+	private final double latitudeDelta;
+	private final double longitudeDelta;
+
+	/**
+	 * Prepare a query around a location
+	 *
+	 * @param location								Location : The center of the query
+	 * @param threshold								Double : The distance in miles used by isWithin()
+	 */
+	public DistanceQuery(Location location, double threshold) {
+		this.location = location;
+		this.threshold = threshold;
+
+		double latitude = Math.toRadians(location.latitude);
+		double longitude = Math.toRadians(location.longitude);
+		double cosLatitude = Math.cos(latitude);
+		this.x = cosLatitude * Math.cos(longitude);
+		this.y = cosLatitude * Math.sin(longitude);
+		this.z = Math.sin(latitude);
+
+		double angle = threshold / STATUTE_MILES_PER_RADIAN;
+		this.cosThreshold = (angle >= Math.PI) ? -1 : Math.cos(angle);
+
+		// Bounding box of the points within the threshold, disabled when it reaches a pole
+		double angleDegrees = Math.toDegrees(angle) + EPSILON_DEGREES;
+		this.latitudeDelta = angleDegrees;
+		if (angleDegrees >= 90 || Math.abs(location.latitude) + angleDegrees >= 90) {
+			this.longitudeDelta = Double.POSITIVE_INFINITY;
+		} else {
+			this.longitudeDelta = Math.toDegrees(Math.asin(Math.min(1,
+					Math.sin(Math.toRadians(angleDegrees)) / Math.cos(Math.toRadians(location.latitude)))))
+					+ EPSILON_DEGREES;
+		}
+	}
+
+	/**
+	 * Check if an attraction is within the threshold of the query location
+	 *
+	 * @param attraction							CatalogAttraction : The attraction to check
+	 * @return										True if getExactDistance() is not greater than the threshold
+	 */
+	public boolean isWithin(CatalogAttraction attraction) {
+
+		// Cheap bounding box rejection
+		if (Math.abs(attraction.getAttraction().latitude - location.latitude) > latitudeDelta) {
+			return false;
+		}
+		if (longitudeDelta < 180) {
+			double longitudeGap = Math.abs(attraction.getAttraction().longitude - location.longitude);
+			if (Math.min(longitudeGap, 360 - longitudeGap) > longitudeDelta) {
+				return false;
+			}
+		}
+
+		// Cosine of the angle between both points compared with the cosine of the threshold
+		double dot = dot(attraction);
+		if (dot > cosThreshold + DOT_EPSILON) {
+			return true;
+		}
+		if (dot < cosThreshold - DOT_EPSILON) {
+			return false;
+		}
+
+		// Too close to the threshold to trust rounding, the exact formula decides
+		return !(getExactDistance(attraction.getAttraction(), location) > threshold);
+	}
+
+	/**
+	 * Calculates the distance in miles between the query location and an attraction
+	 *
+	 * @param attraction							CatalogAttraction : The attraction
+	 * @return										Double : The distance in miles, within TOLERANCE_MILES of getExactDistance()
+	 */
+	public double getDistance(CatalogAttraction attraction) {
+		double crossX = y * attraction.getZ() - z * attraction.getY();
+		double crossY = z * attraction.getX() - x * attraction.getZ();
+		double crossZ = x * attraction.getY() - y * attraction.getX();
+		double sinAngle = Math.sqrt(crossX * crossX + crossY * crossY + crossZ * crossZ);
+		return STATUTE_MILES_PER_RADIAN * Math.atan2(sinAngle, dot(attraction));
+	}
+
+	private double dot(CatalogAttraction attraction) {
+		return x * attraction.getX() + y * attraction.getY() + z * attraction.getZ();
+	}
+
+	/**
+	 * Calculates the distance in miles between two locations with the haversine formula
+	 * This is the reference formula, every trigonometric term is computed on each call.
+	 * Unlike the spherical law of cosines, it keeps its precision for close points.
+	 *
+	 * @param loc1									Location : The first location
+	 * @param loc2									Location : The second location
+	 * @return										Double : The distance in miles between the two locations
+	 */
+	public static double getExactDistance(Location loc1, Location loc2) {
+
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+
+		double sinHalfLatitudeGap = Math.sin((lat2 - lat1) / 2);
+		double sinHalfLongitudeGap = Math.sin((lon2 - lon1) / 2);
+		double haversine = sinHalfLatitudeGap * sinHalfLatitudeGap
+				+ Math.cos(lat1) * Math.cos(lat2) * sinHalfLongitudeGap * sinHalfLongitudeGap;
+		double angle = 2 * Math.atan2(Math.sqrt(haversine), Math.sqrt(Math.max(0, 1 - haversine)));
+
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+
+		return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+	}
+}
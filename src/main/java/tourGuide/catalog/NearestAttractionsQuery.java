@@ -0,0 +1,103 @@
+package tourGuide.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import lombok.Getter;
+import tourGuide.util.AttractionSpatialIndex;
+
+/**
+ * k nearest attractions of one location, searched in a catalog snapshot
+ *
+ * The search starts with the attractions of the spatial index within one grid cell of the location, and doubles the
+ * radius until it is done : once k attractions are found within the searched radius, no attraction outside of it
+ * can be closer. Wide or polar areas fall back to every attraction, as the spatial index does.
+ * Candidates go through a max-heap bounded to k entries, the farthest one being replaced in O(log k), so the
+ * catalog is never sorted and distances are computed once per candidate with DistanceQuery.
+ *
+ * With a maximum distance, the search stops at that radius and farther attractions are never returned.
+ */
+public class NearestAttractionsQuery {
+
+	private static final Comparator<AttractionDistance> FARTHEST_FIRST = Comparator
+			.comparingDouble(AttractionDistance::getDistance).reversed();
+
+	@Getter
+	private final Location location;
+
+	@Getter
+	private final int count;
+
+	@Getter
+	private final double maxDistance;
+
+	private final DistanceQuery distanceQuery;
+
+	/**
+	 * Prepare a query around a location
+	 *
+	 * @param location								Location : The center of the query
+	 * @param count									Integer : The number of attractions to find (k)
+	 * @param maxDistance							Double : The distance in miles beyond which attractions are ignored,
+	 * 												Double.POSITIVE_INFINITY for no limit
+	 */
+	public NearestAttractionsQuery(Location location, int count, double maxDistance) {
+		this.location = location;
+		this.count = count;
+		this.maxDistance = maxDistance;
+		this.distanceQuery = new DistanceQuery(location, maxDistance);
+	}
+
+	/**
+	 * Find the nearest attractions of a snapshot
+	 *
+	 * @param snapshot								AttractionSnapshot : The catalog snapshot to search
+	 * @return										List<AttractionDistance> : At most count attractions, nearest first
+	 */
+	public List<AttractionDistance> search(AttractionSnapshot snapshot) {
+
+		if (count <= 0 || maxDistance < 0) {
+			return Collections.emptyList();
+		}
+
+		AttractionSpatialIndex index = snapshot.getIndex();
+		double radius = Math.min(maxDistance, index.getCellSize() * AttractionSpatialIndex.STATUTE_MILES_PER_DEGREE);
+		while (true) {
+			List<Attraction> candidates = index.getCandidates(location, radius);
+			PriorityQueue<AttractionDistance> nearest = nearest(snapshot, candidates);
+
+			boolean complete = candidates == index.getAttractions() || radius >= maxDistance
+					|| (nearest.size() == count && nearest.peek().getDistance() <= radius);
+			if (complete) {
+				List<AttractionDistance> result = new ArrayList<>(nearest);
+				result.sort(FARTHEST_FIRST.reversed());
+				return result;
+			}
+			radius = Math.min(maxDistance, radius * 2);
+		}
+	}
+
+	// Bounded max-heap of the count nearest candidates within the maximum distance
+	private PriorityQueue<AttractionDistance> nearest(AttractionSnapshot snapshot, List<Attraction> candidates) {
+		PriorityQueue<AttractionDistance> nearest = new PriorityQueue<>(count + 1, FARTHEST_FIRST);
+		for (Attraction attraction : candidates) {
+			CatalogAttraction catalogAttraction = snapshot.getCatalogAttraction(attraction);
+			if (!distanceQuery.isWithin(catalogAttraction)) {
+				continue;
+			}
+			double distance = distanceQuery.getDistance(catalogAttraction);
+			if (nearest.size() < count) {
+				nearest.add(new AttractionDistance(attraction, distance));
+			} else if (distance < nearest.peek().getDistance()) {
+				nearest.poll();
+				nearest.add(new AttractionDistance(attraction, distance));
+			}
+		}
+		return nearest;
+	}
+}
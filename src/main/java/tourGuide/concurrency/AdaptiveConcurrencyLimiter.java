@@ -0,0 +1,244 @@
+package tourGuide.concurrency;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+
+/**
+ * AIMD concurrency limiter driven by the observed latency of an upstream service
+ *
+ * Callers wait while the number of calls in flight reaches the limit, priority callers being let in first.
+ * Each completed call feeds two latency averages : a short one reacting quickly, and a long one used as baseline.
+ * - When the short average stays under baseline * tolerance and the limit is in use, the limit grows by one
+ * - When it goes above, or a call fails, the limit is multiplied by the backoff ratio
+ * The limit always stays between the configured floor and ceiling.
+ */
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+	private static final double SHORT_SMOOTHING = 0.2;
+
+	private static final double LONG_SMOOTHING = 0.001;
+
+	private static final double BACKOFF_RATIO = 0.9;
+
+	private static final double LATENCY_TOLERANCE = 2.0;
+
+	@Getter
+	private final String name;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition available = lock.newCondition();
+
+	private final Condition priorityAvailable = lock.newCondition();
+
+	// Priority callers waiting for a slot, other callers wait until there is none
+	private int priorityWaiters;
+
+	@Getter
+	private volatile int minLimit;
+
+	@Getter
+	private volatile int maxLimit;
+
+	// Kept as a double so additive increases and multiplicative decreases compose smoothly
+	private double limit;
+
+	@Getter
+	private volatile int inFlight;
+
+	private double shortLatency;
+
+	private double longLatency;
+
+	// Number of latency samples, the long average is a plain mean until it holds enough of them
+	private long samples;
+
+	// Calls started before the last decrease were measured under the previous limit and are ignored
+	private long lastDecrease = System.nanoTime();
+
+	public AdaptiveConcurrencyLimiter(String name, int minLimit, int maxLimit) {
+		this.name = name;
+		setLimits(minLimit, maxLimit);
+		this.limit = minLimit;
+	}
+
+	/**
+	 * Change the floor and ceiling of the limit, the current limit is clamped between them
+	 *
+	 * @param minLimit								Integer : The lowest limit, at least 1
+	 * @param maxLimit								Integer : The highest limit
+	 */
+	public void setLimits(int minLimit, int maxLimit) {
+		if (minLimit < 1 || maxLimit < minLimit) {
+			throw new IllegalArgumentException("Concurrency limits must verify 1 <= min <= max");
+		}
+		lock.lock();
+		try {
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			this.limit = Math.max(minLimit, Math.min(maxLimit, limit));
+			available.signalAll();
+			priorityAvailable.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Run an upstream call once the limit allows it, and record its latency
+	 *
+	 * @param call									Supplier : The upstream call
+	 * @return										The result of the call
+	 * @throws CompletionException					Thrown when the thread is interrupted while waiting for a slot
+	 */
+	public <T> T call(Supplier<T> call) {
+		return call(call, false);
+	}
+
+	/**
+	 * Run an upstream call once the limit allows it, and record its latency
+	 * A priority call takes the next free slot before any waiting call without priority
+	 *
+	 * @param call									Supplier : The upstream call
+	 * @param priority								Boolean : True to get a slot before the calls without priority
+	 * @return										The result of the call
+	 * @throws CompletionException					Thrown when the thread is interrupted while waiting for a slot
+	 */
+	public <T> T call(Supplier<T> call, boolean priority) {
+		long start = acquire(priority);
+		boolean success = false;
+		try {
+			T result = call.get();
+			success = true;
+			return result;
+		} finally {
+			release(start, System.nanoTime() - start, success);
+		}
+	}
+
+	private long acquire(boolean priority) {
+		try {
+			lock.lockInterruptibly();
+		} catch (InterruptedException e) {
+			throw interrupted(e);
+		}
+		try {
+			if (priority) {
+				priorityWaiters++;
+				try {
+					while (inFlight >= (int) limit) {
+						priorityAvailable.await();
+					}
+				} finally {
+					priorityWaiters--;
+				}
+			} else {
+				while (inFlight >= (int) limit || priorityWaiters > 0) {
+					available.await();
+				}
+			}
+			inFlight++;
+			signalIfAvailable();
+			return System.nanoTime();
+		} catch (InterruptedException e) {
+			// The signal this waiter may have received is passed on, so a free slot does not stay unused
+			signalIfAvailable();
+			throw interrupted(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// The interrupt status is kept for the caller, the call is abandoned without taking a slot
+	private static CompletionException interrupted(InterruptedException e) {
+		Thread.currentThread().interrupt();
+		return new CompletionException(e);
+	}
+
+	private void release(long start, long latency, boolean success) {
+		lock.lock();
+		try {
+			inFlight--;
+
+			samples++;
+			shortLatency += Math.max(SHORT_SMOOTHING, 1.0 / samples) * (latency - shortLatency);
+			longLatency += Math.max(LONG_SMOOTHING, 1.0 / samples) * (latency - longLatency);
+
+			boolean degraded = !success || shortLatency > longLatency * LATENCY_TOLERANCE;
+			if (degraded && start - lastDecrease > 0) {
+				limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+				lastDecrease = System.nanoTime();
+			} else if (!degraded && inFlight + 1 >= limit / 2) {
+				limit = Math.min(maxLimit, limit + 1);
+			}
+
+			signalIfAvailable();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Waking a single waiter : with thousands of waiting virtual threads, waking all of them on every release
+	// costs more than the calls themselves. Each woken waiter wakes the next one while slots remain.
+	// Priority waiters are woken first, the others once none is left.
+	private void signalIfAvailable() {
+		if (inFlight < (int) limit) {
+			if (priorityWaiters > 0) {
+				priorityAvailable.signal();
+			} else {
+				available.signal();
+			}
+		}
+	}
+
+	/**
+	 * Get the current concurrency limit
+	 *
+	 * @return										Integer : The number of calls allowed in flight
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the short term average latency of the upstream calls
+	 *
+	 * @return										Double : The average latency in milliseconds
+	 */
+	public double getLatencyMillis() {
+		lock.lock();
+		try {
+			return shortLatency / TimeUnit.MILLISECONDS.toNanos(1);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("upstream.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+				.description("Current adaptive concurrency limit").tag("upstream", name).register(registry);
+		Gauge.builder("upstream.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+				.description("Upstream calls in flight").tag("upstream", name).register(registry);
+		Gauge.builder("upstream.concurrency.min", this, AdaptiveConcurrencyLimiter::getMinLimit)
+				.description("Floor of the adaptive concurrency limit").tag("upstream", name).register(registry);
+		Gauge.builder("upstream.concurrency.max", this, AdaptiveConcurrencyLimiter::getMaxLimit)
+				.description("Ceiling of the adaptive concurrency limit").tag("upstream", name).register(registry);
+		Gauge.builder("upstream.latency.average", this, AdaptiveConcurrencyLimiter::getLatencyMillis)
+				.description("Short term average latency in milliseconds").tag("upstream", name)
+				.register(registry);
+	}
+}
@@ -0,0 +1,61 @@
+package tourGuide.concurrency;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+public class ConcurrencyUtil {
+
+	/**
+	 * Resize a fixed thread pool, core and maximum sizes are changed in an order the executor accepts
+	 *
+	 * @param executor							ThreadPoolExecutor : The fixed thread pool to resize
+	 * @param threads							Integer : The new number of threads
+	 */
+	public static void resize(ThreadPoolExecutor executor, int threads) {
+		if (threads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(threads);
+			executor.setCorePoolSize(threads);
+		} else {
+			executor.setCorePoolSize(threads);
+			executor.setMaximumPoolSize(threads);
+		}
+	}
+
+	/**
+	 * Create the executor of an execution mode
+	 *
+	 * @param mode								ExecutionMode : Platform thread pool or virtual thread per task
+	 * @param name								String : The prefix of the thread names
+	 * @param threads							Integer : The number of platform threads, ignored for virtual threads
+	 * @return									ExecutorService : The new executor
+	 */
+	public static ExecutorService newExecutor(ExecutionMode mode, String name, int threads) {
+		if (mode == ExecutionMode.VIRTUAL) {
+			return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+		}
+		return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name(name + "-", 0).factory());
+	}
+
+	/**
+	 * Replace the executor of a service by the executor of an execution mode
+	 * A fixed thread pool is resized in place, any other change shuts the previous executor down
+	 *
+	 * @param executor							ExecutorService : The current executor of the service
+	 * @param mode								ExecutionMode : The configured execution mode
+	 * @param name								String : The prefix of the thread names
+	 * @param threads							Integer : The number of platform threads, ignored for virtual threads
+	 * @return									ExecutorService : The executor to use from now on
+	 */
+	public static ExecutorService configure(ExecutorService executor, ExecutionMode mode, String name, int threads) {
+		if (mode == ExecutionMode.PLATFORM && executor instanceof ThreadPoolExecutor) {
+			resize((ThreadPoolExecutor) executor, threads);
+			return executor;
+		}
+		executor.shutdown();
+		return newExecutor(mode, name, threads);
+	}
+}
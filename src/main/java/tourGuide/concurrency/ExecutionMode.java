@@ -0,0 +1,13 @@
+package tourGuide.concurrency;
+
+/**
+ * Threads running the user trackings and rewards calculations
+ *
+ * - PLATFORM : a fixed pool of platform threads, sized to the concurrency ceiling of the upstream service
+ * - VIRTUAL : a new virtual thread per task, blocked tasks only cost a parked virtual thread
+ *
+ * In both modes, the upstream calls in flight are capped by an AdaptiveConcurrencyLimiter.
+ */
+public enum ExecutionMode {
+	PLATFORM, VIRTUAL
+}
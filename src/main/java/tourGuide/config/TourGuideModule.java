@@ -1,11 +1,21 @@
 package tourGuide.config;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import gpsUtil.GpsUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import rewardCentral.RewardCentral;
-import tourGuide.service.RewardsService;
+import tourGuide.eventlog.EventLog;
+import tourGuide.eventlog.SegmentedEventLog;
+import tourGuide.shard.ClusterMembership;
+import tourGuide.shard.ShardManager;
+import tourGuide.snapshot.UserSnapshotStore;
 
 @Configuration
 public class TourGuideModule {
@@ -16,13 +26,35 @@ public class TourGuideModule {
 	}
 
 	@Bean
-	public RewardsService getRewardsService() {
-		return new RewardsService();
+	public RewardCentral getRewardCentral() {
+		return new RewardCentral();
 	}
 
 	@Bean
-	public RewardCentral getRewardCentral() {
-		return new RewardCentral();
+	public ShardManager getShardManager(@Value("${tracker.shard.nodeId}") String nodeId,
+			@Value("${tracker.shard.nodes}") String[] nodes, @Value("${tracker.shard.count}") int shardCount) {
+		return new ShardManager(nodeId, new ClusterMembership(Arrays.asList(nodes)), shardCount);
+	}
+
+	@Bean(destroyMethod = "close")
+	public EventLog getEventLog(@Value("${eventLog.enabled}") boolean enabled,
+			@Value("${eventLog.directory}") String directory,
+			@Value("${eventLog.segmentSizeMegabytes}") long segmentSizeMegabytes,
+			@Value("${eventLog.fsync}") boolean fsync, MeterRegistry meterRegistry) throws IOException {
+		if (!enabled) {
+			return EventLog.DISABLED;
+		}
+		return new SegmentedEventLog(Paths.get(directory), segmentSizeMegabytes * 1024 * 1024, fsync,
+				meterRegistry);
+	}
+
+	@Bean
+	public UserSnapshotStore getUserSnapshotStore(@Value("${snapshot.enabled}") boolean enabled,
+			@Value("${snapshot.file}") String file) {
+		if (!enabled) {
+			return UserSnapshotStore.DISABLED;
+		}
+		return new UserSnapshotStore(Paths.get(file));
 	}
 
 }
@@ -1,32 +1,62 @@
 package tourGuide.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import javax.money.Monetary;
 
 import org.javamoney.moneta.Money;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
 import tourGuide.domain.User;
 import tourGuide.domain.UserPreferences;
 import tourGuide.domain.UserReward;
 import tourGuide.domain.dto.UserPreferencesDto;
+import tourGuide.domain.response.BatchUserResponse;
 import tourGuide.domain.response.NearbyAttractionsResponse;
 import tourGuide.domain.response.UserLocationResponse;
+import tourGuide.metrics.TourGuideMetrics;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
 import tourGuide.service.UserService;
 import tripPricer.Provider;
 
+@Slf4j
 @RestController
 public class TourGuideController {
 
@@ -39,6 +69,36 @@ public class TourGuideController {
 	@Autowired
 	RewardsService rewardsService;
 
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	static final String NEXT_CURSOR_HEADER = "Next-Cursor";
+
+	static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+	// Time given to the services before the endpoint answers with its fallback
+	@Value("${controller.getLocation.timeoutMillis}")
+	private long getLocationTimeoutMillis = 2000;
+
+	@Value("${controller.getNearbyAttractions.timeoutMillis}")
+	private long getNearbyAttractionsTimeoutMillis = 5000;
+
+	@Value("${controller.getTripDeals.timeoutMillis}")
+	private long getTripDealsTimeoutMillis = 5000;
+
+	// Largest number of users of a batch request, and time given to each of them
+	@Value("${controller.batch.maxUsers}")
+	private int batchMaxUsers = 500;
+
+	@Value("${controller.batch.timeoutMillis}")
+	private long batchTimeoutMillis = 10000;
+
+	// Number of streamed locations between two flushes of the response
+	private static final int STREAM_FLUSH_INTERVAL = 256;
+
 	/**
 	 * Return a string when calling the default url (in order to test if the API is UP or DOWB)
 	 *
@@ -51,40 +111,46 @@ public class TourGuideController {
 
 	/**
 	 * Get location of a given user
+	 * The request thread is released while the user is tracked, after the timeout the last known location is
+	 * returned with a stale Warning header, or 503 Service Unavailable when the user has no location yet
 	 *
 	 * @param userName							String : the name of the user to fetch location
 	 * @return									Location with longitude and latitude
-	 * @throws ExecutionException				Thrown if there was en error while fetching user location
-	 * @throws InterruptedException				Thrown if there was en error while fetching user location
 	 */
 	@GetMapping("/getLocation")
-	public ResponseEntity<VisitedLocation> getLocation(@RequestParam String userName)
-			throws InterruptedException, ExecutionException {
+	public CompletableFuture<ResponseEntity<VisitedLocation>> getLocation(@RequestParam String userName) {
 
 		User user = getUser(userName);
 		if (user != null) {
-			VisitedLocation visitedLocation = tourGuideService.getUserLocation(getUser(userName));
-			return new ResponseEntity<>(visitedLocation, HttpStatus.OK);
+			return withFallback("getLocation", getLocationTimeoutMillis,
+					tourGuideService.getUserLocationAsync(user).thenApply(ResponseEntity::ok), () -> {
+						if (user.getVisitedLocations().isEmpty()) {
+							return unavailable();
+						}
+						return stale(user.getLastVisitedLocation());
+					});
 		}
 
 		throw new NullPointerException("Username was not found");
 	}
 
 	/**
-	 * Get 5 closest attractions for a given user
+	 * Get the nearbyAttractions.count closest attractions for a given user
+	 * The request thread is released while the location and reward points are fetched,
+	 * after the timeout 503 Service Unavailable is returned
 	 *
 	 * @param userName							String : the name of the user to fetch attractions
-	 * @return									5 closest attractions with related datas
-	 * @throws ExecutionException				Thrown if there was en error while fetching user location
-	 * @throws InterruptedException				Thrown if there was en error while fetching user location
+	 * @return									Closest attractions with related datas, nearest first
 	 */
 	@GetMapping("/getNearbyAttractions")
-	public ResponseEntity<NearbyAttractionsResponse> getNearbyAttractions(@RequestParam String userName)
-			throws InterruptedException, ExecutionException {
+	public CompletableFuture<ResponseEntity<NearbyAttractionsResponse>> getNearbyAttractions(
+			@RequestParam String userName) {
 
 		User user = getUser(userName);
 		if (user != null) {
-			return new ResponseEntity<>(tourGuideService.getNearByAttractions(getUser(userName)), HttpStatus.OK);
+			return withFallback("getNearbyAttractions", getNearbyAttractionsTimeoutMillis,
+					tourGuideService.getNearByAttractionsAsync(user).thenApply(ResponseEntity::ok),
+					TourGuideController::unavailable);
 		}
 
 		throw new NullPointerException("Username was not found");
@@ -104,6 +170,70 @@ public class TourGuideController {
 		return new ResponseEntity<>(tourGuideService.getAllUsersLocation(), HttpStatus.OK);
 	}
 
+	/**
+	 * Stream the location of every user, in pages following the user ids
+	 * Locations are resolved in parallel while the response is written, the users without history being tracked,
+	 * and each location is sent as soon as it is written instead of building the whole list first.
+	 * When the page is full, the Next-Cursor header holds the cursor of the next page.
+	 *
+	 * @param cursor						UUID : The Next-Cursor of the previous page, none for the first page
+	 * @param limit							Integer : The maximum number of users of the page, 0 for every user
+	 * @param format						String : ndjson for one JSON object per line, json for a JSON array
+	 * @return								The locations of the users, written while they are resolved
+	 */
+	@GetMapping("/streamAllCurrentLocations")
+	public ResponseEntity<StreamingResponseBody> streamAllCurrentLocations(
+			@RequestParam(required = false) UUID cursor, @RequestParam(defaultValue = "0") int limit,
+			@RequestParam(defaultValue = "ndjson") String format) {
+
+		boolean jsonArray = "json".equalsIgnoreCase(format);
+		List<User> users = userService.getUsersAfter(cursor, limit);
+		ObjectWriter writer = objectMapper.writerFor(UserLocationResponse.class);
+
+		StreamingResponseBody body = outputStream -> {
+			AtomicInteger written = new AtomicInteger();
+			if (jsonArray) {
+				outputStream.write('[');
+			}
+			try {
+				tourGuideService.streamUsersLocation(users, userLocationResponse -> {
+					try {
+						if (jsonArray && written.get() > 0) {
+							outputStream.write(',');
+						}
+						outputStream.write(writer.writeValueAsBytes(userLocationResponse));
+						if (!jsonArray) {
+							outputStream.write('\n');
+						}
+						// Send a chunk every few hundred locations
+						if (written.incrementAndGet() % STREAM_FLUSH_INTERVAL == 0) {
+							outputStream.flush();
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while streaming the user locations", e);
+			} catch (ExecutionException e) {
+				throw new IOException("Error while fetching a user location", e);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			if (jsonArray) {
+				outputStream.write(']');
+			}
+		};
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(jsonArray ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_NDJSON);
+		if (limit > 0 && users.size() == limit) {
+			headers.set(NEXT_CURSOR_HEADER, users.get(users.size() - 1).getUserId().toString());
+		}
+		return new ResponseEntity<>(body, headers, HttpStatus.OK);
+	}
+
 	/**
 	 * Get rewards for a given user
 	 *
@@ -171,7 +301,7 @@ public class TourGuideController {
 			// Trip Duration
 			userPreferences.setTripDuration(userPreferencesDto.getTripDuration());
 
-			user.setUserPreferences(userPreferences);
+			userService.setUserPreferences(user, userPreferences);
 			return new ResponseEntity<>(userPreferences, HttpStatus.OK);
 		}
 
@@ -181,25 +311,153 @@ public class TourGuideController {
 
 	/**
 	 * Get Trip Agencies based on the user preferences
+	 * Trip Pricer is called outside of the request thread, after the timeout the deals previously found for the user
+	 * are returned with a stale Warning header
 	 *
 	 * @param userName						String : The username we want to fetch
 	 * @return								List<Provider> containg travel agencies based on the user preferences
 	 */
 	@GetMapping("/getTripDeals")
-	public ResponseEntity<List<Provider>> getTripDeals(@RequestParam String userName) {
+	public CompletableFuture<ResponseEntity<List<Provider>>> getTripDeals(@RequestParam String userName) {
 
 		User user = getUser(userName);
 		if (user != null) {
-			List<Provider> providers = tourGuideService.getTripDeals(user);
-			return new ResponseEntity<>(providers, HttpStatus.OK);
+			return withFallback("getTripDeals", getTripDealsTimeoutMillis,
+					tourGuideService.getTripDealsAsync(user).thenApply(ResponseEntity::ok),
+					() -> stale(user.getTripDeals()));
 		}
 
 		throw new NullPointerException("Username was not found");
 	}
 
-	// Utility method to get user from service
+	/**
+	 * Get the location of several users at once, the users without history being tracked concurrently
+	 * The body is the list of usernames : ["internalUser1", "internalUser2"]
+	 *
+	 * @param userNames						List<String> : The usernames, at most controller.batch.maxUsers
+	 * @return								The location or the error of each user, in the order of the usernames
+	 */
+	@PostMapping("/batch/getLocation")
+	public CompletableFuture<ResponseEntity<List<BatchUserResponse<VisitedLocation>>>> getLocations(
+			@RequestBody List<String> userNames) {
+
+		return batch(userNames, users -> users.stream()
+				.collect(Collectors.toMap(User::getUserId, tourGuideService::getUserLocationAsync)));
+	}
+
+	/**
+	 * Get the rewards of several users at once
+	 * The body is the list of usernames : ["internalUser1", "internalUser2"]
+	 *
+	 * @param userNames						List<String> : The usernames, at most controller.batch.maxUsers
+	 * @return								The rewards or the error of each user, in the order of the usernames
+	 */
+	@PostMapping("/batch/getRewards")
+	public CompletableFuture<ResponseEntity<List<BatchUserResponse<List<UserReward>>>>> getRewards(
+			@RequestBody List<String> userNames) {
+
+		return batch(userNames, users -> users.stream().collect(Collectors.toMap(User::getUserId,
+				user -> CompletableFuture.completedFuture(rewardsService.getUserRewards(user)))));
+	}
+
+	/**
+	 * Get the closest attractions of several users at once, the attraction catalog is read once for the batch
+	 * The body is the list of usernames : ["internalUser1", "internalUser2"]
+	 *
+	 * @param userNames						List<String> : The usernames, at most controller.batch.maxUsers
+	 * @return								The attractions or the error of each user, in the order of the usernames
+	 */
+	@PostMapping("/batch/getNearbyAttractions")
+	public CompletableFuture<ResponseEntity<List<BatchUserResponse<NearbyAttractionsResponse>>>> getNearbyAttractions(
+			@RequestBody List<String> userNames) {
+
+		return batch(userNames, tourGuideService::getNearByAttractionsAsync);
+	}
+
+	/*
+	 * Resolve every known user of the batch with a single call to the resolver, then wait for all of them.
+	 * A duplicated username is resolved once. Each user gets its own error (unknown user, failure, or no answer
+	 * within controller.batch.timeoutMillis), so one slow or missing user does not fail the whole batch.
+	 */
+	private <T> CompletableFuture<ResponseEntity<List<BatchUserResponse<T>>>> batch(List<String> userNames,
+			Function<Collection<User>, Map<UUID, CompletableFuture<T>>> resolver) {
+
+		Set<String> distinctUserNames = new LinkedHashSet<>(userNames);
+		if (distinctUserNames.size() > batchMaxUsers) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+		}
+
+		Map<String, User> users = new LinkedHashMap<>();
+		for (String userName : distinctUserNames) {
+			User user = getUser(userName);
+			if (user != null) {
+				users.put(userName, user);
+			}
+		}
+		Map<UUID, CompletableFuture<T>> results = resolver.apply(users.values());
+
+		List<CompletableFuture<BatchUserResponse<T>>> responses = new ArrayList<>(distinctUserNames.size());
+		for (String userName : distinctUserNames) {
+			User user = users.get(userName);
+			if (user == null) {
+				responses.add(CompletableFuture.completedFuture(batchUserResponse(userName, null,
+						"Username was not found")));
+				continue;
+			}
+			responses.add(results.get(user.getUserId()).copy().orTimeout(batchTimeoutMillis, TimeUnit.MILLISECONDS)
+					.handle((result, e) -> batchUserResponse(userName, result, e == null ? null : errorMessage(e))));
+		}
+
+		return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0]))
+				.thenApply(done -> ResponseEntity.ok(responses.stream().map(CompletableFuture::join)
+						.collect(Collectors.toList())));
+	}
+
+	private static <T> BatchUserResponse<T> batchUserResponse(String userName, T result, String error) {
+		BatchUserResponse<T> response = new BatchUserResponse<>();
+		response.setUserName(userName);
+		response.setResult(result);
+		response.setError(error);
+		return response;
+	}
+
+	private static String errorMessage(Throwable e) {
+		Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+		if (cause instanceof TimeoutException) {
+			return "No answer within the batch timeout";
+		}
+		return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+	}
+
+	/*
+	 * Complete the response with the fallback when the service fails or does not answer within the timeout.
+	 * The timeout is applied to a dependent future, so a tracking shared with other callers is not cancelled.
+	 */
+	private <T> CompletableFuture<ResponseEntity<T>> withFallback(String endpoint, long timeoutMillis,
+			CompletableFuture<ResponseEntity<T>> response, Supplier<ResponseEntity<T>> fallback) {
+		return response.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).exceptionally(e -> {
+			log.debug("[Controller] {} answered with its fallback : {}", endpoint, e.toString());
+			meterRegistry.counter(TourGuideMetrics.ENDPOINT_FALLBACKS, "endpoint", endpoint).increment();
+			return fallback.get();
+		});
+	}
+
+	// Previous result, flagged with the "Response is Stale" warning
+	private static <T> ResponseEntity<T> stale(T body) {
+		return ResponseEntity.ok().header(HttpHeaders.WARNING, STALE_WARNING).body(body);
+	}
+
+	private static <T> ResponseEntity<T> unavailable() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+	}
+
+	// Utility method to get user from service, the user is tracked more often while using the application
 	private User getUser(String userName) {
-		return userService.getUser(userName);
+		User user = userService.getUser(userName);
+		if (user != null) {
+			user.markActive();
+		}
+		return user;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package tourGuide.domain;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class RewardsBatchStatistics {
+
+	private int usersProcessed;
+	private int rewardsGranted;
+	private long upstreamCalls;
+	private long wallTimeMillis;
+
+	public RewardsBatchStatistics(int usersProcessed, int rewardsGranted, long upstreamCalls, long wallTimeMillis) {
+		this.usersProcessed = usersProcessed;
+		this.rewardsGranted = rewardsGranted;
+		this.upstreamCalls = upstreamCalls;
+		this.wallTimeMillis = wallTimeMillis;
+	}
+
+}
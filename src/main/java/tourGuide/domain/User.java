@@ -3,11 +3,23 @@ package tourGuide.domain;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import tourGuide.history.LocationHistory;
+import tourGuide.history.RetentionPolicy;
+import tourGuide.util.AppendOnlyList;
 import tripPricer.Provider;
 
 @Data
@@ -19,11 +31,35 @@ public class User {
 	private String phoneNumber;
 	private String emailAddress;
 	private Date latestLocationTimestamp;
-	private List<VisitedLocation> visitedLocations = new ArrayList<>();
-	private List<UserReward> userRewards = new ArrayList<>();
+	// Shared by the tracker, the rewards calculation and the web threads : appended under the list lock, read lock-free
+	// The locations are kept in a columnar store, the VisitedLocation objects are only created when read
+	@Setter(AccessLevel.NONE)
+	private LocationHistory visitedLocations = LocationHistory.create();
+	@Setter(AccessLevel.NONE)
+	private AppendOnlyList<UserReward> userRewards = new AppendOnlyList<>();
 	private UserPreferences userPreferences = new UserPreferences();
 	private List<Provider> tripDeals = new ArrayList<>();
 
+	// Number of visited locations already checked by the rewards calculation, as a sequence of the history
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private AtomicInteger rewardsWatermark = new AtomicInteger();
+
+	// Names of the rewarded attractions, attraction ids are not stable between two gpsUtil calls
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private Set<String> rewardedAttractions = ConcurrentHashMap.newKeySet();
+
+	// Time of the last request made for the user, in milliseconds since epoch (0 if none)
+	@Setter(AccessLevel.NONE)
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private volatile long lastActivityTime;
+
 	public User(UUID userId, String userName, String phoneNumber, String emailAddress) {
 		this.userId = userId;
 		this.userName = userName;
@@ -35,15 +71,129 @@ public class User {
 		visitedLocations.add(visitedLocation);
 	}
 
+	public void setVisitedLocations(List<VisitedLocation> visitedLocations) {
+		LocationHistory history = LocationHistory.create();
+		history.addAll(visitedLocations);
+		this.visitedLocations = history;
+		rewardsWatermark.set(0);
+	}
+
 	public void clearVisitedLocations() {
 		visitedLocations.clear();
+		rewardsWatermark.set(0);
+	}
+
+	/**
+	 * Get the visited locations between the rewards watermark and a sequence of the history, without moving the
+	 * watermark : it is only moved by advanceRewardsWatermark() once the locations have been checked
+	 *
+	 * @param until							Integer : The sequence after the last location to get
+	 * @return								List<VisitedLocation> : The locations not checked for rewards yet
+	 */
+	public List<VisitedLocation> getUnprocessedLocations(int until) {
+		int watermark = rewardsWatermark.get();
+		if (watermark >= until) {
+			return new ArrayList<>();
+		}
+		return visitedLocations.copyOfSequences(watermark, until);
+	}
+
+	/**
+	 * Move the rewards watermark after the locations checked by a successful rewards calculation
+	 * The watermark never moves back, a calculation ending after a newer one keeps the newer watermark
+	 *
+	 * @param until							Integer : The sequence after the last checked location
+	 */
+	public void advanceRewardsWatermark(int until) {
+		rewardsWatermark.accumulateAndGet(until, Math::max);
+	}
+
+	/**
+	 * Drop the visited locations not retained by a retention policy
+	 * The last location and the locations not checked for rewards yet are always retained
+	 *
+	 * @param policy						RetentionPolicy : The rules of the retained locations
+	 * @param now							Long : The current time, in milliseconds since epoch
+	 * @return								Integer : The number of dropped locations
+	 */
+	public int compactVisitedLocations(RetentionPolicy policy, long now) {
+		return visitedLocations.compact(policy, now, rewardsWatermark.get());
+	}
+
+	/**
+	 * Get the number of visited locations already checked by the rewards calculation, compacted ones included
+	 *
+	 * @return								Integer : The rewards watermark
+	 */
+	public int getRewardsWatermark() {
+		return rewardsWatermark.get();
 	}
 
-	public void addUserReward(UserReward userReward) {
+	/**
+	 * Set the number of visited locations already checked by the rewards calculation, when restoring a user
+	 *
+	 * @param watermark						Integer : The sequence of the first location not checked for rewards
+	 */
+	public void restoreRewardsWatermark(int watermark) {
+		rewardsWatermark.set(watermark);
+	}
+
+	/**
+	 * Move the rewards watermark back to the first location, so the whole history is checked again
+	 */
+	public void resetRewardsWatermark() {
+		rewardsWatermark.set(0);
+	}
+
+	/**
+	 * Add a reward to the user, unless the attraction has already been rewarded
+	 *
+	 * @param userReward					UserReward : The reward to add
+	 * @return								True if the reward was added
+	 */
+	public boolean addUserReward(UserReward userReward) {
+		if (!rewardedAttractions.add(userReward.getAttraction().attractionName)) {
+			return false;
+		}
 		userRewards.add(userReward);
+		return true;
+	}
+
+	public void setUserRewards(List<UserReward> userRewards) {
+		this.userRewards = new AppendOnlyList<>(userRewards);
+		rewardedAttractions.clear();
+		userRewards.forEach(r -> rewardedAttractions.add(r.getAttraction().attractionName));
+	}
+
+	/**
+	 * Check in constant time if the user has already been rewarded for an attraction
+	 *
+	 * @param attraction					Attraction : The attraction to check
+	 * @return								True if the attraction has already been rewarded
+	 */
+	public boolean hasRewardFor(Attraction attraction) {
+		return rewardedAttractions.contains(attraction.attractionName);
+	}
+
+	/**
+	 * Record that the user is using the application right now
+	 */
+	public void markActive() {
+		lastActivityTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Get the most recent visited locations of the user
+	 *
+	 * @param count							Integer : The maximum number of locations
+	 * @return								List<VisitedLocation> : A copy of the last locations, oldest first
+	 */
+	public List<VisitedLocation> getRecentVisitedLocations(int count) {
+		int size = visitedLocations.size();
+		return visitedLocations.copyOfRange(size - count, size);
 	}
 
 	public VisitedLocation getLastVisitedLocation() {
-		return visitedLocations.get(visitedLocations.size() - 1);
+		return visitedLocations.getLast();
 	}
 }
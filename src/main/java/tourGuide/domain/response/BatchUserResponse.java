@@ -0,0 +1,19 @@
+package tourGuide.domain.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a batch endpoint for one user : either the result, or the reason it could not be computed
+ */
+@Data
+@NoArgsConstructor
+public class BatchUserResponse<T> {
+
+	private String userName;
+
+	private T result;
+
+	private String error;
+
+}
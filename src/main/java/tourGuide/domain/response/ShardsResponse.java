@@ -0,0 +1,21 @@
+package tourGuide.domain.response;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class ShardsResponse {
+
+	private String nodeId;
+
+	private List<String> nodes;
+
+	private int shardCount;
+
+	private List<Integer> ownedShards;
+
+	private long ownedUsers;
+}
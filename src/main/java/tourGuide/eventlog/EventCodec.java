@@ -0,0 +1,251 @@
+package tourGuide.eventlog;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+
+import org.javamoney.moneta.Money;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.domain.User;
+import tourGuide.domain.UserPreferences;
+import tourGuide.domain.UserReward;
+
+/**
+ * Binary format of the events
+ *
+ * Each record is [payload length : int][CRC32C of the payload : int][payload], the payload starts with the event type.
+ * A record cut by a crash has a wrong length or checksum, so the end of the valid records can always be found.
+ *
+ * - USER : id, username, phone number, email address
+ * - VISITED_LOCATION : user id, latitude, longitude, visit time
+ * - USER_REWARD : user id, latitude, longitude and time of the visit, attraction name, city, state, latitude,
+ *   longitude, reward points
+ * - USER_PREFERENCES : user id, attraction proximity, currency code, lower and higher price points, trip duration,
+ *   ticket quantity, number of adults and children
+ */
+final class EventCodec {
+
+	static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+	private static final byte USER = 1;
+
+	private static final byte VISITED_LOCATION = 2;
+
+	private static final byte USER_REWARD = 3;
+
+	private static final byte USER_PREFERENCES = 4;
+
+	private static final int UUID_BYTES = 2 * Long.BYTES;
+
+	private static final int LOCATION_BYTES = 2 * Double.BYTES + Long.BYTES;
+
+	private EventCodec() {
+	}
+
+	static ByteBuffer encodeUser(User user) {
+		byte[] userName = bytes(user.getUserName());
+		byte[] phoneNumber = bytes(user.getPhoneNumber());
+		byte[] emailAddress = bytes(user.getEmailAddress());
+		ByteBuffer record = allocate(1 + UUID_BYTES + 3 * Short.BYTES + userName.length + phoneNumber.length
+				+ emailAddress.length);
+		record.put(USER);
+		putUuid(record, user.getUserId());
+		putBytes(record, userName);
+		putBytes(record, phoneNumber);
+		putBytes(record, emailAddress);
+		return seal(record);
+	}
+
+	static ByteBuffer encodeVisitedLocation(UUID userId, VisitedLocation visitedLocation) {
+		ByteBuffer record = allocate(1 + UUID_BYTES + LOCATION_BYTES);
+		record.put(VISITED_LOCATION);
+		putUuid(record, userId);
+		putVisitedLocation(record, visitedLocation);
+		return seal(record);
+	}
+
+	static ByteBuffer encodeUserReward(UUID userId, UserReward userReward) {
+		Attraction attraction = userReward.getAttraction();
+		byte[] name = bytes(attraction.attractionName);
+		byte[] city = bytes(attraction.city);
+		byte[] state = bytes(attraction.state);
+		ByteBuffer record = allocate(1 + UUID_BYTES + LOCATION_BYTES + 3 * Short.BYTES + name.length + city.length
+				+ state.length + 2 * Double.BYTES + Integer.BYTES);
+		record.put(USER_REWARD);
+		putUuid(record, userId);
+		putVisitedLocation(record, userReward.getVisitedLocation());
+		putBytes(record, name);
+		putBytes(record, city);
+		putBytes(record, state);
+		record.putDouble(attraction.latitude);
+		record.putDouble(attraction.longitude);
+		record.putInt(userReward.getRewardPoints());
+		return seal(record);
+	}
+
+	static ByteBuffer encodeUserPreferences(UUID userId, UserPreferences userPreferences) {
+		byte[] currency = bytes(userPreferences.getCurrency().getCurrencyCode());
+		byte[] lowerPricePoint = bytes(userPreferences.getLowerPricePoint().getNumberStripped().toPlainString());
+		byte[] highPricePoint = bytes(userPreferences.getHighPricePoint().getNumberStripped().toPlainString());
+		ByteBuffer record = allocate(1 + UUID_BYTES + Integer.BYTES + 3 * Short.BYTES + currency.length
+				+ lowerPricePoint.length + highPricePoint.length + 4 * Integer.BYTES);
+		record.put(USER_PREFERENCES);
+		putUuid(record, userId);
+		record.putInt(userPreferences.getAttractionProximity());
+		putBytes(record, currency);
+		putBytes(record, lowerPricePoint);
+		putBytes(record, highPricePoint);
+		record.putInt(userPreferences.getTripDuration());
+		record.putInt(userPreferences.getTicketQuantity());
+		record.putInt(userPreferences.getNumberOfAdults());
+		record.putInt(userPreferences.getNumberOfChildren());
+		return seal(record);
+	}
+
+	/**
+	 * Decode the record at the position of the buffer and move the position after it
+	 *
+	 * @param buffer								ByteBuffer : The records
+	 * @param listener								EventLogListener : Receives the decoded event
+	 * @return										True if a valid record was decoded, false at the end of the valid records
+	 */
+	static boolean decode(ByteBuffer buffer, EventLogListener listener) {
+		ByteBuffer payload = payload(buffer);
+		if (payload == null) {
+			return false;
+		}
+
+		switch (payload.get()) {
+			case USER:
+				listener.onUser(new User(getUuid(payload), getString(payload), getString(payload), getString(payload)));
+				break;
+			case VISITED_LOCATION:
+				listener.onVisitedLocation(getVisitedLocation(payload, getUuid(payload)));
+				break;
+			case USER_REWARD:
+				UUID userId = getUuid(payload);
+				VisitedLocation visitedLocation = getVisitedLocation(payload, userId);
+				Attraction attraction = new Attraction(getString(payload), getString(payload), getString(payload),
+						payload.getDouble(), payload.getDouble());
+				listener.onUserReward(userId, new UserReward(visitedLocation, attraction, payload.getInt()));
+				break;
+			case USER_PREFERENCES:
+				listener.onUserPreferences(getUuid(payload), getUserPreferences(payload));
+				break;
+			default:
+				return false;
+		}
+		buffer.position(buffer.position() + HEADER_BYTES + payload.limit());
+		return true;
+	}
+
+	/**
+	 * Move the position of the buffer after the record at its position, without decoding the event
+	 *
+	 * @param buffer								ByteBuffer : The records
+	 * @return										True if a valid record was skipped, false at the end of the valid records
+	 */
+	static boolean skip(ByteBuffer buffer) {
+		ByteBuffer payload = payload(buffer);
+		if (payload == null) {
+			return false;
+		}
+		buffer.position(buffer.position() + HEADER_BYTES + payload.limit());
+		return true;
+	}
+
+	// Payload of the record at the position of the buffer, null if the record is incomplete or corrupted
+	private static ByteBuffer payload(ByteBuffer buffer) {
+		int start = buffer.position();
+		if (buffer.remaining() < HEADER_BYTES) {
+			return null;
+		}
+		int length = buffer.getInt(start);
+		int checksum = buffer.getInt(start + Integer.BYTES);
+		if (length <= 0 || length > buffer.remaining() - HEADER_BYTES) {
+			return null;
+		}
+		ByteBuffer payload = buffer.slice(start + HEADER_BYTES, length);
+		CRC32C crc = new CRC32C();
+		crc.update(payload.duplicate());
+		return (int) crc.getValue() == checksum ? payload : null;
+	}
+
+	private static ByteBuffer allocate(int payloadLength) {
+		ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+		record.position(HEADER_BYTES);
+		return record;
+	}
+
+	// Write the header once the payload is complete, the record is ready to be written
+	private static ByteBuffer seal(ByteBuffer record) {
+		int length = record.position() - HEADER_BYTES;
+		CRC32C crc = new CRC32C();
+		crc.update(record.array(), HEADER_BYTES, length);
+		record.putInt(0, length);
+		record.putInt(Integer.BYTES, (int) crc.getValue());
+		return record.flip();
+	}
+
+	private static UserPreferences getUserPreferences(ByteBuffer payload) {
+		UserPreferences userPreferences = new UserPreferences();
+		userPreferences.setAttractionProximity(payload.getInt());
+		CurrencyUnit currency = Monetary.getCurrency(getString(payload));
+		userPreferences.setCurrency(currency);
+		userPreferences.setLowerPricePoint(Money.of(new BigDecimal(getString(payload)), currency));
+		userPreferences.setHighPricePoint(Money.of(new BigDecimal(getString(payload)), currency));
+		userPreferences.setTripDuration(payload.getInt());
+		userPreferences.setTicketQuantity(payload.getInt());
+		userPreferences.setNumberOfAdults(payload.getInt());
+		userPreferences.setNumberOfChildren(payload.getInt());
+		return userPreferences;
+	}
+
+	private static byte[] bytes(String value) {
+		byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("Event strings are limited to 65535 bytes");
+		}
+		return bytes;
+	}
+
+	private static void putBytes(ByteBuffer record, byte[] bytes) {
+		record.putShort((short) bytes.length);
+		record.put(bytes);
+	}
+
+	private static String getString(ByteBuffer payload) {
+		byte[] bytes = new byte[Short.toUnsignedInt(payload.getShort())];
+		payload.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void putUuid(ByteBuffer record, UUID uuid) {
+		record.putLong(uuid.getMostSignificantBits());
+		record.putLong(uuid.getLeastSignificantBits());
+	}
+
+	private static UUID getUuid(ByteBuffer payload) {
+		return new UUID(payload.getLong(), payload.getLong());
+	}
+
+	private static void putVisitedLocation(ByteBuffer record, VisitedLocation visitedLocation) {
+		record.putDouble(visitedLocation.location.latitude);
+		record.putDouble(visitedLocation.location.longitude);
+		record.putLong(visitedLocation.timeVisited.getTime());
+	}
+
+	private static VisitedLocation getVisitedLocation(ByteBuffer payload, UUID userId) {
+		Location location = new Location(payload.getDouble(), payload.getDouble());
+		return new VisitedLocation(userId, location, new Date(payload.getLong()));
+	}
+}
@@ -0,0 +1,111 @@
+package tourGuide.eventlog;
+
+import java.io.Closeable;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import gpsUtil.location.VisitedLocation;
+import tourGuide.domain.User;
+import tourGuide.domain.UserPreferences;
+import tourGuide.domain.UserReward;
+
+/**
+ * Append-only log of the user events, replayed on startup to rebuild the users
+ *
+ * Appends return immediately, the future completes once the event is written (and synced if configured).
+ * The in-memory users stay the source of truth while the application runs, the log is only read on replay.
+ * Once a snapshot of the users is saved, the events before its position can be deleted with truncateBefore().
+ */
+public interface EventLog extends Closeable {
+
+	// Log used when persistence is disabled : nothing is written and the replay finds no event
+	EventLog DISABLED = new EventLog() {
+
+		@Override
+		public CompletableFuture<Void> appendUser(User user) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@Override
+		public CompletableFuture<Void> appendVisitedLocation(UUID userId, VisitedLocation visitedLocation) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@Override
+		public CompletableFuture<Void> appendUserReward(UUID userId, UserReward userReward) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@Override
+		public CompletableFuture<Void> appendUserPreferences(UUID userId, UserPreferences userPreferences) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		@Override
+		public long replay(long fromEvent, EventLogListener listener) {
+			return 0;
+		}
+
+		@Override
+		public void truncateBefore(long position) {
+		}
+
+		@Override
+		public long getEventCount() {
+			return 0;
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	/**
+	 * Append a new user, followed by the preferences, locations and rewards it already has
+	 *
+	 * @param user									User : The added user
+	 * @return										CompletableFuture : Completes when the events are written
+	 */
+	CompletableFuture<Void> appendUser(User user);
+
+	CompletableFuture<Void> appendVisitedLocation(UUID userId, VisitedLocation visitedLocation);
+
+	CompletableFuture<Void> appendUserReward(UUID userId, UserReward userReward);
+
+	CompletableFuture<Void> appendUserPreferences(UUID userId, UserPreferences userPreferences);
+
+	/**
+	 * Read every event of the log, oldest first
+	 *
+	 * @param listener								EventLogListener : Receives the events
+	 * @return										Long : The number of events read
+	 */
+	default long replay(EventLogListener listener) {
+		return replay(0, listener);
+	}
+
+	/**
+	 * Read the events of the log from a position, oldest first
+	 *
+	 * @param fromEvent								Long : The number of events to skip, see getEventCount()
+	 * @param listener								EventLogListener : Receives the events
+	 * @return										Long : The number of events read
+	 */
+	long replay(long fromEvent, EventLogListener listener);
+
+	/**
+	 * Delete the events before a position, when the log can do it without losing later events
+	 * Deleted events are no longer replayed : the position must be the one of a saved snapshot of the users
+	 *
+	 * @param position								Long : The number of events saved in the snapshot, see getEventCount()
+	 */
+	void truncateBefore(long position);
+
+	/**
+	 * Get the number of events written so far, the position of the next written event
+	 * Events still queued for the next group commit are not counted
+	 *
+	 * @return										Long : The number of written events
+	 */
+	long getEventCount();
+}
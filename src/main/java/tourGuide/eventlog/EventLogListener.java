@@ -0,0 +1,34 @@
+package tourGuide.eventlog;
+
+import java.util.UUID;
+
+import gpsUtil.location.VisitedLocation;
+import tourGuide.domain.User;
+import tourGuide.domain.UserPreferences;
+import tourGuide.domain.UserReward;
+
+/**
+ * Receives the events of the log during a replay, in the order they were appended
+ */
+public interface EventLogListener {
+
+	/**
+	 * A user was added, with its identity only : its locations and rewards follow as separate events
+	 *
+	 * @param user									User : The added user
+	 */
+	void onUser(User user);
+
+	void onVisitedLocation(VisitedLocation visitedLocation);
+
+	void onUserReward(UUID userId, UserReward userReward);
+
+	/**
+	 * The preferences of a user were replaced
+	 *
+	 * @param userId								UUID : The id of the user
+	 * @param userPreferences						UserPreferences : The new preferences of the user
+	 */
+	default void onUserPreferences(UUID userId, UserPreferences userPreferences) {
+	}
+}
@@ -0,0 +1,369 @@
+package tourGuide.eventlog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.User;
+import tourGuide.domain.UserPreferences;
+import tourGuide.domain.UserReward;
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Event log stored in a directory of segment files
+ *
+ * Writes are group-committed : appenders queue their records and a single writer thread drains the queue,
+ * writes every queued record with one gathering FileChannel write and syncs the batch once.
+ * A segment is closed once it reaches its maximum size and a new one is started, segment files are named
+ * after the number of events written before them, so sorting the names sorts the events.
+ * Replay maps each segment in memory and decodes the records in place.
+ * Segments are kept until a snapshot covers them : truncateBefore() deletes the closed segments whose events all
+ * come before the snapshot position, the current segment is never deleted.
+ */
+@Slf4j
+public class SegmentedEventLog implements EventLog {
+
+	static final String SEGMENT_SUFFIX = ".segment";
+
+	// Largest number of records written by one group commit
+	private static final int MAX_BATCH = 4096;
+
+	private final Path directory;
+
+	private final long segmentSize;
+
+	private final boolean fsync;
+
+	private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+
+	private final Thread writer;
+
+	private final Timer commitDuration;
+
+	private final DistributionSummary commitSize;
+
+	// Only used by the writer thread once the log is open
+	private FileChannel segment;
+
+	// Only written by the writer thread once the log is open
+	private volatile long eventCount;
+
+	private volatile boolean closed;
+
+	private static final class PendingRecord {
+
+		private final ByteBuffer record;
+
+		private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+		private PendingRecord(ByteBuffer record) {
+			this.record = record;
+		}
+	}
+
+	// Queued by close(), the writer stops once every record before it is written
+	private static final PendingRecord END = new PendingRecord(ByteBuffer.allocate(0));
+
+	/**
+	 * Open the log, the end of the last segment is truncated to its last valid record
+	 *
+	 * @param directory								Path : The directory of the segments, created if missing
+	 * @param segmentSize							Long : The size in bytes after which a new segment is started
+	 * @param fsync									Boolean : True to sync every group commit to the disk
+	 * @param registry								MeterRegistry : The registry the commit duration and size are published on
+	 * @throws IOException							Thrown if the directory or the last segment cannot be opened
+	 */
+	public SegmentedEventLog(Path directory, long segmentSize, boolean fsync, MeterRegistry registry)
+			throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.fsync = fsync;
+		this.commitDuration = Timer.builder(TourGuideMetrics.EVENT_LOG_COMMIT_DURATION)
+				.description("Time taken to write and sync a group of events")
+				.register(registry);
+		this.commitSize = DistributionSummary.builder(TourGuideMetrics.EVENT_LOG_COMMIT_SIZE)
+				.description("Number of events written by a group commit")
+				.register(registry);
+		Files.createDirectories(directory);
+		openLastSegment();
+		writer = new Thread(this::writeRecords, "event-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public CompletableFuture<Void> appendUser(User user) {
+		List<ByteBuffer> records = new ArrayList<>();
+		records.add(EventCodec.encodeUser(user));
+		records.add(EventCodec.encodeUserPreferences(user.getUserId(), user.getUserPreferences()));
+		for (VisitedLocation visitedLocation : user.getVisitedLocations()) {
+			records.add(EventCodec.encodeVisitedLocation(user.getUserId(), visitedLocation));
+		}
+		for (UserReward userReward : user.getUserRewards()) {
+			records.add(EventCodec.encodeUserReward(user.getUserId(), userReward));
+		}
+		return CompletableFuture.allOf(records.stream().map(this::append).toArray(CompletableFuture<?>[]::new));
+	}
+
+	@Override
+	public CompletableFuture<Void> appendVisitedLocation(UUID userId, VisitedLocation visitedLocation) {
+		return append(EventCodec.encodeVisitedLocation(userId, visitedLocation));
+	}
+
+	@Override
+	public CompletableFuture<Void> appendUserReward(UUID userId, UserReward userReward) {
+		return append(EventCodec.encodeUserReward(userId, userReward));
+	}
+
+	@Override
+	public CompletableFuture<Void> appendUserPreferences(UUID userId, UserPreferences userPreferences) {
+		return append(EventCodec.encodeUserPreferences(userId, userPreferences));
+	}
+
+	private CompletableFuture<Void> append(ByteBuffer record) {
+		if (closed) {
+			return CompletableFuture.failedFuture(new IllegalStateException("The event log is closed"));
+		}
+		PendingRecord pendingRecord = new PendingRecord(record);
+		queue.add(pendingRecord);
+		return pendingRecord.written;
+	}
+
+	@Override
+	public long replay(long fromEvent, EventLogListener listener) {
+		List<Path> segments = listSegments();
+		long events = 0;
+		for (int i = 0; i < segments.size(); i++) {
+			Path segmentPath = segments.get(i);
+			// Segments ending before the first event are skipped, and the records before it are not decoded
+			if (i + 1 < segments.size() && firstEvent(segments.get(i + 1)) <= fromEvent) {
+				continue;
+			}
+			long skipped = Math.max(0, fromEvent - firstEvent(segmentPath));
+			try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				while (skipped > 0 && EventCodec.skip(buffer)) {
+					skipped--;
+				}
+				while (EventCodec.decode(buffer, listener)) {
+					events++;
+				}
+				if (buffer.hasRemaining()) {
+					log.debug("[Event Log] Ignored {} invalid bytes at the end of {}.", buffer.remaining(), segmentPath);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		log.debug("[Event Log] Replayed {} events from {}.", events, directory);
+		return events;
+	}
+
+	/**
+	 * Delete the segments whose events all come before a position
+	 * The last segment is kept, it may be the one the writer appends to
+	 */
+	@Override
+	public void truncateBefore(long position) {
+		List<Path> segments = listSegments();
+		int deleted = 0;
+		for (int i = 0; i + 1 < segments.size() && firstEvent(segments.get(i + 1)) <= position; i++) {
+			try {
+				Files.deleteIfExists(segments.get(i));
+				deleted++;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		if (deleted > 0) {
+			log.debug("[Event Log] Deleted {} segments before event {}.", deleted, position);
+		}
+	}
+
+	@Override
+	public long getEventCount() {
+		return eventCount;
+	}
+
+	/**
+	 * Write every queued event, then stop the writer and close the current segment
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		queue.add(END);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		segment.close();
+	}
+
+	private void writeRecords() {
+		List<PendingRecord> batch = new ArrayList<>(MAX_BATCH);
+		boolean running = true;
+		while (running) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			queue.drainTo(batch, MAX_BATCH - 1);
+			running = !batch.remove(END);
+			commit(batch);
+			batch.clear();
+		}
+		// Records appended while the log was closing
+		PendingRecord pendingRecord;
+		while ((pendingRecord = queue.poll()) != null) {
+			pendingRecord.written.completeExceptionally(new IllegalStateException("The event log is closed"));
+		}
+	}
+
+	private void commit(List<PendingRecord> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		long start = System.nanoTime();
+		// Position of the records being written, where the segment is cut back if their write fails
+		long writeStart = -1;
+		try {
+			int from = 0;
+			while (from < batch.size()) {
+				// Records of the batch fitting in the current segment, at least one
+				long position = segment.position();
+				int to = from;
+				while (to < batch.size() && (to == from || position + batch.get(to).record.remaining() <= segmentSize)) {
+					position += batch.get(to).record.remaining();
+					to++;
+				}
+				if (segment.position() > 0 && position > segmentSize) {
+					rollSegment();
+					continue;
+				}
+				ByteBuffer[] records = batch.subList(from, to).stream().map(pending -> pending.record)
+						.toArray(ByteBuffer[]::new);
+				writeStart = segment.position();
+				while (records[records.length - 1].hasRemaining()) {
+					segment.write(records);
+				}
+				writeStart = -1;
+				eventCount += to - from;
+				from = to;
+			}
+			if (fsync) {
+				segment.force(false);
+			}
+			batch.forEach(pending -> pending.written.complete(null));
+		} catch (IOException e) {
+			log.debug("[Event Log] Error while writing {} events : {}", batch.size(), e.getMessage());
+			if (writeStart >= 0) {
+				discardFailedWrite(writeStart);
+			}
+			batch.forEach(pending -> pending.written.completeExceptionally(e));
+		}
+		commitSize.record(batch.size());
+		commitDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	/*
+	 * A failed write may leave part of a record in the segment, and replay stops at the first invalid record :
+	 * the segment is cut back before the failed records, so the records written next can be replayed.
+	 * When it cannot be cut, the next records go to a new segment, replay skips the invalid end of this one.
+	 */
+	private void discardFailedWrite(long position) {
+		try {
+			segment.truncate(position);
+			segment.position(position);
+		} catch (IOException e) {
+			log.debug("[Event Log] Error while discarding a failed write, starting a new segment : {}",
+					e.getMessage());
+			try {
+				segment.close();
+			} catch (IOException closeError) {
+				log.debug("[Event Log] Error while closing the segment : {}", closeError.getMessage());
+			}
+			try {
+				segment = openSegment(directory.resolve(segmentName(eventCount)));
+				segment.position(segment.size());
+			} catch (IOException openError) {
+				log.debug("[Event Log] Error while starting a new segment : {}", openError.getMessage());
+			}
+		}
+	}
+
+	private void rollSegment() throws IOException {
+		segment.force(false);
+		segment.close();
+		segment = openSegment(directory.resolve(segmentName(eventCount)));
+	}
+
+	private void openLastSegment() throws IOException {
+		List<Path> segments = listSegments();
+		if (segments.isEmpty()) {
+			segment = openSegment(directory.resolve(segmentName(0)));
+			return;
+		}
+
+		// Count the valid records of the last segment and cut what follows them (a write interrupted by a crash)
+		Path lastSegment = segments.get(segments.size() - 1);
+		segment = openSegment(lastSegment);
+		ByteBuffer buffer = segment.map(FileChannel.MapMode.READ_ONLY, 0, segment.size());
+		long events = 0;
+		while (EventCodec.skip(buffer)) {
+			events++;
+		}
+		if (buffer.position() < segment.size()) {
+			log.debug("[Event Log] Truncated {} invalid bytes at the end of {}.", segment.size() - buffer.position(),
+					lastSegment);
+			segment.truncate(buffer.position());
+		}
+		segment.position(buffer.position());
+		eventCount = firstEvent(lastSegment) + events;
+	}
+
+	private static long firstEvent(Path segmentPath) {
+		return Long.parseLong(segmentPath.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+	}
+
+	private static FileChannel openSegment(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private List<Path> listSegments() {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted()
+					.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String segmentName(long firstEvent) {
+		return String.format("%020d%s", firstEvent, SEGMENT_SUFFIX);
+	}
+}
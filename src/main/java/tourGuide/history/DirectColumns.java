@@ -0,0 +1,60 @@
+package tourGuide.history;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Columns stored outside of the heap in a direct ByteBuffer, one 24 bytes record per entry
+ *
+ * The memory is released by the garbage collector along with the buffer, its total is bounded by
+ * -XX:MaxDirectMemorySize (the maximum heap size by default).
+ */
+class DirectColumns implements HistoryColumns {
+
+	static final int ENTRY_BYTES = Double.BYTES + Double.BYTES + Long.BYTES;
+
+	private static final int LONGITUDE_OFFSET = Double.BYTES;
+
+	private static final int TIME_OFFSET = 2 * Double.BYTES;
+
+	private final ByteBuffer buffer;
+
+	DirectColumns(int capacity) {
+		this.buffer = ByteBuffer.allocateDirect(capacity * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+	}
+
+	@Override
+	public int capacity() {
+		return buffer.capacity() / ENTRY_BYTES;
+	}
+
+	@Override
+	public double latitude(int index) {
+		return buffer.getDouble(index * ENTRY_BYTES);
+	}
+
+	@Override
+	public double longitude(int index) {
+		return buffer.getDouble(index * ENTRY_BYTES + LONGITUDE_OFFSET);
+	}
+
+	@Override
+	public long time(int index) {
+		return buffer.getLong(index * ENTRY_BYTES + TIME_OFFSET);
+	}
+
+	@Override
+	public void set(int index, double latitude, double longitude, long time) {
+		int offset = index * ENTRY_BYTES;
+		buffer.putDouble(offset, latitude);
+		buffer.putDouble(offset + LONGITUDE_OFFSET, longitude);
+		buffer.putLong(offset + TIME_OFFSET, time);
+	}
+
+	@Override
+	public HistoryColumns copyOf(int capacity, int size) {
+		DirectColumns copy = new DirectColumns(capacity);
+		copy.buffer.put(0, buffer, 0, size * ENTRY_BYTES);
+		return copy;
+	}
+}
@@ -0,0 +1,59 @@
+package tourGuide.history;
+
+/**
+ * Columns stored in three primitive arrays on the heap, 24 bytes per entry
+ */
+class HeapColumns implements HistoryColumns {
+
+	private final double[] latitudes;
+
+	private final double[] longitudes;
+
+	private final long[] times;
+
+	HeapColumns(int capacity) {
+		this(new double[capacity], new double[capacity], new long[capacity]);
+	}
+
+	private HeapColumns(double[] latitudes, double[] longitudes, long[] times) {
+		this.latitudes = latitudes;
+		this.longitudes = longitudes;
+		this.times = times;
+	}
+
+	@Override
+	public int capacity() {
+		return times.length;
+	}
+
+	@Override
+	public double latitude(int index) {
+		return latitudes[index];
+	}
+
+	@Override
+	public double longitude(int index) {
+		return longitudes[index];
+	}
+
+	@Override
+	public long time(int index) {
+		return times[index];
+	}
+
+	@Override
+	public void set(int index, double latitude, double longitude, long time) {
+		latitudes[index] = latitude;
+		longitudes[index] = longitude;
+		times[index] = time;
+	}
+
+	@Override
+	public HistoryColumns copyOf(int capacity, int size) {
+		HeapColumns copy = new HeapColumns(capacity);
+		System.arraycopy(latitudes, 0, copy.latitudes, 0, size);
+		System.arraycopy(longitudes, 0, copy.longitudes, 0, size);
+		System.arraycopy(times, 0, copy.times, 0, size);
+		return copy;
+	}
+}
@@ -0,0 +1,28 @@
+package tourGuide.history;
+
+/**
+ * Fixed capacity primitive columns of a location history : latitude, longitude and visit time of each entry
+ *
+ * Columns are written by a single writer at a time, at indexes no reader looks at yet.
+ */
+interface HistoryColumns {
+
+	int capacity();
+
+	double latitude(int index);
+
+	double longitude(int index);
+
+	long time(int index);
+
+	void set(int index, double latitude, double longitude, long time);
+
+	/**
+	 * Copy the first entries into new columns of the same storage
+	 *
+	 * @param capacity							Integer : The capacity of the new columns
+	 * @param size								Integer : The number of entries to copy
+	 * @return									HistoryColumns : The new columns
+	 */
+	HistoryColumns copyOf(int capacity, int size);
+}
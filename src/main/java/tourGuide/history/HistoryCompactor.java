@@ -0,0 +1,124 @@
+package tourGuide.history;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.User;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.service.UserService;
+
+/**
+ * Background compaction of the user location histories
+ *
+ * On a fixed schedule, every history is compacted with the retention policy of the deployment, so memory and
+ * rewards scans stay bounded. Compacting a history only takes its append lock for the copy of the retained
+ * locations, readers keep working on the previous snapshot.
+ */
+@Slf4j
+@Component
+public class HistoryCompactor {
+
+	@Autowired
+	private UserService userService;
+
+	@Value("${history.retention.maxCount}")
+	private int maxCount = 0;
+
+	@Value("${history.retention.maxAgeMinutes}")
+	private long maxAgeMinutes = 0;
+
+	@Value("${history.retention.downsampling.afterMinutes}")
+	private long downsamplingAfterMinutes = 0;
+
+	@Value("${history.retention.downsampling.intervalMinutes}")
+	private long downsamplingIntervalMinutes = 0;
+
+	@Value("${history.retention.downsampling.geohashPrecision}")
+	private int downsamplingGeohashPrecision = 0;
+
+	@Value("${history.retention.compactionIntervalMinutes}")
+	private long compactionIntervalMinutes = 10;
+
+	@Getter
+	private RetentionPolicy retentionPolicy = RetentionPolicy.UNBOUNDED;
+
+	@Autowired
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	// Published once the registry is injected
+	private Counter droppedLocations;
+
+	private Timer compactionDuration;
+
+	private ScheduledExecutorService compactionExecutor;
+
+	/**
+	 * Publish the compaction metrics, build the retention policy and schedule the background compaction,
+	 * unless the histories are unbounded
+	 */
+	@PostConstruct
+	public void startCompaction() {
+		droppedLocations = Counter.builder(TourGuideMetrics.HISTORY_COMPACTION_DROPPED)
+				.description("Visited locations dropped by the retention policy")
+				.register(meterRegistry);
+		compactionDuration = Timer.builder(TourGuideMetrics.HISTORY_COMPACTION_DURATION)
+				.description("Time taken to compact every location history once")
+				.register(meterRegistry);
+		retentionPolicy = new RetentionPolicy(maxCount, maxAgeMinutes, downsamplingAfterMinutes,
+				downsamplingIntervalMinutes, downsamplingGeohashPrecision);
+		if (!retentionPolicy.isBounded()) {
+			return;
+		}
+		compactionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "history-compaction");
+			thread.setDaemon(true);
+			return thread;
+		});
+		compactionExecutor.scheduleWithFixedDelay(() -> {
+			try {
+				compactAll();
+			} catch (RuntimeException e) {
+				log.debug("[History] Error while compacting location histories : {}", e.getMessage());
+			}
+		}, compactionIntervalMinutes, compactionIntervalMinutes, TimeUnit.MINUTES);
+	}
+
+	@PreDestroy
+	public void stopCompaction() {
+		if (compactionExecutor != null) {
+			compactionExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Compact the location history of every user with the retention policy
+	 *
+	 * @return										Long : The number of dropped locations
+	 */
+	public long compactAll() {
+		long start = System.nanoTime();
+		long now = System.currentTimeMillis();
+		long dropped = 0;
+		for (User user : userService.getAllUsers()) {
+			dropped += user.compactVisitedLocations(retentionPolicy, now);
+		}
+		droppedLocations.increment(dropped);
+		compactionDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		log.debug("[History] Compaction dropped {} visited locations.", dropped);
+		return dropped;
+	}
+}
@@ -0,0 +1,25 @@
+package tourGuide.history;
+
+/**
+ * Where the columns of the location histories are stored
+ */
+public enum HistoryStorage {
+
+	// Primitive arrays on the heap
+	HEAP {
+		@Override
+		HistoryColumns allocate(int capacity) {
+			return new HeapColumns(capacity);
+		}
+	},
+
+	// Direct ByteBuffers outside of the heap, not scanned by the garbage collector
+	OFF_HEAP {
+		@Override
+		HistoryColumns allocate(int capacity) {
+			return new DirectColumns(capacity);
+		}
+	};
+
+	abstract HistoryColumns allocate(int capacity);
+}
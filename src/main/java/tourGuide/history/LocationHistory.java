@@ -0,0 +1,401 @@
+package tourGuide.history;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.UUID;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import lombok.Getter;
+
+/**
+ * Columnar location history of a user
+ *
+ * Instead of one VisitedLocation, Location and Date per entry, the latitude, longitude and visit time are kept in
+ * primitive columns (24 bytes per entry) and the user id once for the whole history.
+ * The history is a read-only List view : VisitedLocation objects are created on access, except for the last one
+ * which is kept as appended so the hot getLast() does not allocate.
+ *
+ * Like the AppendOnlyList, appends are serialized on the history and reads are lock-free on an immutable snapshot.
+ * Every location of a history belongs to the same user, the user id of the first appended location is used.
+ *
+ * Each appended location gets a sequence number (the number of locations appended before it), which survives the
+ * compaction : compact() drops locations according to a retention policy but never the newest one, nor the
+ * locations from a given sequence, so readers can keep track of what they have already seen.
+ */
+public class LocationHistory extends AbstractList<VisitedLocation> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private static volatile HistoryStorage defaultStorage = HistoryStorage.HEAP;
+
+	// Entries at index >= size may be written by an append in progress, readers never look at them
+	private static final class Snapshot {
+
+		private final HistoryColumns columns;
+
+		private final int size;
+
+		private final UUID userId;
+
+		private final VisitedLocation last;
+
+		// Number of locations appended since the creation or the last clear, the sequence of the next location
+		private final int appended;
+
+		private Snapshot(HistoryColumns columns, int size, UUID userId, VisitedLocation last, int appended) {
+			this.columns = columns;
+			this.size = size;
+			this.userId = userId;
+			this.last = last;
+			this.appended = appended;
+		}
+
+		// Compaction only drops locations before the first one kept by sequence, so the last ones are contiguous
+		private int indexOf(int sequence) {
+			return Math.max(0, size - (appended - sequence));
+		}
+	}
+
+	private final HistoryStorage storage;
+
+	private volatile Snapshot snapshot;
+
+	public LocationHistory(HistoryStorage storage) {
+		this.storage = storage;
+		this.snapshot = emptySnapshot();
+	}
+
+	/**
+	 * Create an empty history using the default storage
+	 *
+	 * @return										LocationHistory : The new history
+	 */
+	public static LocationHistory create() {
+		return new LocationHistory(defaultStorage);
+	}
+
+	/**
+	 * Set the storage of the histories created from now on, existing histories keep their storage
+	 *
+	 * @param storage								HistoryStorage : The storage to use
+	 */
+	public static void setDefaultStorage(HistoryStorage storage) {
+		defaultStorage = storage;
+	}
+
+	public static HistoryStorage getDefaultStorage() {
+		return defaultStorage;
+	}
+
+	public HistoryStorage getStorage() {
+		return storage;
+	}
+
+	@Override
+	public VisitedLocation get(int index) {
+		Snapshot current = snapshot;
+		if (index < 0 || index >= current.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size);
+		}
+		return visitedLocationAt(current, index);
+	}
+
+	@Override
+	public int size() {
+		return snapshot.size;
+	}
+
+	@Override
+	public synchronized boolean add(VisitedLocation visitedLocation) {
+		Snapshot current = snapshot;
+		HistoryColumns columns = ensureCapacity(current, 1);
+		columns.set(current.size, visitedLocation.location.latitude, visitedLocation.location.longitude,
+				visitedLocation.timeVisited.getTime());
+		UUID userId = current.userId != null ? current.userId : visitedLocation.userId;
+		snapshot = new Snapshot(columns, current.size + 1, userId, visitedLocation, current.appended + 1);
+		return true;
+	}
+
+	@Override
+	public synchronized boolean addAll(Collection<? extends VisitedLocation> visitedLocations) {
+		if (visitedLocations.isEmpty()) {
+			return false;
+		}
+		Snapshot current = snapshot;
+		HistoryColumns columns = ensureCapacity(current, visitedLocations.size());
+		int size = current.size;
+		UUID userId = current.userId;
+		VisitedLocation last = null;
+		for (VisitedLocation visitedLocation : visitedLocations) {
+			columns.set(size++, visitedLocation.location.latitude, visitedLocation.location.longitude,
+					visitedLocation.timeVisited.getTime());
+			userId = userId != null ? userId : visitedLocation.userId;
+			last = visitedLocation;
+		}
+		snapshot = new Snapshot(columns, size, userId, last, current.appended + visitedLocations.size());
+		return true;
+	}
+
+	/**
+	 * Append locations given as columns, without creating a VisitedLocation per entry (only the last one)
+	 *
+	 * @param userId								UUID : The user the locations belong to
+	 * @param latitudes								double[] : The latitudes of the locations
+	 * @param longitudes							double[] : The longitudes of the locations
+	 * @param times									long[] : The visit times of the locations, in milliseconds since epoch
+	 * @param count									Integer : The number of locations to append from the arrays
+	 */
+	public synchronized void addAll(UUID userId, double[] latitudes, double[] longitudes, long[] times, int count) {
+		if (count == 0) {
+			return;
+		}
+		Snapshot current = snapshot;
+		HistoryColumns columns = ensureCapacity(current, count);
+		for (int i = 0; i < count; i++) {
+			columns.set(current.size + i, latitudes[i], longitudes[i], times[i]);
+		}
+		VisitedLocation last = new VisitedLocation(userId,
+				new Location(latitudes[count - 1], longitudes[count - 1]), new Date(times[count - 1]));
+		snapshot = new Snapshot(columns, current.size + count, current.userId != null ? current.userId : userId, last,
+				current.appended + count);
+	}
+
+	/**
+	 * Copy the columns of a single snapshot of the history, without creating VisitedLocation objects
+	 *
+	 * @return										Entries : The latitudes, longitudes and times of the locations, oldest first
+	 */
+	public Entries copyEntries() {
+		Snapshot current = snapshot;
+		double[] latitudes = new double[current.size];
+		double[] longitudes = new double[current.size];
+		long[] times = new long[current.size];
+		for (int i = 0; i < current.size; i++) {
+			latitudes[i] = current.columns.latitude(i);
+			longitudes[i] = current.columns.longitude(i);
+			times[i] = current.columns.time(i);
+		}
+		return new Entries(latitudes, longitudes, times, current.appended);
+	}
+
+	/**
+	 * Columns copied from a history
+	 */
+	@Getter
+	public static final class Entries {
+
+		private final double[] latitudes;
+
+		private final double[] longitudes;
+
+		private final long[] times;
+
+		// Number of locations appended to the history when the columns were copied
+		private final int appended;
+
+		private Entries(double[] latitudes, double[] longitudes, long[] times, int appended) {
+			this.latitudes = latitudes;
+			this.longitudes = longitudes;
+			this.times = times;
+			this.appended = appended;
+		}
+
+		public int size() {
+			return times.length;
+		}
+	}
+
+	@Override
+	public synchronized void clear() {
+		snapshot = emptySnapshot();
+	}
+
+	/**
+	 * Get the last location of the history, as it was appended
+	 *
+	 * @return										VisitedLocation : The last location
+	 * @throws IndexOutOfBoundsException			Thrown if the history is empty
+	 */
+	public VisitedLocation getLast() {
+		Snapshot current = snapshot;
+		if (current.size == 0) {
+			throw new IndexOutOfBoundsException("The history is empty");
+		}
+		return current.last;
+	}
+
+	/**
+	 * Get a copy of the locations between two indexes, taken from a single snapshot of the history
+	 *
+	 * @param fromIndex								Integer : The first index, inclusive, clamped to the size
+	 * @param toIndex								Integer : The last index, exclusive, clamped to the size
+	 * @return										List<VisitedLocation> : The locations, empty if the range is empty
+	 */
+	public List<VisitedLocation> copyOfRange(int fromIndex, int toIndex) {
+		Snapshot current = snapshot;
+		int to = Math.min(toIndex, current.size);
+		int from = Math.max(0, Math.min(fromIndex, to));
+		List<VisitedLocation> locations = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			locations.add(visitedLocationAt(current, i));
+		}
+		return locations;
+	}
+
+	/**
+	 * Get the number of locations appended since the creation or the last clear, including the compacted ones
+	 *
+	 * @return										Integer : The sequence the next appended location will get
+	 */
+	public int getAppendedCount() {
+		return snapshot.appended;
+	}
+
+	/**
+	 * Get a copy of the locations appended between two sequences, taken from a single snapshot of the history
+	 *
+	 * @param fromSequence							Integer : The sequence of the first location, inclusive
+	 * @param toSequence							Integer : The sequence of the last location, exclusive
+	 * @return										List<VisitedLocation> : The locations still in the history
+	 */
+	public List<VisitedLocation> copyOfSequences(int fromSequence, int toSequence) {
+		Snapshot current = snapshot;
+		int to = current.indexOf(Math.min(toSequence, current.appended));
+		int from = Math.min(current.indexOf(fromSequence), to);
+		List<VisitedLocation> locations = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			locations.add(visitedLocationAt(current, i));
+		}
+		return locations;
+	}
+
+	/**
+	 * Drop the locations not retained by a retention policy, in place
+	 * The newest location and the locations from keptSequence are always retained
+	 *
+	 * @param policy								RetentionPolicy : The rules of the retained locations
+	 * @param now									Long : The current time, in milliseconds since epoch
+	 * @param keptSequence							Integer : The sequence from which every location is retained
+	 * @return										Integer : The number of dropped locations
+	 */
+	public synchronized int compact(RetentionPolicy policy, long now, int keptSequence) {
+		Snapshot current = snapshot;
+		if (current.size <= 1 || !policy.isBounded()) {
+			return 0;
+		}
+		HistoryColumns columns = current.columns;
+		int keptFrom = Math.min(current.indexOf(keptSequence), current.size - 1);
+
+		boolean[] retained = new boolean[current.size];
+		int retainedCount = 0;
+		long lastWindow = 0;
+		long lastCell = 0;
+		boolean downsampling = false;
+		for (int i = 0; i < current.size; i++) {
+			long time = columns.time(i);
+			if (i >= keptFrom) {
+				retained[i] = true;
+			} else if (policy.isExpired(time, now)) {
+				retained[i] = false;
+			} else if (policy.isDownsampled(time, now)) {
+				// Only the first location of a run in the same window and cell is retained
+				long window = policy.timeWindow(time);
+				long cell = policy.cell(columns.latitude(i), columns.longitude(i));
+				retained[i] = !downsampling || window != lastWindow || cell != lastCell;
+				downsampling = true;
+				lastWindow = window;
+				lastCell = cell;
+			} else {
+				retained[i] = true;
+				downsampling = false;
+			}
+			retainedCount += retained[i] ? 1 : 0;
+		}
+
+		// The oldest locations beyond the maximum count are dropped
+		for (int i = 0; i < keptFrom && policy.getMaxCount() > 0 && retainedCount > policy.getMaxCount(); i++) {
+			if (retained[i]) {
+				retained[i] = false;
+				retainedCount--;
+			}
+		}
+
+		if (retainedCount == current.size) {
+			return 0;
+		}
+		HistoryColumns compacted = storage.allocate(retainedCount);
+		int size = 0;
+		for (int i = 0; i < current.size; i++) {
+			if (retained[i]) {
+				compacted.set(size++, columns.latitude(i), columns.longitude(i), columns.time(i));
+			}
+		}
+		snapshot = new Snapshot(compacted, size, current.userId, current.last, current.appended);
+		return current.size - size;
+	}
+
+	// Two histories are equal when they hold the same coordinates and times, VisitedLocation has no value equality
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof LocationHistory)) {
+			return false;
+		}
+		Snapshot current = snapshot;
+		Snapshot other = ((LocationHistory) o).snapshot;
+		if (current.size != other.size) {
+			return false;
+		}
+		for (int i = 0; i < current.size; i++) {
+			if (Double.compare(current.columns.latitude(i), other.columns.latitude(i)) != 0
+					|| Double.compare(current.columns.longitude(i), other.columns.longitude(i)) != 0
+					|| current.columns.time(i) != other.columns.time(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		Snapshot current = snapshot;
+		int hashCode = 1;
+		for (int i = 0; i < current.size; i++) {
+			hashCode = 31 * hashCode + Double.hashCode(current.columns.latitude(i));
+			hashCode = 31 * hashCode + Double.hashCode(current.columns.longitude(i));
+			hashCode = 31 * hashCode + Long.hashCode(current.columns.time(i));
+		}
+		return hashCode;
+	}
+
+	private Snapshot emptySnapshot() {
+		return new Snapshot(storage.allocate(0), 0, null, null, 0);
+	}
+
+	private static VisitedLocation visitedLocationAt(Snapshot current, int index) {
+		if (index == current.size - 1) {
+			return current.last;
+		}
+		HistoryColumns columns = current.columns;
+		return new VisitedLocation(current.userId, new Location(columns.latitude(index), columns.longitude(index)),
+				new Date(columns.time(index)));
+	}
+
+	// Grow by half when full, the previous columns stay valid for the readers of the previous snapshot
+	private static HistoryColumns ensureCapacity(Snapshot current, int added) {
+		int required = current.size + added;
+		int capacity = current.columns.capacity();
+		if (required <= capacity) {
+			return current.columns;
+		}
+		return current.columns.copyOf(Math.max(required, Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1))),
+				current.size);
+	}
+}
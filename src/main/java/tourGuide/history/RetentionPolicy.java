@@ -0,0 +1,99 @@
+package tourGuide.history;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import tourGuide.util.GeohashUtil;
+
+/**
+ * Rules deciding which locations of a history are kept by the compaction
+ *
+ * - maximum count : the oldest locations beyond the count are dropped
+ * - maximum age : locations visited before the age are dropped
+ * - downsampling : locations older than a delay are thinned, only the first location of a run of consecutive
+ *   locations falling in the same time window and / or the same geohash cell is kept
+ *
+ * A zero value disables a rule. Whatever the rules, the newest location is always kept.
+ */
+@Getter
+public class RetentionPolicy {
+
+	// Retention without any rule, histories are never compacted
+	public static final RetentionPolicy UNBOUNDED = new RetentionPolicy(0, 0, 0, 0, 0);
+
+	private final int maxCount;
+
+	private final long maxAgeMillis;
+
+	private final long downsamplingAfterMillis;
+
+	private final long downsamplingIntervalMillis;
+
+	private final int downsamplingGeohashPrecision;
+
+	public RetentionPolicy(int maxCount, long maxAgeMinutes, long downsamplingAfterMinutes,
+			long downsamplingIntervalMinutes, int downsamplingGeohashPrecision) {
+		if (maxCount < 0 || maxAgeMinutes < 0 || downsamplingAfterMinutes < 0 || downsamplingIntervalMinutes < 0) {
+			throw new IllegalArgumentException("Retention counts and durations cannot be negative");
+		}
+		if (downsamplingGeohashPrecision < 0 || downsamplingGeohashPrecision > GeohashUtil.MAX_PRECISION) {
+			throw new IllegalArgumentException("The geohash precision must be between 0 and " + GeohashUtil.MAX_PRECISION);
+		}
+		this.maxCount = maxCount;
+		this.maxAgeMillis = TimeUnit.MINUTES.toMillis(maxAgeMinutes);
+		this.downsamplingAfterMillis = TimeUnit.MINUTES.toMillis(downsamplingAfterMinutes);
+		this.downsamplingIntervalMillis = TimeUnit.MINUTES.toMillis(downsamplingIntervalMinutes);
+		this.downsamplingGeohashPrecision = downsamplingGeohashPrecision;
+	}
+
+	public boolean isDownsampling() {
+		return downsamplingIntervalMillis > 0 || downsamplingGeohashPrecision > 0;
+	}
+
+	public boolean isBounded() {
+		return maxCount > 0 || maxAgeMillis > 0 || isDownsampling();
+	}
+
+	/**
+	 * Check if a location is old enough to be downsampled
+	 *
+	 * @param time									Long : The visit time of the location, in milliseconds since epoch
+	 * @param now									Long : The current time, in milliseconds since epoch
+	 * @return										True if the location can be merged with its neighbours
+	 */
+	boolean isDownsampled(long time, long now) {
+		return isDownsampling() && now - time > downsamplingAfterMillis;
+	}
+
+	/**
+	 * Check if a location is older than the maximum age
+	 *
+	 * @param time									Long : The visit time of the location, in milliseconds since epoch
+	 * @param now									Long : The current time, in milliseconds since epoch
+	 * @return										True if the location has expired
+	 */
+	boolean isExpired(long time, long now) {
+		return maxAgeMillis > 0 && now - time > maxAgeMillis;
+	}
+
+	/**
+	 * Get the downsampling time window of a location
+	 *
+	 * @param time									Long : The visit time of the location, in milliseconds since epoch
+	 * @return										Long : The index of the time window, 0 if windows are disabled
+	 */
+	long timeWindow(long time) {
+		return downsamplingIntervalMillis > 0 ? Math.floorDiv(time, downsamplingIntervalMillis) : 0;
+	}
+
+	/**
+	 * Get the downsampling geohash cell of a location
+	 *
+	 * @param latitude								Double : The latitude of the location
+	 * @param longitude								Double : The longitude of the location
+	 * @return										Long : The geohash cell, 0 if cells are disabled
+	 */
+	long cell(double latitude, double longitude) {
+		return downsamplingGeohashPrecision > 0 ? GeohashUtil.cell(latitude, longitude, downsamplingGeohashPrecision) : 0;
+	}
+}
@@ -0,0 +1,120 @@
+package tourGuide.metrics;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.NoArgsConstructor;
+
+/**
+ * Names and builders of the TourGuide meters
+ *
+ * Every meter is published on the actuator "metrics" and "prometheus" endpoints.
+ * Latency timers publish a percentile histogram, so quantiles can be aggregated and alerted on.
+ */
+@NoArgsConstructor
+public class TourGuideMetrics {
+
+	public static final String UPSTREAM_CALLS = "upstream.calls";
+
+	public static final String UPSTREAM_CALLS_COALESCED = "upstream.calls.coalesced";
+
+	public static final String TRACKER_CYCLE_DURATION = "tracker.cycle.duration";
+
+	public static final String TRACKER_CYCLE_THROUGHPUT = "tracker.cycle.throughput";
+
+	public static final String TRACKER_TRACKINGS = "tracker.trackings";
+
+	public static final String TRACKER_LOCATION_STALENESS = "tracker.location.staleness";
+
+	public static final String TRACKER_DECISIONS = "tracker.decisions";
+
+	public static final String HISTORY_COMPACTION_DROPPED = "history.compaction.dropped";
+
+	public static final String HISTORY_COMPACTION_DURATION = "history.compaction.duration";
+
+	public static final String EVENT_LOG_COMMIT_DURATION = "eventlog.commit.duration";
+
+	public static final String EVENT_LOG_COMMIT_SIZE = "eventlog.commit.size";
+
+	public static final String ENDPOINT_FALLBACKS = "endpoint.fallbacks";
+
+	public static final String GPS_UTIL = "gpsUtil";
+
+	public static final String REWARD_CENTRAL = "rewardCentral";
+
+	public static final String TRIP_PRICER = "tripPricer";
+
+	/**
+	 * Get the timer measuring the latency of each call to an upstream service
+	 *
+	 * @param registry								MeterRegistry : The registry the timer is published on
+	 * @param upstream								String : The name of the upstream service, used as "upstream" tag
+	 * @return										Timer : The latency timer of the upstream service
+	 */
+	public static Timer upstreamTimer(MeterRegistry registry, String upstream) {
+		return Timer.builder(UPSTREAM_CALLS)
+				.description("Latency of the calls to an upstream service")
+				.tag("upstream", upstream)
+				.publishPercentileHistogram()
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(registry);
+	}
+
+	/**
+	 * Publish the pool size, active threads, queue depth and completed tasks of an executor
+	 *
+	 * @param registry								MeterRegistry : The registry the gauges are published on
+	 * @param executor								ExecutorService : The executor to monitor
+	 * @param name									String : The name of the executor, used as "name" tag
+	 */
+	public static void monitorExecutor(MeterRegistry registry, ExecutorService executor, String name) {
+		new ExecutorServiceMetrics(executor, name, Tags.empty()).bindTo(registry);
+	}
+
+	/**
+	 * Publish the size, hits, misses, loads and evictions of a cache
+	 * The meters of a previous cache of the same name are removed first : the registry keeps the first meter
+	 * registered with an id, so a rebuilt cache would otherwise be published with the statistics of the discarded one
+	 *
+	 * @param registry								MeterRegistry : The registry the meters are published on
+	 * @param cache									Cache : The cache to monitor
+	 * @param name									String : The name of the cache, used as "cache" tag
+	 * @return										List<Meter> : The meters of the cache, to give to removeMeters()
+	 * 												when the cache is discarded
+	 */
+	public static List<Meter> monitorCache(MeterRegistry registry, Cache<?, ?> cache, String name) {
+		removeMeters(registry, cacheMeters(registry, name));
+		CaffeineCacheMetrics.monitor(registry, cache, name);
+		return cacheMeters(registry, name);
+	}
+
+	/**
+	 * Remove meters from a registry, leaving alone the meters registered since with the same ids
+	 *
+	 * @param registry								MeterRegistry : The registry the meters are published on
+	 * @param meters								List<Meter> : The meters to remove
+	 */
+	public static void removeMeters(MeterRegistry registry, List<Meter> meters) {
+		List<Meter> registered = registry.getMeters();
+		for (Meter meter : meters) {
+			if (registered.stream().anyMatch(registeredMeter -> registeredMeter == meter)) {
+				registry.remove(meter);
+			}
+		}
+	}
+
+	private static List<Meter> cacheMeters(MeterRegistry registry, String name) {
+		return registry.getMeters().stream()
+				.filter(meter -> name.equals(meter.getId().getTag("cache")))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,128 @@
+package tourGuide.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import tourGuide.domain.User;
+import tourGuide.tracker.TrackingPriority;
+
+/**
+ * Meters of the tracker
+ *
+ * - tracker.cycle.duration : time taken to track every user once (full sweep or one polling interval)
+ * - tracker.cycle.throughput : users tracked per second during the last cycle
+ * - tracker.trackings : trackings completed, tagged with their outcome
+ * - tracker.location.staleness : age of a user location when the user is tracked again
+ * - tracker.decisions : due users tracked or skipped, tagged with their priority class
+ */
+public class TrackerMetrics {
+
+	private final Timer cycleDuration;
+
+	private final Counter successfulTrackings;
+
+	private final Counter failedTrackings;
+
+	private final Timer locationStaleness;
+
+	private final Map<TrackingPriority, Counter> trackedByPriority = new EnumMap<>(TrackingPriority.class);
+
+	private final Map<TrackingPriority, Counter> skippedByPriority = new EnumMap<>(TrackingPriority.class);
+
+	private volatile double lastCycleThroughput;
+
+	public TrackerMetrics(MeterRegistry registry) {
+		this.cycleDuration = Timer.builder(TourGuideMetrics.TRACKER_CYCLE_DURATION)
+				.description("Time taken to track every user once")
+				.register(registry);
+		this.successfulTrackings = Counter.builder(TourGuideMetrics.TRACKER_TRACKINGS)
+				.description("User trackings completed")
+				.tag("outcome", "success")
+				.register(registry);
+		this.failedTrackings = Counter.builder(TourGuideMetrics.TRACKER_TRACKINGS)
+				.description("User trackings completed")
+				.tag("outcome", "failure")
+				.register(registry);
+		this.locationStaleness = Timer.builder(TourGuideMetrics.TRACKER_LOCATION_STALENESS)
+				.description("Age of a user location when the user is tracked again")
+				.publishPercentileHistogram()
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(registry);
+		for (TrackingPriority priority : TrackingPriority.values()) {
+			trackedByPriority.put(priority, decisionCounter(registry, priority, "tracked"));
+			skippedByPriority.put(priority, decisionCounter(registry, priority, "skipped"));
+		}
+		Gauge.builder(TourGuideMetrics.TRACKER_CYCLE_THROUGHPUT, this, TrackerMetrics::getLastCycleThroughput)
+				.description("Users tracked per second during the last cycle")
+				.baseUnit("users/s")
+				.register(registry);
+	}
+
+	private static Counter decisionCounter(MeterRegistry registry, TrackingPriority priority, String decision) {
+		return Counter.builder(TourGuideMetrics.TRACKER_DECISIONS)
+				.description("Due users tracked or skipped by the tracking policy")
+				.tag("priority", priority.name().toLowerCase())
+				.tag("decision", decision)
+				.register(registry);
+	}
+
+	/**
+	 * Record a tracking cycle
+	 *
+	 * @param trackedUsers							Integer : The number of users tracked during the cycle
+	 * @param durationNanos							Long : The duration of the cycle in nanoseconds
+	 */
+	public void recordCycle(int trackedUsers, long durationNanos) {
+		cycleDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+		lastCycleThroughput = durationNanos > 0 ? trackedUsers * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos
+				: 0;
+	}
+
+	/**
+	 * Record the outcome of a user tracking
+	 *
+	 * @param success								Boolean : True if the location was fetched and the rewards calculated
+	 */
+	public void recordTracking(boolean success) {
+		(success ? successfulTrackings : failedTrackings).increment();
+	}
+
+	/**
+	 * Record the decision of the tracking policy for a due user
+	 *
+	 * @param priority								TrackingPriority : The priority class of the user
+	 * @param skipped								Boolean : True if the user was not tracked because of its backoff
+	 */
+	public void recordPriority(TrackingPriority priority, boolean skipped) {
+		(skipped ? skippedByPriority : trackedByPriority).get(priority).increment();
+	}
+
+	/**
+	 * Record the age of the last known location of a user, nothing is recorded for users without location
+	 *
+	 * @param user									User : The user about to be tracked
+	 */
+	public void recordStaleness(User user) {
+		if (user.getVisitedLocations().isEmpty()) {
+			return;
+		}
+		VisitedLocation lastLocation = user.getLastVisitedLocation();
+		long age = System.currentTimeMillis() - lastLocation.timeVisited.getTime();
+		locationStaleness.record(Math.max(0, age), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Get the number of users tracked per second during the last cycle
+	 *
+	 * @return										Double : The throughput of the last cycle, 0 before the first cycle
+	 */
+	public double getLastCycleThroughput() {
+		return lastCycleThroughput;
+	}
+}
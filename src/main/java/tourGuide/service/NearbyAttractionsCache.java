@@ -0,0 +1,212 @@
+package tourGuide.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.util.GeohashUtil;
+
+/**
+ * Cache of the nearby attractions of the users, with their reward points
+ *
+ * There is one entry per user, computed for a geohash cell of the user location, a number of attractions,
+ * an attraction proximity and a catalog version : a user staying in the same cell gets the same attractions without
+ * new nearest neighbour searches or RewardCentral calls. A request with other parameters replaces the entry,
+ * a tracked location in another cell removes it (see invalidateIfMoved()), and every entry is dropped as soon as a
+ * newer catalog version is seen. Remaining entries expire after a fixed time and are evicted when the cache is full.
+ *
+ * Only what does not depend on the exact location is cached : callers compute the distances from the current
+ * location of the user. Loading is single-flight and failed loads are not cached.
+ * Hits, misses and evictions are published as "nearbyAttractions" cache metrics, which read the newest cache built
+ * and are removed by close().
+ */
+public class NearbyAttractionsCache {
+
+	public static final String CACHE_NAME = "nearbyAttractions";
+
+	private final int geohashPrecision;
+
+	// Hits and misses are recorded here, the entries being checked against the request before being used
+	private final ConcurrentStatsCounter statsCounter = new ConcurrentStatsCounter();
+
+	private final Cache<UUID, CachedAttractions> cache;
+
+	// Newest catalog version seen, the entries are dropped when it changes
+	private final AtomicLong catalogVersion = new AtomicLong();
+
+	private final MeterRegistry registry;
+
+	// Cache meters registered by this cache
+	private final List<Meter> meters;
+
+	public NearbyAttractionsCache(int geohashPrecision, MeterRegistry registry, long maximumSize,
+			long expirationMinutes) {
+		if (geohashPrecision < 1 || geohashPrecision > GeohashUtil.MAX_PRECISION) {
+			throw new IllegalArgumentException(
+					"The geohash precision must be between 1 and " + GeohashUtil.MAX_PRECISION);
+		}
+		this.geohashPrecision = geohashPrecision;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expirationMinutes, TimeUnit.MINUTES)
+				.recordStats(() -> statsCounter)
+				.build();
+		this.registry = registry;
+		this.meters = TourGuideMetrics.monitorCache(registry, cache, CACHE_NAME);
+	}
+
+	/**
+	 * Get the nearby attractions of a user, calling the loader only on a cache miss
+	 *
+	 * @param userId								UUID : The id of the user
+	 * @param location								Location : The current location of the user
+	 * @param count									Integer : The number of attractions
+	 * @param maxDistance							Double : The attraction proximity of the user, in miles
+	 * @param catalogVersion						Long : The version of the catalog snapshot used by the loader
+	 * @param loader								Supplier : Computes the attractions on a cache miss
+	 * @return										CompletableFuture : Completes with the cached or computed attractions
+	 */
+	public CompletableFuture<List<RewardedAttraction>> get(UUID userId, Location location, int count,
+			double maxDistance, long catalogVersion, Supplier<CompletableFuture<List<RewardedAttraction>>> loader) {
+		long previousVersion = this.catalogVersion.getAndAccumulate(catalogVersion, Math::max);
+		if (catalogVersion > previousVersion && previousVersion != 0) {
+			invalidateAll();
+		}
+		long cell = cell(location);
+
+		CachedAttractions current = cache.asMap().get(userId);
+		if (current != null && current.matches(cell, count, maxDistance, catalogVersion)) {
+			statsCounter.recordHits(1);
+			return current.attractions;
+		}
+
+		// Concurrent misses of the same user share the entry created first
+		CachedAttractions created = new CachedAttractions(cell, count, maxDistance, catalogVersion);
+		CachedAttractions cached = cache.asMap().compute(userId, (id, entry) -> {
+			if (entry != null && entry.matches(cell, count, maxDistance, catalogVersion)) {
+				return entry;
+			}
+			return created;
+		});
+		if (cached != created) {
+			statsCounter.recordHits(1);
+			return cached.attractions;
+		}
+		statsCounter.recordMisses(1);
+		load(userId, created, loader);
+		return created.attractions;
+	}
+
+	private void load(UUID userId, CachedAttractions entry,
+			Supplier<CompletableFuture<List<RewardedAttraction>>> loader) {
+		long start = System.nanoTime();
+		CompletableFuture<List<RewardedAttraction>> loading;
+		try {
+			loading = loader.get();
+		} catch (RuntimeException e) {
+			loading = CompletableFuture.failedFuture(e);
+		}
+		loading.whenComplete((attractions, e) -> {
+			if (e != null) {
+				statsCounter.recordLoadFailure(System.nanoTime() - start);
+				cache.asMap().remove(userId, entry);
+				entry.attractions.completeExceptionally(e);
+			} else {
+				statsCounter.recordLoadSuccess(System.nanoTime() - start);
+				entry.attractions.complete(attractions);
+			}
+		});
+	}
+
+	/**
+	 * Remove the entry of a user when a new location of the user is in another cell than the cached one
+	 *
+	 * @param userId								UUID : The id of the user
+	 * @param location								Location : The new location of the user
+	 */
+	public void invalidateIfMoved(UUID userId, Location location) {
+		long cell = cell(location);
+		cache.asMap().computeIfPresent(userId, (id, entry) -> entry.cell == cell ? entry : null);
+	}
+
+	/**
+	 * Get hit, miss, load and eviction counters of the cache
+	 *
+	 * @return										CacheStats : A snapshot of the cache statistics
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	/**
+	 * Get the number of cached entries
+	 *
+	 * @return										Long : The estimated number of entries
+	 */
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	/**
+	 * Remove every cached entry
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Remove the cache metrics of this cache, unless a newer cache of the same name replaced them
+	 */
+	public void close() {
+		TourGuideMetrics.removeMeters(registry, meters);
+	}
+
+	private long cell(Location location) {
+		return GeohashUtil.cell(location.latitude, location.longitude, geohashPrecision);
+	}
+
+	/**
+	 * A nearby attraction with the reward points it gives to the user
+	 */
+	@Value
+	public static class RewardedAttraction {
+		private Attraction attraction;
+		private int rewardPoints;
+	}
+
+	// Attractions of a user and the request parameters they were computed for
+	private static final class CachedAttractions {
+
+		private final long cell;
+		private final int count;
+		private final double maxDistance;
+		private final long catalogVersion;
+		private final CompletableFuture<List<RewardedAttraction>> attractions = new CompletableFuture<>();
+
+		private CachedAttractions(long cell, int count, double maxDistance, long catalogVersion) {
+			this.cell = cell;
+			this.count = count;
+			this.maxDistance = maxDistance;
+			this.catalogVersion = catalogVersion;
+		}
+
+		private boolean matches(long cell, int count, double maxDistance, long catalogVersion) {
+			return this.cell == cell && this.count == count && this.maxDistance == maxDistance
+					&& this.catalogVersion == catalogVersion;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package tourGuide.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import gpsUtil.location.Attraction;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import rewardCentral.RewardCentral;
+import tourGuide.concurrency.AdaptiveConcurrencyLimiter;
+import tourGuide.metrics.TourGuideMetrics;
+
+/**
+ * Memoizing cache in front of RewardCentral.getAttractionRewardPoints()
+ *
+ * Entries are keyed by (attraction name, userId) : gpsUtil gives new attraction ids on each call, so an id key would
+ * miss every entry after a catalog refresh. Entries expire after a fixed time and are evicted when the cache is full.
+ * Loading is single-flight : concurrent callers asking for the same key wait for one upstream call.
+ * Upstream calls can go through an adaptive concurrency limiter, calls made for a waiting request get a slot first.
+ * Loads run on the caller thread, or on a given executor : a virtual thread blocked inside the cache
+ * would pin its carrier thread, so virtual threads load on a new virtual thread and only wait for the result.
+ * Hits, misses and evictions are published as "rewardPoints" cache metrics, upstream calls as "rewardCentral" latency.
+ * The cache metrics read the newest cache built, and are removed by close().
+ */
+public class RewardPointsCache {
+
+	public static final String CACHE_NAME = "rewardPoints";
+
+	private final RewardCentral rewardCentral;
+
+	// Limits the number of RewardCentral calls in flight, null when calls are not limited
+	private final AdaptiveConcurrencyLimiter limiter;
+
+	private final Cache<RewardPointsKey, Integer> cache;
+
+	private final MeterRegistry registry;
+
+	private final Timer upstreamTimer;
+
+	// Cache meters registered by this cache
+	private final List<Meter> meters;
+
+	public RewardPointsCache(RewardCentral rewardCentral, MeterRegistry registry, long maximumSize,
+			long expirationMinutes) {
+		this(rewardCentral, null, registry, maximumSize, expirationMinutes);
+	}
+
+	public RewardPointsCache(RewardCentral rewardCentral, AdaptiveConcurrencyLimiter limiter, MeterRegistry registry,
+			long maximumSize, long expirationMinutes) {
+		this(rewardCentral, limiter, Runnable::run, registry, maximumSize, expirationMinutes);
+	}
+
+	public RewardPointsCache(RewardCentral rewardCentral, AdaptiveConcurrencyLimiter limiter, Executor loadExecutor,
+			MeterRegistry registry, long maximumSize, long expirationMinutes) {
+		this.rewardCentral = rewardCentral;
+		this.limiter = limiter;
+		this.registry = registry;
+		this.upstreamTimer = TourGuideMetrics.upstreamTimer(registry, TourGuideMetrics.REWARD_CENTRAL);
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expirationMinutes, TimeUnit.MINUTES)
+				.executor(loadExecutor)
+				.recordStats()
+				.<RewardPointsKey, Integer>buildAsync()
+				.synchronous();
+		this.meters = TourGuideMetrics.monitorCache(registry, cache, CACHE_NAME);
+	}
+
+	private Integer loadRewardPoints(UUID attractionId, UUID userId, boolean priority) {
+		if (limiter == null) {
+			return callRewardCentral(attractionId, userId);
+		}
+		return limiter.call(() -> callRewardCentral(attractionId, userId), priority);
+	}
+
+	private Integer callRewardCentral(UUID attractionId, UUID userId) {
+		return upstreamTimer.record(() -> rewardCentral.getAttractionRewardPoints(attractionId, userId));
+	}
+
+	/**
+	 * Get the reward points of an attraction for a user, calling RewardCentral only on a cache miss
+	 * RewardCentral is called with the current id of the attraction, the entry is shared by every id of the attraction
+	 *
+	 * @param attraction							Attraction : The attraction
+	 * @param userId								UUID : The id of the user
+	 * @return										Integer : The number of points awarded
+	 */
+	public int getRewardPoints(Attraction attraction, UUID userId) {
+		return getRewardPoints(attraction, userId, false);
+	}
+
+	/**
+	 * Get the reward points of an attraction for a user, calling RewardCentral only on a cache miss
+	 * A priority call gets a slot of the concurrency limiter before the waiting calls without priority
+	 *
+	 * @param attraction							Attraction : The attraction
+	 * @param userId								UUID : The id of the user
+	 * @param priority								Boolean : True when a request is waiting for the points
+	 * @return										Integer : The number of points awarded
+	 */
+	public int getRewardPoints(Attraction attraction, UUID userId, boolean priority) {
+		return cache.get(new RewardPointsKey(attraction.attractionName, userId),
+				key -> loadRewardPoints(attraction.attractionId, userId, priority));
+	}
+
+	/**
+	 * Get hit, miss, load and eviction counters of the cache
+	 *
+	 * @return										CacheStats : A snapshot of the cache statistics
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	/**
+	 * Get the number of calls made to RewardCentral since the cache was built
+	 *
+	 * @return										Long : The number of upstream calls
+	 */
+	public long getUpstreamCallCount() {
+		return cache.stats().loadCount();
+	}
+
+	/**
+	 * Run the pending eviction work right away, so statistics reflect every eviction
+	 */
+	public void cleanUp() {
+		cache.cleanUp();
+	}
+
+	/**
+	 * Remove every cached entry
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Remove the cache metrics of this cache, unless a newer cache of the same name replaced them
+	 */
+	public void close() {
+		TourGuideMetrics.removeMeters(registry, meters);
+	}
+
+	@Value
+	private static class RewardPointsKey {
+		private String attractionName;
+		private UUID userId;
+	}
+}
@@ -1,30 +1,67 @@
 package tourGuide.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import gpsUtil.GpsUtil;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import rewardCentral.RewardCentral;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.AttractionSnapshot;
+import tourGuide.catalog.DistanceQuery;
+import tourGuide.concurrency.AdaptiveConcurrencyLimiter;
+import tourGuide.concurrency.ConcurrencyUtil;
+import tourGuide.concurrency.ExecutionMode;
+import tourGuide.domain.RewardsBatchStatistics;
 import tourGuide.domain.User;
 import tourGuide.domain.UserReward;
+import tourGuide.eventlog.EventLog;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.util.AttractionSpatialIndex;
 
 @Slf4j
 @Service
 public class RewardsService {
 
-	private GpsUtil gpsUtil = new GpsUtil();
+	@Autowired
+	private AttractionCatalog attractionCatalog;
+
+	@Autowired
+	private EventLog eventLog = EventLog.DISABLED;
+
+	@Autowired
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
 
 	private RewardCentral rewardsCentral = new RewardCentral();
 
+	@Value("${rewardCentral.cache.maximumSize}")
+	private long rewardPointsCacheMaximumSize = 100000;
+
+	@Value("${rewardCentral.cache.expirationMinutes}")
+	private long rewardPointsCacheExpirationMinutes = 60;
+
+	// Reward points cache, built on first use once the size and expiration properties are injected
+	private volatile RewardPointsCache rewardPointsCache;
+
 	private int defaultProximityBuffer = 10;
 
 	@Setter
@@ -32,42 +69,138 @@ public class RewardsService {
 
 	private int attractionProximityRange = 200;
 
-	// Number of threads to run the rewards calculation
-	private ExecutorService executorService = Executors.newFixedThreadPool(100);
+	@Value("${rewardCentral.concurrency.minLimit}")
+	private int rewardCentralMinLimit = 10;
+
+	@Value("${rewardCentral.concurrency.maxLimit}")
+	private int rewardCentralMaxLimit = 200;
+
+	// Adapts the number of RewardCentral calls in flight to the observed latency
+	private AdaptiveConcurrencyLimiter rewardCentralLimiter = new AdaptiveConcurrencyLimiter("rewardCentral",
+			rewardCentralMinLimit, rewardCentralMaxLimit);
+
+	@Value("${execution.mode}")
+	private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+
+	// Threads running the rewards calculation, as many as the concurrency ceiling or one virtual thread per task
+	private ExecutorService executorService = ConcurrencyUtil.newExecutor(ExecutionMode.PLATFORM, "rewards",
+			rewardCentralMaxLimit);
+
+	@Value("${rewardCentral.lookup.threads}")
+	private int rewardLookupThreads = 20;
+
+	// Threads fetching the points requested by an endpoint, so requests do not queue behind rewards calculations
+	private ExecutorService rewardLookupExecutorService = ConcurrencyUtil.newExecutor(ExecutionMode.PLATFORM,
+			"rewardLookups", rewardLookupThreads);
+
+	/**
+	 * Apply the configured concurrency limits and execution mode, then publish the limits
+	 * In platform mode, the queue depth and active threads of the rewards and reward lookups executors are published
+	 * as "rewards" and "rewardLookups" executor metrics
+	 */
+	@PostConstruct
+	public void initializeConcurrencyLimits() {
+		rewardCentralLimiter.setLimits(rewardCentralMinLimit, rewardCentralMaxLimit);
+		executorService = ConcurrencyUtil.configure(executorService, executionMode, "rewards", rewardCentralMaxLimit);
+		rewardLookupExecutorService = ConcurrencyUtil.configure(rewardLookupExecutorService, executionMode,
+				"rewardLookups", rewardLookupThreads);
+		rewardCentralLimiter.bindTo(meterRegistry);
+		TourGuideMetrics.monitorExecutor(meterRegistry, executorService, "rewards");
+		TourGuideMetrics.monitorExecutor(meterRegistry, rewardLookupExecutorService, "rewardLookups");
+	}
+
+	/**
+	 * Remove the metrics of the reward points cache, which would otherwise keep the discarded cache reachable
+	 */
+	@PreDestroy
+	public void closeRewardPointsCache() {
+		RewardPointsCache cache = rewardPointsCache;
+		if (cache != null) {
+			cache.close();
+		}
+	}
 
 	/**
 	 * Calculate rewards for a given user, only if the user is near an unvisited attraction
-	 * The method doesn't return anything, but add the rewards to the user
-	 * It uses CompletableFuture runAsync() method to make non-blocking calls when executing the tracker
+	 * The rewards are added to the user by a task running on the rewards executor
+	 * The returned future completes once every new location has been checked
 	 *
-	 * @param user									User : The user we want to calculate the rewards of
+	 * Only the locations added since the previous successful calculation are checked (see User rewards watermark)
 	 *
+	 * @param user									User : The user we want to calculate the rewards of
+	 * @return										CompletableFuture<Integer> : The number of rewards granted
 	 */
-	public void calculateRewards(User user) {
+	public CompletableFuture<Integer> calculateRewards(User user) {
 
-		List<VisitedLocation> userLocations = user.getVisitedLocations();
-		List<Attraction> attractions = gpsUtil.getAttractions();
+		// The watermark only moves once the locations are checked, a failed calculation leaves them unprocessed
+		int processedUntil = user.getVisitedLocations().getAppendedCount();
+		List<VisitedLocation> userLocations = user.getUnprocessedLocations(processedUntil);
+		if (userLocations.isEmpty()) {
+			return CompletableFuture.completedFuture(0);
+		}
 
-		CompletableFuture.runAsync(() -> {
+		return CompletableFuture.supplyAsync(() -> {
 
+			int rewardsGranted = 0;
 			for (VisitedLocation visitedLocation : userLocations) {
-				for (Attraction attraction : attractions) {
-
-					// Using parallel streams to count faster on the filter method
-					if (user.getUserRewards().stream()
-							.filter(r -> r.getAttraction().attractionName.equals(attraction.attractionName))
-							.count() == 0) {
-						if (nearAttraction(visitedLocation, attraction)) {
-							log.debug("[Rewards] Rewards calculcated for user {}", user.getUserName());
-							user.addUserReward(
-									new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user)));
-						}
+				// Only the attractions near the location are checked, thanks to the spatial index
+				for (Attraction attraction : getNearbyAttractions(visitedLocation)) {
+
+					// Constant time lookup in the user's rewarded attractions
+					if (user.hasRewardFor(attraction)) {
+						continue;
+					}
+					UserReward userReward = new UserReward(visitedLocation, attraction, getRewardPoints(attraction, user));
+					if (user.addUserReward(userReward)) {
+						eventLog.appendUserReward(user.getUserId(), userReward);
+						log.debug("[Rewards] Rewards calculcated for user {}", user.getUserName());
+						rewardsGranted++;
 					}
 				}
 			}
+			user.advanceRewardsWatermark(processedUntil);
+			return rewardsGranted;
 		}, executorService);
 	}
 
+	/**
+	 * Calculate rewards for a list of users
+	 * The returned future completes when every user has been processed, and carries the batch statistics
+	 *
+	 * Upstream calls are the RewardCentral calls made while the batch was running,
+	 * they may include calls made by other callers at the same time
+	 *
+	 * @param users									List<User> : The users we want to calculate the rewards of
+	 * @return										CompletableFuture<RewardsBatchStatistics> : Statistics of the batch
+	 */
+	public CompletableFuture<RewardsBatchStatistics> calculateRewardsBatch(List<User> users) {
+
+		long startTime = System.nanoTime();
+		long upstreamCallsBefore = getRewardPointsCache().getUpstreamCallCount();
+
+		List<CompletableFuture<Integer>> userFutures = users.stream().map(this::calculateRewards)
+				.collect(Collectors.toList());
+
+		return CompletableFuture.allOf(userFutures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+			int rewardsGranted = userFutures.stream().mapToInt(CompletableFuture::join).sum();
+			long upstreamCalls = getRewardPointsCache().getUpstreamCallCount() - upstreamCallsBefore;
+			long wallTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+			return new RewardsBatchStatistics(users.size(), rewardsGranted, upstreamCalls, wallTime);
+		});
+	}
+
+	/**
+	 * Calculate rewards for a given user over its whole location history
+	 * Must be called when the proximity buffer changes, since already checked locations may now be near an attraction
+	 *
+	 * @param user									User : The user we want to calculate the rewards of
+	 * @return										CompletableFuture<Integer> : The number of rewards granted
+	 */
+	public CompletableFuture<Integer> recalculateRewards(User user) {
+		user.resetRewardsWatermark();
+		return calculateRewards(user);
+	}
+
 	/**
 	 * Get rewards list for a given user
 	 *
@@ -78,6 +211,41 @@ public class RewardsService {
 		return user.getUserRewards();
 	}
 
+	/**
+	 * Get the attractions within the attraction proximity range of a location
+	 * Candidates are fetched from the spatial index, then checked with the distance kernel (see DistanceQuery)
+	 *
+	 * @param location								Location : The location we want to find attractions around
+	 * @return										List<Attraction> : The attractions in range of the location
+	 */
+	public List<Attraction> getAttractionsWithinProximity(Location location) {
+		return getAttractionsWithin(location, attractionProximityRange);
+	}
+
+	/**
+	 * Get the attractions within the proximity buffer of a visited location
+	 * Candidates are fetched from the spatial index, then checked with the distance kernel (see DistanceQuery)
+	 *
+	 * @param visitedLocation						VisitedLocation : The location of a user
+	 * @return										List<Attraction> : The attractions near the visited location
+	 */
+	public List<Attraction> getNearbyAttractions(VisitedLocation visitedLocation) {
+		return getAttractionsWithin(visitedLocation.location, proximityBuffer);
+	}
+
+	// Same decisions as comparing getDistance() with the range, without computing the trigonometry of attractions
+	private List<Attraction> getAttractionsWithin(Location location, double range) {
+		AttractionSnapshot snapshot = attractionCatalog.getSnapshot();
+		DistanceQuery query = new DistanceQuery(location, range);
+		List<Attraction> attractions = new ArrayList<>();
+		for (Attraction candidate : snapshot.getIndex().getCandidates(location, range)) {
+			if (query.isWithin(snapshot.getCatalogAttraction(candidate))) {
+				attractions.add(candidate);
+			}
+		}
+		return attractions;
+	}
+
 	/**
 	 * Check if a location has proximity with a given attraction
 	 *
@@ -103,19 +271,76 @@ public class RewardsService {
 	/**
 	 * Calculate the number of rewards points for a given attraction and a given user.
 	 * Points may vary between users because of their respective locations
+	 * Results are memoized by the reward points cache, so RewardCentral is only called on a cache miss
 	 *
 	 * @param attraction							Attraction : The given attraction
 	 * @param user									User : the given user
 	 * @return										Integer : the total number of points awarded
 	 */
 	public int getRewardPoints(Attraction attraction, User user) {
-		return rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId());
+		return getRewardPointsCache().getRewardPoints(attraction, user.getUserId());
+	}
+
+	/**
+	 * Calculate the number of rewards points for a given attraction and a given user, for a waiting request
+	 * It runs on the reward lookups executor and its RewardCentral call gets a slot of the concurrency limiter
+	 * before the rewards calculations, so a batch of calculations does not delay the request.
+	 * Several attractions can be requested at once, their RewardCentral calls then run concurrently
+	 *
+	 * @param attraction							Attraction : The given attraction
+	 * @param user									User : the given user
+	 * @return										CompletableFuture<Integer> : Completes with the number of points awarded
+	 */
+	public CompletableFuture<Integer> getRewardPointsAsync(Attraction attraction, User user) {
+		return CompletableFuture.supplyAsync(
+				() -> getRewardPointsCache().getRewardPoints(attraction, user.getUserId(), true),
+				rewardLookupExecutorService);
+	}
+
+	/**
+	 * Get hit, miss and eviction statistics of the reward points cache
+	 *
+	 * @return										CacheStats : A snapshot of the cache statistics
+	 */
+	public CacheStats getRewardPointsCacheStats() {
+		return getRewardPointsCache().getStats();
 	}
 
 	public void setDefaultProximityBuffer() {
 		proximityBuffer = defaultProximityBuffer;
 	}
 
+	/**
+	 * Get the attraction spatial index of the current catalog snapshot
+	 *
+	 * @return										AttractionSpatialIndex : The index over every attraction
+	 */
+	public AttractionSpatialIndex getAttractionIndex() {
+		return attractionCatalog.getSnapshot().getIndex();
+	}
+
+	/**
+	 * Get the reward points cache, building it the first time it is requested
+	 *
+	 * @return										RewardPointsCache : The cache in front of RewardCentral
+	 */
+	private RewardPointsCache getRewardPointsCache() {
+		RewardPointsCache cache = rewardPointsCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = rewardPointsCache;
+				if (cache == null) {
+					// Virtual threads must not block inside the cache, they load on another virtual thread
+					Executor loadExecutor = executionMode == ExecutionMode.VIRTUAL ? executorService : Runnable::run;
+					cache = new RewardPointsCache(rewardsCentral, rewardCentralLimiter, loadExecutor, meterRegistry,
+							rewardPointsCacheMaximumSize, rewardPointsCacheExpirationMinutes);
+					rewardPointsCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
 	/**
 	 * Calculates the distance in miles between two locations
 	 *
@@ -124,20 +349,7 @@ public class RewardsService {
 	 * @return										Double : The distance in miles between the two locations
 	 */
 	public double getDistance(Location loc1, Location loc2) {
-
-		final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
-
-		double lat1 = Math.toRadians(loc1.latitude);
-		double lon1 = Math.toRadians(loc1.longitude);
-		double lat2 = Math.toRadians(loc2.latitude);
-		double lon2 = Math.toRadians(loc2.longitude);
-
-		double angle = Math
-				.acos(Math.sin(lat1) * Math.sin(lat2) + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
-
-		double nauticalMiles = 60 * Math.toDegrees(angle);
-
-		return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+		return DistanceQuery.getExactDistance(loc1, loc2);
 	}
 
 }
@@ -1,28 +1,56 @@
 package tourGuide.service;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.AttractionDistance;
+import tourGuide.catalog.AttractionSnapshot;
+import tourGuide.catalog.DistanceQuery;
+import tourGuide.catalog.NearestAttractionsQuery;
+import tourGuide.concurrency.AdaptiveConcurrencyLimiter;
+import tourGuide.concurrency.ConcurrencyUtil;
+import tourGuide.concurrency.ExecutionMode;
 import tourGuide.domain.User;
 import tourGuide.domain.UserReward;
 import tourGuide.domain.response.AttractionInformation;
 import tourGuide.domain.response.NearbyAttractionsResponse;
 import tourGuide.domain.response.UserLocationResponse;
+import tourGuide.eventlog.EventLog;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.service.NearbyAttractionsCache.RewardedAttraction;
 import tripPricer.Provider;
 import tripPricer.TripPricer;
 
@@ -36,15 +64,121 @@ public class TourGuideService {
 	@Autowired
 	private UserService userService;
 
-	private GpsUtil gpsUtil = new GpsUtil();
+	@Autowired
+	private GpsUtil gpsUtil;
+
+	@Autowired
+	private AttractionCatalog attractionCatalog;
+
+	@Autowired
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	@Autowired
+	private EventLog eventLog = EventLog.DISABLED;
 
 	private TripPricer tripPricer = new TripPricer();
 
 	@Value("${tripPricer.api.key}")
 	public String tripPricerApiKey;
 
-	// Number of threads to handle the tracker location task
-	private ExecutorService executorService = Executors.newFixedThreadPool(100);
+	@Value("${gpsUtil.concurrency.minLimit}")
+	private int gpsUtilMinLimit = 10;
+
+	@Value("${gpsUtil.concurrency.maxLimit}")
+	private int gpsUtilMaxLimit = 200;
+
+	// Adapts the number of gpsUtil calls in flight to the observed latency
+	private AdaptiveConcurrencyLimiter gpsUtilLimiter = new AdaptiveConcurrencyLimiter("gpsUtil", gpsUtilMinLimit,
+			gpsUtilMaxLimit);
+
+	@Value("${execution.mode}")
+	private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+
+	// Threads handling the tracker location task, as many as the concurrency ceiling or one virtual thread per task
+	private ExecutorService executorService = ConcurrencyUtil.newExecutor(ExecutionMode.PLATFORM, "tracking",
+			gpsUtilMaxLimit);
+
+	// Latency of each upstream call, published with a percentile histogram once the registry is injected
+	private Timer gpsUtilTimer;
+
+	@Value("${tripPricer.threads}")
+	private int tripPricerThreads = 50;
+
+	// Threads waiting for Trip Pricer, so request threads are not blocked by it
+	private ExecutorService tripPricerExecutorService = ConcurrencyUtil.newExecutor(ExecutionMode.PLATFORM,
+			"tripPricer", tripPricerThreads);
+
+	private Timer tripPricerTimer;
+
+	@Value("${nearbyAttractions.count}")
+	private int nearbyAttractionsCount = 5;
+
+	@Value("${nearbyAttractions.cache.geohashPrecision}")
+	private int nearbyAttractionsCacheGeohashPrecision = 7;
+
+	@Value("${nearbyAttractions.cache.maximumSize}")
+	private long nearbyAttractionsCacheMaximumSize = 100000;
+
+	@Value("${nearbyAttractions.cache.expirationMinutes}")
+	private long nearbyAttractionsCacheExpirationMinutes = 10;
+
+	// Nearby attractions cache, built on first use once the cache properties are injected
+	private volatile NearbyAttractionsCache nearbyAttractionsCache;
+
+	// Number of user locations resolved ahead of the one handed over by streamUsersLocation()
+	private static final int STREAM_WINDOW = 256;
+
+	// Trackings in progress by userId, concurrent callers share the same futures
+	private Map<UUID, Tracking> trackingsInProgress = new ConcurrentHashMap<>();
+
+	// Futures of one tracking : the stored location, then the same location once its rewards are calculated
+	private static final class Tracking {
+
+		private final CompletableFuture<VisitedLocation> location = new CompletableFuture<>();
+
+		private final CompletableFuture<VisitedLocation> rewarded = new CompletableFuture<>();
+
+		private void fail(Throwable e) {
+			location.completeExceptionally(e);
+			rewarded.completeExceptionally(e);
+		}
+	}
+
+	// Number of gpsUtil calls and rewards calculations saved by joining a tracking in progress
+	private AtomicLong coalescedTrackings = new AtomicLong();
+
+	/**
+	 * Apply the configured concurrency limits and execution mode, then publish the upstream latencies and the limits
+	 * In platform mode, the queue depth and active threads of the tracking and Trip Pricer executors are published
+	 * as "tracking" and "tripPricer" executor metrics
+	 */
+	@PostConstruct
+	public void initializeConcurrencyLimits() {
+		gpsUtilLimiter.setLimits(gpsUtilMinLimit, gpsUtilMaxLimit);
+		executorService = ConcurrencyUtil.configure(executorService, executionMode, "tracking", gpsUtilMaxLimit);
+		tripPricerExecutorService = ConcurrencyUtil.configure(tripPricerExecutorService, executionMode, "tripPricer",
+				tripPricerThreads);
+		gpsUtilTimer = TourGuideMetrics.upstreamTimer(meterRegistry, TourGuideMetrics.GPS_UTIL);
+		tripPricerTimer = TourGuideMetrics.upstreamTimer(meterRegistry, TourGuideMetrics.TRIP_PRICER);
+		gpsUtilLimiter.bindTo(meterRegistry);
+		TourGuideMetrics.monitorExecutor(meterRegistry, executorService, "tracking");
+		TourGuideMetrics.monitorExecutor(meterRegistry, tripPricerExecutorService, "tripPricer");
+		FunctionCounter.builder(TourGuideMetrics.UPSTREAM_CALLS_COALESCED, coalescedTrackings, AtomicLong::get)
+				.description("Upstream calls saved by joining a call in progress")
+				.tag("upstream", TourGuideMetrics.GPS_UTIL)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Remove the metrics of the nearby attractions cache, which would otherwise keep the discarded cache reachable
+	 */
+	@PreDestroy
+	public void closeNearbyAttractionsCache() {
+		NearbyAttractionsCache cache = nearbyAttractionsCache;
+		if (cache != null) {
+			cache.close();
+		}
+	}
 
 	/**
 	 * Get the location for a given user
@@ -56,80 +190,265 @@ public class TourGuideService {
 	 * @throws ExecutionException					Thrown if there was en error while fetching user location
 	 */
 	public VisitedLocation getUserLocation(User user) throws InterruptedException, ExecutionException {
-		VisitedLocation visitedLocation = (!user.getVisitedLocations().isEmpty()) ? user.getLastVisitedLocation()
-				: trackUserLocation(user).get();
-		return visitedLocation;
+		return getUserLocationAsync(user).get();
+	}
+
+	/**
+	 * Get the location for a given user without blocking the calling thread
+	 * The last location of the history is returned at once, a user without history is tracked
+	 *
+	 * @param user									User : The user we want to get the location
+	 * @return										CompletableFuture : Completes with the location of the user
+	 */
+	public CompletableFuture<VisitedLocation> getUserLocationAsync(User user) {
+		if (!user.getVisitedLocations().isEmpty()) {
+			return CompletableFuture.completedFuture(user.getLastVisitedLocation());
+		}
+		try {
+			return trackUserLocation(user);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return CompletableFuture.failedFuture(e);
+		} catch (ExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
 	}
 
 	/**
 	 * Track User Location uses the CompletableFuture API to make asynchronous computation
 	 * Calls return immediately and the response will be sent when available using the get() method
+	 * The future completes once the new location is stored, its rewards are calculated in the background
+	 *
+	 * Trackings are single-flight per user : while a tracking of the user is in progress,
+	 * other callers get the same future instead of calling gpsUtil and calculating rewards again
 	 *
 	 * @param user									User : The user we want to track
-	 * @return										VisitedLocation : The current location of the given user
-	 * @throws InterruptedException					Handled by exceptionally() if there is an error while tracking the user
-	 * @throws ExecutionException                   Handled by exceptionally() if there is an error while tracking the user
+	 * @return										CompletableFuture : The current location of the user, failed if the tracking fails
+	 * @throws InterruptedException					Not thrown, a failed tracking completes the future exceptionally
+	 * @throws ExecutionException                   Not thrown, a failed tracking completes the future exceptionally
 	 */
 	public CompletableFuture<VisitedLocation> trackUserLocation(User user)
 			throws InterruptedException, ExecutionException {
+		return track(user).location;
+	}
 
-		CompletableFuture<VisitedLocation> userLocationFuture = CompletableFuture
-				.supplyAsync(() -> gpsUtil.getUserLocation(user.getUserId()), executorService)
+	/**
+	 * Track a user like trackUserLocation(), and wait for the rewards of the new location
+	 * Used by the tracker, whose cycles account for the rewards calculations
+	 *
+	 * @param user									User : The user we want to track
+	 * @return										CompletableFuture : The current location of the user once its rewards are calculated,
+	 * 												failed if the tracking or the rewards calculation fails
+	 */
+	public CompletableFuture<VisitedLocation> trackUserLocationAndRewards(User user) {
+		return track(user).rewarded;
+	}
+
+	private Tracking track(User user) {
+		Tracking tracking = new Tracking();
+		Tracking trackingInProgress = trackingsInProgress.putIfAbsent(user.getUserId(), tracking);
+		if (trackingInProgress != null) {
+			coalescedTrackings.incrementAndGet();
+			return trackingInProgress;
+		}
+
+		// The tracking leaves the map before completing, so callers arriving afterwards start a new one
+		try {
+			startTracking(user, tracking);
+		} catch (RuntimeException e) {
+			// Rejected by the executor : the callers sharing the tracking must not wait forever
+			log.debug("Error while starting the tracking of user {} : {}", user.getUserName(), e.getMessage());
+			trackingsInProgress.remove(user.getUserId(), tracking);
+			tracking.fail(e);
+		}
+		return tracking;
+	}
+
+	private void startTracking(User user, Tracking tracking) {
+		CompletableFuture
+				.supplyAsync(() -> gpsUtilLimiter.call(() -> gpsUtilTimer.record(() -> gpsUtil.getUserLocation(user.getUserId()))),
+						executorService)
 				.thenApply(visitedLocation -> {
 					user.addToVisitedLocations(visitedLocation);
-					rewardsService.calculateRewards(user);
+					getNearbyAttractionsCache().invalidateIfMoved(user.getUserId(), visitedLocation.location);
+					eventLog.appendVisitedLocation(user.getUserId(), visitedLocation);
 					return visitedLocation;
-				}).exceptionally(e -> {
-					log.debug("Error while tracking user : {}", e.getMessage());
-					return null;
+				}).whenComplete((visitedLocation, e) -> {
+					if (e != null) {
+						log.debug("Error while tracking user : {}", e.getMessage());
+						trackingsInProgress.remove(user.getUserId(), tracking);
+						tracking.fail(e);
+						return;
+					}
+					calculateRewards(user, visitedLocation, tracking);
+					tracking.location.complete(visitedLocation);
 				});
+	}
 
-		return userLocationFuture;
+	// The stored location stays valid when its rewards calculation fails, only the rewarded future fails
+	private void calculateRewards(User user, VisitedLocation visitedLocation, Tracking tracking) {
+		CompletableFuture<Integer> rewards;
+		try {
+			rewards = rewardsService.calculateRewards(user);
+		} catch (RuntimeException e) {
+			rewards = CompletableFuture.failedFuture(e);
+		}
+		rewards.whenComplete((rewardsGranted, e) -> {
+			trackingsInProgress.remove(user.getUserId(), tracking);
+			if (e != null) {
+				log.debug("Error while calculating the rewards of user {} : {}", user.getUserName(), e.getMessage());
+				tracking.rewarded.completeExceptionally(e);
+			} else {
+				tracking.rewarded.complete(visitedLocation);
+			}
+		});
+	}
+
+	/**
+	 * Get the number of trackings that joined a tracking of the same user already in progress
+	 * Each of them saved a gpsUtil call and a rewards calculation
+	 *
+	 * @return										Long : The number of coalesced trackings
+	 */
+	public long getCoalescedTrackings() {
+		return coalescedTrackings.get();
 	}
 
 	/**
-	 * Get the five closest attractions for a given user
+	 * Get the closest attractions for a given user, see getNearByAttractionsAsync()
 	 *
 	 * @param user									The User we want to fetch
-	 * @return										The five closest attraction from the current user location
+	 * @return										The closest attractions from the current user location
 	 * @throws InterruptedException					Thrown if there was en error while fetching user location
 	 * @throws ExecutionException					Thrown if there was en error while fetching user location
 	 */
 	public NearbyAttractionsResponse getNearByAttractions(User user) throws InterruptedException, ExecutionException {
-		// Getting attractions list and user location
-		List<Attraction> attractions = gpsUtil.getAttractions();
-		Location currentUserLocation = getUserLocation(user).location;
-
-		// Sorting the 5 nearest attractions for each user depending on the distance in
-		// miles
-		attractions = attractions.stream()
-				.sorted(Comparator.comparingDouble(
-						a -> rewardsService.getDistance(new Location(a.longitude, a.latitude), currentUserLocation)))
-				.limit(5).collect(Collectors.toList());
-
-		// Fetching information for the 5 nearest attractions
-		List<AttractionInformation> nearbyAttractions = new ArrayList<>();
-		for (Attraction a : attractions) {
+		return getNearByAttractionsAsync(user).get();
+	}
+
+	/**
+	 * Get the closest attractions for a given user without blocking the calling thread
+	 * The nearbyAttractions.count nearest attractions are kept, within the attraction proximity of the user
+	 * The reward points of these attractions are fetched concurrently on the rewards executor
+	 * The attractions are cached until the user leaves the geohash cell of the location or the catalog is refreshed,
+	 * the user location and the distances always come from the current location
+	 *
+	 * @param user									User : The user we want to fetch
+	 * @return										CompletableFuture : Completes with the closest attractions, nearest first
+	 */
+	public CompletableFuture<NearbyAttractionsResponse> getNearByAttractionsAsync(User user) {
+		AttractionSnapshot snapshot = attractionCatalog.getSnapshot();
+		return getKnownLocationAsync(user).thenCompose(visitedLocation -> getNearByAttractions(user, visitedLocation,
+				snapshot));
+	}
+
+	/**
+	 * Get the closest attractions for several users at once, the users being resolved concurrently
+	 * The attractions are read from the catalog once for the whole batch
+	 *
+	 * @param users									Collection<User> : The users we want to fetch
+	 * @return										Map<UUID, CompletableFuture> : The future response of each user, by user id
+	 */
+	public Map<UUID, CompletableFuture<NearbyAttractionsResponse>> getNearByAttractionsAsync(Collection<User> users) {
+		AttractionSnapshot snapshot = attractionCatalog.getSnapshot();
+		Map<UUID, CompletableFuture<NearbyAttractionsResponse>> responses = new LinkedHashMap<>();
+		for (User user : users) {
+			responses.put(user.getUserId(), getKnownLocationAsync(user).thenCompose(
+					visitedLocation -> getNearByAttractions(user, visitedLocation, snapshot)));
+		}
+		return responses;
+	}
+
+	// Response from the cache while the user stays in the same geohash cell
+	// A user that could not be located gets a failed future instead of a response
+	private CompletableFuture<NearbyAttractionsResponse> getNearByAttractions(User user,
+			VisitedLocation visitedLocation, AttractionSnapshot snapshot) {
+		if (visitedLocation == null) {
+			return CompletableFuture.failedFuture(
+					new IllegalStateException("The location of user " + user.getUserName() + " is unknown"));
+		}
+		Location currentUserLocation = visitedLocation.location;
+		return getNearbyAttractionsCache().get(user.getUserId(), currentUserLocation, nearbyAttractionsCount,
+				user.getUserPreferences().getAttractionProximity(), snapshot.getVersion(),
+				() -> findNearByAttractions(user, currentUserLocation, snapshot))
+				.thenApply(rewardedAttractions -> toNearbyAttractionsResponse(currentUserLocation, rewardedAttractions));
+	}
+
+	private CompletableFuture<List<RewardedAttraction>> findNearByAttractions(User user, Location currentUserLocation,
+			AttractionSnapshot snapshot) {
+		// k nearest attractions, the attraction proximity of the user being the maximum distance
+		List<AttractionDistance> closestAttractions = new NearestAttractionsQuery(currentUserLocation,
+				nearbyAttractionsCount, user.getUserPreferences().getAttractionProximity()).search(snapshot);
+
+		// Reward points of every attraction are requested at once
+		List<CompletableFuture<Integer>> rewardPoints = closestAttractions.stream()
+				.map(closestAttraction -> rewardsService.getRewardPointsAsync(closestAttraction.getAttraction(), user))
+				.collect(Collectors.toList());
+
+		return CompletableFuture.allOf(rewardPoints.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			List<RewardedAttraction> rewardedAttractions = new ArrayList<>(closestAttractions.size());
+			for (int i = 0; i < closestAttractions.size(); i++) {
+				rewardedAttractions.add(
+						new RewardedAttraction(closestAttractions.get(i).getAttraction(), rewardPoints.get(i).join()));
+			}
+			return rewardedAttractions;
+		});
+	}
+
+	// The distances are computed from the current location, the attractions may come from the cache
+	private NearbyAttractionsResponse toNearbyAttractionsResponse(Location currentUserLocation,
+			List<RewardedAttraction> rewardedAttractions) {
+		List<AttractionInformation> nearbyAttractions = new ArrayList<>(rewardedAttractions.size());
+		for (RewardedAttraction rewardedAttraction : rewardedAttractions) {
+			Attraction a = rewardedAttraction.getAttraction();
 			AttractionInformation attractionInformation = new AttractionInformation();
-			Location attractionLocation = new Location(a.longitude, a.latitude);
 			attractionInformation.setNameOfAttraction(a.attractionName);
-			attractionInformation.setAttractionLocation(attractionLocation);
-			attractionInformation
-					.setDistanceToAttraction(rewardsService.getDistance(attractionLocation, currentUserLocation));
-			attractionInformation.setAttractionRewardPoints(rewardsService.getRewardPoints(a, user));
+			attractionInformation.setAttractionLocation(new Location(a.latitude, a.longitude));
+			attractionInformation.setDistanceToAttraction(DistanceQuery.getExactDistance(a, currentUserLocation));
+			attractionInformation.setAttractionRewardPoints(rewardedAttraction.getRewardPoints());
 			nearbyAttractions.add(attractionInformation);
 		}
+		nearbyAttractions.sort(Comparator.comparingDouble(AttractionInformation::getDistanceToAttraction));
 
 		// Setting the response data object that will be used to read collected datas
 		NearbyAttractionsResponse response = new NearbyAttractionsResponse();
 		response.setUserLocation(currentUserLocation);
 		response.setNearbyAttractions(nearbyAttractions);
-
 		return response;
 	}
 
+	/**
+	 * Get hit, miss and eviction statistics of the nearby attractions cache
+	 *
+	 * @return										CacheStats : A snapshot of the cache statistics
+	 */
+	public CacheStats getNearbyAttractionsCacheStats() {
+		return getNearbyAttractionsCache().getStats();
+	}
+
+	/**
+	 * Get the nearby attractions cache, building it the first time it is requested
+	 *
+	 * @return										NearbyAttractionsCache : The cache of the nearby attractions
+	 */
+	private NearbyAttractionsCache getNearbyAttractionsCache() {
+		NearbyAttractionsCache cache = nearbyAttractionsCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = nearbyAttractionsCache;
+				if (cache == null) {
+					cache = new NearbyAttractionsCache(nearbyAttractionsCacheGeohashPrecision, meterRegistry,
+							nearbyAttractionsCacheMaximumSize, nearbyAttractionsCacheExpirationMinutes);
+					nearbyAttractionsCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
 	/**
 	 * This method gathers the users' current location based on their stored location history
+	 * Users without history are tracked in parallel, see streamUsersLocation()
 	 *
 	 * @return										UserLocationResponse containing the user id and the location
 	 * @throws InterruptedException					Thrown if there was en error while fetching user location
@@ -138,17 +457,64 @@ public class TourGuideService {
 	public List<UserLocationResponse> getAllUsersLocation() throws InterruptedException, ExecutionException {
 
 		List<User> users = userService.getAllUsers();
-		List<UserLocationResponse> response = new ArrayList<>();
-		for (User u : users) {
+		List<UserLocationResponse> response = new ArrayList<>(users.size());
+		streamUsersLocation(users, response::add);
+		return response;
+	}
+
+	/**
+	 * Resolve the current location of users and hand them over one by one, in the order of the users
+	 * Locations are resolved in parallel at most STREAM_WINDOW users ahead of the consumer : users without history
+	 * are tracked while the previous locations are consumed, and memory stays bounded whatever the number of users
+	 * A user whose tracking fails gets its last known location, a user that cannot be located at all is left out
+	 *
+	 * @param users									List<User> : The users to locate
+	 * @param consumer								Consumer<UserLocationResponse> : Receives the location of each user
+	 * @throws InterruptedException					Thrown if there was en error while fetching user location
+	 * @throws ExecutionException					Thrown if there was en error while fetching user location
+	 */
+	public void streamUsersLocation(List<User> users, Consumer<UserLocationResponse> consumer)
+			throws InterruptedException, ExecutionException {
+
+		Deque<CompletableFuture<VisitedLocation>> window = new ArrayDeque<>(STREAM_WINDOW);
+		int resolved = 0;
+		for (User user : users) {
+			while (resolved < users.size() && window.size() < STREAM_WINDOW) {
+				window.add(getKnownLocationAsync(users.get(resolved++)));
+			}
+			VisitedLocation visitedLocation = window.poll().get();
+			// A user that could not be located is left out, the other users are still handed over
+			if (visitedLocation == null) {
+				continue;
+			}
 			UserLocationResponse userLocationResponse = new UserLocationResponse();
-			userLocationResponse.setUserId(u.getUserId());
-			userLocationResponse.setUserLocation(getUserLocation(u).location);
-			response.add(userLocationResponse);
+			userLocationResponse.setUserId(user.getUserId());
+			userLocationResponse.setUserLocation(visitedLocation.location);
+			consumer.accept(userLocationResponse);
 		}
+	}
 
-		return response;
+	/**
+	 * Get the location of a user for the paths serving many users, where one failure must not fail the others
+	 * When the tracking fails, the last location of the history is used if there is one
+	 *
+	 * @param user									User : The user we want to get the location
+	 * @return										CompletableFuture : Completes with the location, null if the user could not be located
+	 */
+	private CompletableFuture<VisitedLocation> getKnownLocationAsync(User user) {
+		return getUserLocationAsync(user).handle((visitedLocation, e) -> {
+			if (visitedLocation != null) {
+				return visitedLocation;
+			}
+			if (!user.getVisitedLocations().isEmpty()) {
+				return user.getLastVisitedLocation();
+			}
+			log.debug("[Tracking] Could not locate user {}, it is left out.", user.getUserName());
+			return null;
+		});
 	}
 
+
 	/**
 	 * Get Trip Deals based for a given user based on its preferences
 	 *
@@ -161,9 +527,9 @@ public class TourGuideService {
 
 		// Get a list of provider based on user preferences (number of adults, children
 		// and trip duration)
-		List<Provider> providers = tripPricer.getPrice(tripPricerApiKey, user.getUserId(),
+		List<Provider> providers = tripPricerTimer.record(() -> tripPricer.getPrice(tripPricerApiKey, user.getUserId(),
 				user.getUserPreferences().getNumberOfAdults(), user.getUserPreferences().getNumberOfChildren(),
-				user.getUserPreferences().getTripDuration(), cumulatativeRewardPoints);
+				user.getUserPreferences().getTripDuration(), cumulatativeRewardPoints));
 
 		// Filtering providers that are in the price range of the user
 		double userLowerPoint = user.getUserPreferences().getLowerPricePoint().getNumber().doubleValue();
@@ -176,4 +542,14 @@ public class TourGuideService {
 		user.setTripDeals(providers);
 		return providers;
 	}
+
+	/**
+	 * Get Trip Deals for a given user without blocking the calling thread, Trip Pricer is called on its own executor
+	 *
+	 * @param user									The User we want to fetch trip deals
+	 * @return										CompletableFuture : Completes with the travel agencies offers
+	 */
+	public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+		return CompletableFuture.supplyAsync(() -> getTripDeals(user), tripPricerExecutorService);
+	}
 }
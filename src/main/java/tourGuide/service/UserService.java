@@ -1,17 +1,39 @@
 package tourGuide.service;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import lombok.extern.slf4j.Slf4j;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.catalog.AttractionCatalog;
 import tourGuide.domain.User;
-import tourGuide.util.LocationGeneratorUtil;
+import tourGuide.domain.UserPreferences;
+import tourGuide.domain.UserReward;
+import tourGuide.eventlog.EventLog;
+import tourGuide.eventlog.EventLogListener;
+import tourGuide.history.HistoryStorage;
+import tourGuide.history.LocationHistory;
+import tourGuide.snapshot.UserSnapshot;
+import tourGuide.snapshot.UserSnapshotStore;
+import tourGuide.util.LocationDistribution;
+import tourGuide.util.UserGenerator;
 
 @Service
 @Slf4j
@@ -20,26 +42,153 @@ public class UserService {
 	/**
 	 *  Database connection will be used for external users, but for testing purposes
 	 *  internal users are provided and stored in memory
+	 *
+	 *  Users are indexed by username and by id, reads never block and concurrent additions of the same
+	 *  username keep the first user. The username index is the source of truth : a user becomes visible by id
+	 *  just after becoming visible by username. The id index is sorted, so users can be paged by id.
 	 */
-	private Map<String, User> internalUserMap = new HashMap<>();
+	private Map<String, User> internalUserMap = new ConcurrentHashMap<>();
+
+	private ConcurrentNavigableMap<UUID, User> internalUserIdMap = new ConcurrentSkipListMap<>();
+
+	@Value("${history.storage}")
+	private HistoryStorage historyStorage = HistoryStorage.HEAP;
+
+	// Users, locations and rewards are appended to the event log, and replayed from it on startup
+	@Autowired
+	private EventLog eventLog = EventLog.DISABLED;
+
+	// Internal users of the live test mode and the load tests
+	@Autowired
+	private AttractionCatalog attractionCatalog;
+
+	@Value("${internal.generator.seed}")
+	private long generatorSeed = UserGenerator.DEFAULT_SEED;
+
+	@Value("${internal.generator.historyLength}")
+	private int generatorHistoryLength = 3;
+
+	@Value("${internal.generator.distribution}")
+	private LocationDistribution generatorDistribution = LocationDistribution.UNIFORM;
+
+	@Value("${internal.generator.clusterRadiusMiles}")
+	private double generatorClusterRadiusMiles = 10;
+
+	// The whole user store is periodically saved to a snapshot, loaded on startup before the event log tail
+	@Autowired
+	private UserSnapshotStore snapshotStore = UserSnapshotStore.DISABLED;
+
+	/**
+	 * Select the storage of the location histories before any user is created, then rebuild the users
+	 * from the last snapshot and the events appended after it
+	 *
+	 * @throws IOException					Thrown if the snapshot cannot be read, starting without its users would lose them
+	 */
+	@PostConstruct
+	public void initializeUserStore() throws IOException {
+		LocationHistory.setDefaultStorage(historyStorage);
+		log.debug("[User Service] Location histories stored in {}.", historyStorage);
+		recoverUsers();
+	}
+
+	/**
+	 * Load the last snapshot, then replay the events appended after it, replayed events are not appended again
+	 *
+	 * @return								Long : The number of replayed events
+	 * @throws IOException					Thrown if the snapshot cannot be read
+	 */
+	public long recoverUsers() throws IOException {
+		UserSnapshot snapshot = snapshotStore.read();
+		if (snapshot == null) {
+			return replayEvents(0, Collections.emptySet());
+		}
+		snapshot.getUsers().parallelStream().forEach(this::indexUser);
+		log.debug("[User Service] Loaded {} users from the snapshot.", snapshot.getUsers().size());
+		Set<UUID> snapshotUserIds = snapshot.getUsers().stream().map(User::getUserId).collect(Collectors.toSet());
+		return replayEvents(snapshot.getEventLogPosition(), snapshotUserIds);
+	}
+
+	/**
+	 * Save every user to the snapshot, with the position of the event log
+	 * The position is read before the users, so events applied while the users are saved are replayed again
+	 * on the next startup rather than lost. Once the snapshot is synced, the events before it are deleted.
+	 *
+	 * @throws IOException					Thrown if the snapshot cannot be written
+	 */
+	public void writeSnapshot() throws IOException {
+		if (!snapshotStore.isEnabled()) {
+			return;
+		}
+		long eventLogPosition = eventLog.getEventCount();
+		snapshotStore.write(getAllUsers(), eventLogPosition);
+		eventLog.truncateBefore(eventLogPosition);
+	}
+
+	/*
+	 * Events at the end of the snapshot may already be in the users of the snapshot : their locations are only
+	 * applied when newer than the last location of the user, users and rewards are not added twice anyway.
+	 */
+	private long replayEvents(long fromEvent, Set<UUID> snapshotUserIds) {
+		long events = eventLog.replay(fromEvent, new EventLogListener() {
+
+			@Override
+			public void onUser(User user) {
+				indexUser(user);
+			}
+
+			@Override
+			public void onVisitedLocation(VisitedLocation visitedLocation) {
+				User user = internalUserIdMap.get(visitedLocation.userId);
+				if (user == null) {
+					return;
+				}
+				if (snapshotUserIds.contains(user.getUserId()) && !user.getVisitedLocations().isEmpty()
+						&& !visitedLocation.timeVisited.after(user.getLastVisitedLocation().timeVisited)) {
+					return;
+				}
+				user.addToVisitedLocations(visitedLocation);
+			}
+
+			@Override
+			public void onUserReward(UUID userId, UserReward userReward) {
+				User user = internalUserIdMap.get(userId);
+				if (user != null) {
+					user.addUserReward(userReward);
+				}
+			}
+
+			@Override
+			public void onUserPreferences(UUID userId, UserPreferences userPreferences) {
+				User user = internalUserIdMap.get(userId);
+				if (user != null) {
+					user.setUserPreferences(userPreferences);
+				}
+			}
+		});
+		if (events > 0) {
+			log.debug("[User Service] Recovered {} users from {} events.", internalUserMap.size(), events);
+		}
+		return events;
+	}
 
 	/**
 	 * Internal users generation method
 	 * The number of users to create is set in the application.properties file
 	 * The method will only be called if the test mode is enabled
+	 * Users are generated in parallel from the internal.generator.* settings, the same seed gives the same users
 	 *
+	 * @param numberOfUsers					Integer : The number of users to generate
 	 */
 	public void initializeInternalUsers(int numberOfUsers) {
-		IntStream.range(0, numberOfUsers).forEach(i -> {
-			String userName = "internalUser" + i;
-			String phone = "000";
-			String email = userName + "@tourGuide.com";
-			User user = new User(UUID.randomUUID(), userName, phone, email);
-			LocationGeneratorUtil.generateUserLocationHistory(user);
-
-			internalUserMap.put(userName, user);
-		});
-		log.debug("[User Service] Created {} internal test users.", numberOfUsers);
+		List<? extends Location> clusterCenters = Collections.emptyList();
+		if (generatorDistribution == LocationDistribution.CLUSTERED && attractionCatalog != null) {
+			clusterCenters = attractionCatalog.getAttractions();
+		}
+		UserGenerator generator = new UserGenerator(generatorSeed, generatorHistoryLength, generatorDistribution,
+				generatorClusterRadiusMiles, clusterCenters);
+		generator.generate(numberOfUsers, System.currentTimeMillis()).parallelStream().forEach(this::addUser);
+		log.debug("[User Service] Created {} internal test users (seed {}, {} distribution).", numberOfUsers,
+				generatorSeed, generatorDistribution);
 	}
 
 	/**
@@ -53,12 +202,36 @@ public class UserService {
 	}
 
 	/**
-	 * Converting the User HashMap into a List for performance purpose
+	 * Get a user given its id
+	 *
+	 * @param userId						UUID : The id of the user to fetch
+	 * @return								User : Return a User Object if it exists, null otherwise
+	 */
+	public User getUserById(UUID userId) {
+		return internalUserIdMap.get(userId);
+	}
+
+	/**
+	 * Converting the User map into a List for performance purpose
 	 *
 	 * @return								List<User> : List containing all users
 	 */
 	public List<User> getAllUsers() {
-		return internalUserMap.values().parallelStream().collect(Collectors.toList());
+		return new ArrayList<>(internalUserMap.values());
+	}
+
+	/**
+	 * Get a page of users in id order, for cursor-based pagination
+	 * Users added during the pagination are returned if their id is after the cursor
+	 *
+	 * @param cursor						UUID : The id of the last user of the previous page, null for the first page
+	 * @param limit							Integer : The maximum number of users, 0 for every user after the cursor
+	 * @return								List<User> : The users following the cursor
+	 */
+	public List<User> getUsersAfter(UUID cursor, int limit) {
+		Collection<User> users = (cursor == null) ? internalUserIdMap.values()
+				: internalUserIdMap.tailMap(cursor, false).values();
+		return users.stream().limit(limit > 0 ? limit : Long.MAX_VALUE).collect(Collectors.toList());
 	}
 
 	/**
@@ -67,8 +240,27 @@ public class UserService {
 	 * @param user							User : The user to add
 	 */
 	public void addUser(User user) {
-		if (!internalUserMap.containsKey(user.getUserName())) {
-			internalUserMap.put(user.getUserName(), user);
+		if (indexUser(user)) {
+			eventLog.appendUser(user);
+		}
+	}
+
+	/**
+	 * Replace the preferences of a user, the change is appended to the event log
+	 *
+	 * @param user							User : The user
+	 * @param userPreferences				UserPreferences : The new preferences of the user
+	 */
+	public void setUserPreferences(User user, UserPreferences userPreferences) {
+		user.setUserPreferences(userPreferences);
+		eventLog.appendUserPreferences(user.getUserId(), userPreferences);
+	}
+
+	private boolean indexUser(User user) {
+		if (internalUserMap.putIfAbsent(user.getUserName(), user) != null) {
+			return false;
 		}
+		internalUserIdMap.put(user.getUserId(), user);
+		return true;
 	}
 }
@@ -0,0 +1,85 @@
+package tourGuide.shard;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Nodes of the TourGuide cluster
+ *
+ * Shard managers register as listeners and rebalance their shards whenever the members change.
+ * Listeners are notified while the membership is locked, so they always see the changes in order.
+ * In-process instances share one membership, separate processes are given the same members (see ShardsEndpoint).
+ */
+public class ClusterMembership {
+
+	private final Set<String> nodes = new TreeSet<>();
+
+	private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+
+	public ClusterMembership(Collection<String> nodes) {
+		this.nodes.addAll(nodes);
+	}
+
+	/**
+	 * Get the nodes of the cluster
+	 *
+	 * @return										Set<String> : A sorted copy of the node ids
+	 */
+	public synchronized Set<String> getNodes() {
+		return Collections.unmodifiableSet(new TreeSet<>(nodes));
+	}
+
+	/**
+	 * Add a node to the cluster
+	 *
+	 * @param node									String : The id of the node
+	 */
+	public synchronized void join(String node) {
+		if (nodes.add(node)) {
+			notifyListeners();
+		}
+	}
+
+	/**
+	 * Remove a node from the cluster
+	 *
+	 * @param node									String : The id of the node
+	 */
+	public synchronized void leave(String node) {
+		if (nodes.remove(node)) {
+			notifyListeners();
+		}
+	}
+
+	/**
+	 * Replace every node of the cluster
+	 *
+	 * @param newNodes								Collection<String> : The ids of the nodes
+	 */
+	public synchronized void setNodes(Collection<String> newNodes) {
+		if (!nodes.equals(new TreeSet<>(newNodes))) {
+			nodes.clear();
+			nodes.addAll(newNodes);
+			notifyListeners();
+		}
+	}
+
+	/**
+	 * Register a listener called with the new nodes after every change
+	 *
+	 * @param listener								Consumer<Set<String>> : The listener
+	 */
+	public void addListener(Consumer<Set<String>> listener) {
+		listeners.add(listener);
+	}
+
+	private void notifyListeners() {
+		Set<String> snapshot = getNodes();
+		listeners.forEach(listener -> listener.accept(snapshot));
+	}
+}
@@ -0,0 +1,121 @@
+package tourGuide.shard;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.User;
+
+/**
+ * Shards owned by this node of the cluster
+ *
+ * The node only tracks and rewards the users of the shards it owns.
+ * The shards are rebalanced on the consistent-hash ring every time the cluster membership changes,
+ * so each user is owned by exactly one node once every node has seen the change.
+ */
+@Slf4j
+public class ShardManager {
+
+	@Getter
+	private final String nodeId;
+
+	@Getter
+	private final ClusterMembership membership;
+
+	@Getter
+	private final int shardCount;
+
+	// Ring and ownership table are replaced together on rebalance
+	private volatile Assignment assignment;
+
+	public ShardManager(String nodeId, ClusterMembership membership, int shardCount) {
+		this.nodeId = nodeId;
+		this.membership = membership;
+		this.shardCount = shardCount;
+
+		// Locking the membership so no change can happen between the first assignment and the registration
+		synchronized (membership) {
+			rebalance(membership.getNodes());
+			membership.addListener(this::rebalance);
+		}
+		if (!membership.getNodes().contains(nodeId)) {
+			log.warn("[Shards] Node {} is not a member of the cluster, it does not own any shard.", nodeId);
+		}
+	}
+
+	/**
+	 * Compute the shards of this node for a new set of nodes
+	 *
+	 * @param nodes									Set<String> : The nodes of the cluster
+	 */
+	public void rebalance(Set<String> nodes) {
+		ShardRing ring = new ShardRing(nodes, shardCount);
+		boolean[] ownership = ring.getOwnership(nodeId);
+
+		Assignment previous = assignment;
+		if (previous != null) {
+			int gained = 0;
+			int lost = 0;
+			for (int shard = 0; shard < shardCount; shard++) {
+				gained += ownership[shard] && !previous.ownership[shard] ? 1 : 0;
+				lost += !ownership[shard] && previous.ownership[shard] ? 1 : 0;
+			}
+			log.debug("[Shards] Node {} rebalanced over {} nodes : {} shards gained, {} shards lost.", nodeId,
+					nodes.size(), gained, lost);
+		}
+		assignment = new Assignment(ring, ownership);
+	}
+
+	/**
+	 * Check if a user belongs to a shard owned by this node
+	 *
+	 * @param userId								UUID : The id of the user
+	 * @return										True if this node tracks and rewards the user
+	 */
+	public boolean isOwned(UUID userId) {
+		Assignment current = assignment;
+		return current.ownership[current.ring.getShard(userId)];
+	}
+
+	/**
+	 * Check if a user belongs to a shard owned by this node
+	 *
+	 * @param user									User : The user
+	 * @return										True if this node tracks and rewards the user
+	 */
+	public boolean isOwned(User user) {
+		return isOwned(user.getUserId());
+	}
+
+	/**
+	 * Get the shards owned by this node
+	 *
+	 * @return										List<Integer> : The owned shards, sorted
+	 */
+	public List<Integer> getOwnedShards() {
+		return assignment.ring.getShards(nodeId);
+	}
+
+	/**
+	 * Get the nodes the current assignment was computed with
+	 *
+	 * @return										List<String> : The sorted node ids
+	 */
+	public List<String> getNodes() {
+		return assignment.ring.getNodes();
+	}
+
+	private static final class Assignment {
+
+		private final ShardRing ring;
+
+		private final boolean[] ownership;
+
+		private Assignment(ShardRing ring, boolean[] ownership) {
+			this.ring = ring;
+			this.ownership = ownership;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package tourGuide.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import lombok.Getter;
+
+/**
+ * Consistent-hash ring assigning a fixed number of shards to the nodes of the cluster
+ *
+ * Users are hashed on their userId into one of the shards, and every node is placed on the ring at several points.
+ * A shard belongs to the first node point found clockwise from the shard position.
+ * When a node joins or leaves, only the shards next to its points move : about 1 / nodes of the shards.
+ */
+public class ShardRing {
+
+	public static final int POINTS_PER_NODE = 128;
+
+	@Getter
+	private final List<String> nodes;
+
+	@Getter
+	private final int shardCount;
+
+	// Index in nodes of the owner of each shard, -1 when the ring has no node
+	private final int[] owners;
+
+	public ShardRing(Collection<String> nodes, int shardCount) {
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("The shard count must be at least 1");
+		}
+		this.nodes = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(nodes)));
+		this.shardCount = shardCount;
+		this.owners = assignShards();
+	}
+
+	private int[] assignShards() {
+		int[] shardOwners = new int[shardCount];
+		if (nodes.isEmpty()) {
+			Arrays.fill(shardOwners, -1);
+			return shardOwners;
+		}
+
+		// Node points sorted by position on the ring, along with the node they belong to
+		int pointCount = nodes.size() * POINTS_PER_NODE;
+		long[] points = new long[pointCount];
+		for (int node = 0; node < nodes.size(); node++) {
+			for (int i = 0; i < POINTS_PER_NODE; i++) {
+				points[node * POINTS_PER_NODE + i] = hash(nodes.get(node) + "#" + i);
+			}
+		}
+		Integer[] order = new Integer[pointCount];
+		Arrays.setAll(order, i -> i);
+		Arrays.sort(order, Comparator.comparingLong(i -> points[i]));
+		long[] positions = new long[pointCount];
+		int[] pointOwners = new int[pointCount];
+		for (int i = 0; i < pointCount; i++) {
+			positions[i] = points[order[i]];
+			pointOwners[i] = order[i] / POINTS_PER_NODE;
+		}
+
+		// Each shard belongs to the first point at or after its position, the ring wraps around
+		for (int shard = 0; shard < shardCount; shard++) {
+			int index = Arrays.binarySearch(positions, mix(shard));
+			if (index < 0) {
+				index = -index - 1;
+			}
+			shardOwners[shard] = pointOwners[index % pointCount];
+		}
+		return shardOwners;
+	}
+
+	/**
+	 * Get the shard of a user
+	 *
+	 * @param userId								UUID : The id of the user
+	 * @return										Integer : The shard of the user, between 0 and shardCount - 1
+	 */
+	public int getShard(UUID userId) {
+		long hash = mix(userId.getMostSignificantBits() ^ mix(userId.getLeastSignificantBits()));
+		return (int) Long.remainderUnsigned(hash, shardCount);
+	}
+
+	/**
+	 * Get the node owning a shard
+	 *
+	 * @param shard									Integer : The shard
+	 * @return										String : The owner of the shard, null when the ring has no node
+	 */
+	public String getOwner(int shard) {
+		int owner = owners[shard];
+		return owner < 0 ? null : nodes.get(owner);
+	}
+
+	/**
+	 * Get the shards owned by a node
+	 *
+	 * @param node									String : The id of the node
+	 * @return										List<Integer> : The shards owned by the node, empty if it is not in the ring
+	 */
+	public List<Integer> getShards(String node) {
+		int index = nodes.indexOf(node);
+		List<Integer> shards = new ArrayList<>();
+		for (int shard = 0; shard < shardCount; shard++) {
+			if (index >= 0 && owners[shard] == index) {
+				shards.add(shard);
+			}
+		}
+		return shards;
+	}
+
+	/**
+	 * Get a table of the shards owned by a node, indexed by shard
+	 *
+	 * @param node									String : The id of the node
+	 * @return										boolean[] : True at the index of each shard owned by the node
+	 */
+	public boolean[] getOwnership(String node) {
+		boolean[] ownership = new boolean[shardCount];
+		for (int shard : getShards(node)) {
+			ownership[shard] = true;
+		}
+		return ownership;
+	}
+
+	// 64 bits FNV-1a, every node computes the same positions for the same node ids
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	// Finalizer of SplitMix64, spreads close values over the whole ring
+	private static long mix(long value) {
+		long z = value + 0x9e3779b97f4a7c15L;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
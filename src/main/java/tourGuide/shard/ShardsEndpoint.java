@@ -0,0 +1,46 @@
+package tourGuide.shard;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import tourGuide.domain.response.ShardsResponse;
+import tourGuide.service.UserService;
+
+/**
+ * Actuator endpoint exposing the shards owned by this node (GET /actuator/shards)
+ * Posting the comma separated nodes of the cluster rebalances the shards (POST /actuator/shards {"nodes": "a,b"})
+ */
+@Component
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+	@Autowired
+	private ShardManager shardManager;
+
+	@Autowired
+	private UserService userService;
+
+	@ReadOperation
+	public ShardsResponse shards() {
+		ShardsResponse response = new ShardsResponse();
+		response.setNodeId(shardManager.getNodeId());
+		response.setNodes(shardManager.getNodes());
+		response.setShardCount(shardManager.getShardCount());
+		response.setOwnedShards(shardManager.getOwnedShards());
+		response.setOwnedUsers(userService.getAllUsers().stream().filter(shardManager::isOwned).count());
+		return response;
+	}
+
+	@WriteOperation
+	public ShardsResponse rebalance(String nodes) {
+		shardManager.getMembership().setNodes(Arrays.stream(nodes.split(",")).map(String::trim)
+				.filter(node -> !node.isEmpty()).collect(Collectors.toList()));
+		return shards();
+	}
+}
@@ -0,0 +1,191 @@
+package tourGuide.snapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.money.Monetary;
+
+import org.javamoney.moneta.Money;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.domain.User;
+import tourGuide.domain.UserPreferences;
+import tourGuide.domain.UserReward;
+import tourGuide.history.LocationHistory;
+
+/**
+ * Binary format of a chunk of users in a snapshot, big-endian
+ *
+ * chunk : user count, then each user
+ * user : id, username, phone number, email address, latest location timestamp (Long.MIN_VALUE if none),
+ *        preferences, location history, rewards
+ * preferences : attraction proximity, currency code, lower and higher price points, trip duration, ticket quantity,
+ *               number of adults, number of children
+ * location history : count, locations not checked for rewards yet, then the latitudes, longitudes and times columns
+ * reward : latitude, longitude and time of the visit, attraction name, city, state, latitude, longitude, points
+ *
+ * Strings are written as an unsigned short length followed by their UTF-8 bytes.
+ */
+final class SnapshotCodec {
+
+	private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	private SnapshotCodec() {
+	}
+
+	static byte[] encodeChunk(List<User> users) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(users.size() * 256);
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeInt(users.size());
+			for (User user : users) {
+				encodeUser(output, user);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static List<User> decodeChunk(ByteBuffer chunk) {
+		int count = chunk.getInt();
+		List<User> users = new ArrayList<>(count);
+		// Most users share the same price points, Money being immutable each distinct amount is parsed once
+		Map<String, Money> prices = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			users.add(decodeUser(chunk, prices));
+		}
+		return users;
+	}
+
+	private static void encodeUser(DataOutputStream output, User user) throws IOException {
+		output.writeLong(user.getUserId().getMostSignificantBits());
+		output.writeLong(user.getUserId().getLeastSignificantBits());
+		writeString(output, user.getUserName());
+		writeString(output, user.getPhoneNumber());
+		writeString(output, user.getEmailAddress());
+		Date latestLocationTimestamp = user.getLatestLocationTimestamp();
+		output.writeLong(latestLocationTimestamp == null ? NO_TIMESTAMP : latestLocationTimestamp.getTime());
+
+		UserPreferences preferences = user.getUserPreferences();
+		output.writeInt(preferences.getAttractionProximity());
+		writeString(output, preferences.getCurrency().getCurrencyCode());
+		writeString(output, preferences.getLowerPricePoint().getNumberStripped().toPlainString());
+		writeString(output, preferences.getHighPricePoint().getNumberStripped().toPlainString());
+		output.writeInt(preferences.getTripDuration());
+		output.writeInt(preferences.getTicketQuantity());
+		output.writeInt(preferences.getNumberOfAdults());
+		output.writeInt(preferences.getNumberOfChildren());
+
+		// Columns are copied from one snapshot of the history, without creating the VisitedLocation objects
+		int watermark = user.getRewardsWatermark();
+		LocationHistory.Entries entries = user.getVisitedLocations().copyEntries();
+		int unprocessed = Math.max(0, Math.min(entries.size(), entries.getAppended() - watermark));
+		output.writeInt(entries.size());
+		output.writeInt(unprocessed);
+		for (double latitude : entries.getLatitudes()) {
+			output.writeDouble(latitude);
+		}
+		for (double longitude : entries.getLongitudes()) {
+			output.writeDouble(longitude);
+		}
+		for (long time : entries.getTimes()) {
+			output.writeLong(time);
+		}
+
+		List<UserReward> rewards = new ArrayList<>(user.getUserRewards());
+		output.writeInt(rewards.size());
+		for (UserReward reward : rewards) {
+			VisitedLocation visitedLocation = reward.getVisitedLocation();
+			output.writeDouble(visitedLocation.location.latitude);
+			output.writeDouble(visitedLocation.location.longitude);
+			output.writeLong(visitedLocation.timeVisited.getTime());
+			Attraction attraction = reward.getAttraction();
+			writeString(output, attraction.attractionName);
+			writeString(output, attraction.city);
+			writeString(output, attraction.state);
+			output.writeDouble(attraction.latitude);
+			output.writeDouble(attraction.longitude);
+			output.writeInt(reward.getRewardPoints());
+		}
+	}
+
+	private static User decodeUser(ByteBuffer input, Map<String, Money> prices) {
+		UUID userId = new UUID(input.getLong(), input.getLong());
+		User user = new User(userId, readString(input), readString(input), readString(input));
+		long latestLocationTimestamp = input.getLong();
+		if (latestLocationTimestamp != NO_TIMESTAMP) {
+			user.setLatestLocationTimestamp(new Date(latestLocationTimestamp));
+		}
+
+		UserPreferences preferences = user.getUserPreferences();
+		preferences.setAttractionProximity(input.getInt());
+		String currencyCode = readString(input);
+		Money lowerPricePoint = readPrice(input, currencyCode, prices);
+		Money highPricePoint = readPrice(input, currencyCode, prices);
+		preferences.setCurrency(lowerPricePoint.getCurrency());
+		preferences.setLowerPricePoint(lowerPricePoint);
+		preferences.setHighPricePoint(highPricePoint);
+		preferences.setTripDuration(input.getInt());
+		preferences.setTicketQuantity(input.getInt());
+		preferences.setNumberOfAdults(input.getInt());
+		preferences.setNumberOfChildren(input.getInt());
+
+		int size = input.getInt();
+		int unprocessed = input.getInt();
+		double[] latitudes = new double[size];
+		double[] longitudes = new double[size];
+		long[] times = new long[size];
+		input.asDoubleBuffer().get(latitudes);
+		input.position(input.position() + size * Double.BYTES);
+		input.asDoubleBuffer().get(longitudes);
+		input.position(input.position() + size * Double.BYTES);
+		input.asLongBuffer().get(times);
+		input.position(input.position() + size * Long.BYTES);
+		user.getVisitedLocations().addAll(userId, latitudes, longitudes, times, size);
+		user.restoreRewardsWatermark(size - unprocessed);
+
+		int rewardCount = input.getInt();
+		for (int i = 0; i < rewardCount; i++) {
+			VisitedLocation visitedLocation = new VisitedLocation(userId,
+					new Location(input.getDouble(), input.getDouble()), new Date(input.getLong()));
+			Attraction attraction = new Attraction(readString(input), readString(input), readString(input),
+					input.getDouble(), input.getDouble());
+			user.addUserReward(new UserReward(visitedLocation, attraction, input.getInt()));
+		}
+		return user;
+	}
+
+	private static Money readPrice(ByteBuffer input, String currencyCode, Map<String, Money> prices) {
+		String amount = readString(input);
+		return prices.computeIfAbsent(currencyCode + ' ' + amount,
+				key -> Money.of(new BigDecimal(amount), Monetary.getCurrency(currencyCode)));
+	}
+
+	private static void writeString(DataOutputStream output, String value) throws IOException {
+		byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF) {
+			throw new IllegalArgumentException("Snapshot strings are limited to 65535 bytes");
+		}
+		output.writeShort(bytes.length);
+		output.write(bytes);
+	}
+
+	private static String readString(ByteBuffer input) {
+		byte[] bytes = new byte[Short.toUnsignedInt(input.getShort())];
+		input.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,80 @@
+package tourGuide.snapshot;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.service.UserService;
+
+/**
+ * Periodic snapshots of the user store
+ *
+ * A snapshot is written on a fixed schedule and once more on shutdown, so the next startup only loads the snapshot
+ * and replays the events appended after it.
+ */
+@Slf4j
+@Component
+public class SnapshotScheduler {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserSnapshotStore snapshotStore = UserSnapshotStore.DISABLED;
+
+	@Value("${snapshot.intervalMinutes}")
+	private long intervalMinutes = 15;
+
+	private ScheduledExecutorService snapshotExecutor;
+
+	/**
+	 * Schedule the periodic snapshots, unless the snapshots are disabled
+	 */
+	@PostConstruct
+	public void startSnapshots() {
+		if (!snapshotStore.isEnabled()) {
+			return;
+		}
+		snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "user-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+		snapshotExecutor.scheduleWithFixedDelay(this::writeSnapshot, intervalMinutes, intervalMinutes,
+				TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Stop the periodic snapshots and write a last one
+	 */
+	@PreDestroy
+	public void stopSnapshots() {
+		if (snapshotExecutor == null) {
+			return;
+		}
+		snapshotExecutor.shutdown();
+		try {
+			snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writeSnapshot();
+	}
+
+	private void writeSnapshot() {
+		try {
+			userService.writeSnapshot();
+		} catch (IOException | RuntimeException e) {
+			log.debug("[Snapshot] Error while writing the user snapshot : {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package tourGuide.snapshot;
+
+import java.util.List;
+
+import lombok.Getter;
+import tourGuide.domain.User;
+
+/**
+ * Users read from a snapshot, along with the position of the event log when the snapshot was taken
+ */
+@Getter
+public class UserSnapshot {
+
+	private final List<User> users;
+
+	// Events from this position may be missing from the snapshot and have to be replayed
+	private final long eventLogPosition;
+
+	public UserSnapshot(List<User> users, long eventLogPosition) {
+		this.users = users;
+		this.eventLogPosition = eventLogPosition;
+	}
+}
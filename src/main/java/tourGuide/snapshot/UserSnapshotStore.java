@@ -0,0 +1,195 @@
+package tourGuide.snapshot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.User;
+
+/**
+ * Binary snapshot of the whole user store, in a single file
+ *
+ * file : header, chunk table, chunks
+ * header : magic number, format version, event log position, user count, chunk count, creation time
+ * chunk table : offset, length and CRC32C of each chunk
+ * chunk : up to CHUNK_USERS users, see SnapshotCodec
+ *
+ * Chunks are encoded in parallel and written to a temporary file which replaces the previous snapshot once synced,
+ * so a crash while writing keeps the previous snapshot. On load, the file is memory-mapped and the chunks are
+ * verified and decoded in parallel.
+ */
+@Slf4j
+public class UserSnapshotStore {
+
+	// Store used when snapshots are disabled : nothing is written and no snapshot is found
+	public static final UserSnapshotStore DISABLED = new UserSnapshotStore(null);
+
+	static final int MAGIC = 0x54475553;
+
+	static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES + Long.BYTES;
+
+	private static final int CHUNK_ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+	private static final int CHUNK_USERS = 4096;
+
+	private final Path file;
+
+	/**
+	 * @param file									Path : The snapshot file, null to disable the snapshots
+	 */
+	public UserSnapshotStore(Path file) {
+		this.file = file;
+	}
+
+	public boolean isEnabled() {
+		return file != null;
+	}
+
+	/**
+	 * Write a snapshot of the users, replacing the previous one
+	 *
+	 * @param users									Collection<User> : The users to save
+	 * @param eventLogPosition						Long : The number of events of the log already applied to the users
+	 * @throws IOException							Thrown if the snapshot cannot be written
+	 */
+	public synchronized void write(Collection<User> users, long eventLogPosition) throws IOException {
+		if (!isEnabled()) {
+			return;
+		}
+		long start = System.nanoTime();
+		List<User> userList = new ArrayList<>(users);
+		int chunkCount = (userList.size() + CHUNK_USERS - 1) / CHUNK_USERS;
+		List<byte[]> chunks;
+		try {
+			chunks = IntStream.range(0, chunkCount).parallel()
+					.mapToObj(i -> SnapshotCodec.encodeChunk(
+							userList.subList(i * CHUNK_USERS, Math.min(userList.size(), (i + 1) * CHUNK_USERS))))
+					.collect(Collectors.toList());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + chunkCount * CHUNK_ENTRY_BYTES);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putLong(eventLogPosition);
+		header.putInt(userList.size());
+		header.putInt(chunkCount);
+		header.putLong(System.currentTimeMillis());
+		long offset = header.capacity();
+		for (byte[] chunk : chunks) {
+			CRC32C crc = new CRC32C();
+			crc.update(chunk);
+			header.putLong(offset);
+			header.putInt(chunk.length);
+			header.putInt((int) crc.getValue());
+			offset += chunk.length;
+		}
+		header.flip();
+
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header);
+			for (byte[] chunk : chunks) {
+				writeFully(channel, ByteBuffer.wrap(chunk));
+			}
+			channel.force(true);
+		}
+		Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		log.debug("[Snapshot] Saved {} users ({} bytes) in {} ms.", userList.size(), offset,
+				(System.nanoTime() - start) / 1000000);
+	}
+
+	/**
+	 * Load the last snapshot
+	 *
+	 * @return										UserSnapshot : The users and the event log position, null if there is no snapshot
+	 * @throws IOException							Thrown if the snapshot cannot be read, is corrupted or has an unknown version
+	 */
+	public UserSnapshot read() throws IOException {
+		if (!isEnabled()) {
+			return null;
+		}
+		long start = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES) {
+				throw new IOException("Truncated snapshot " + file);
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			if (header.getInt() != MAGIC) {
+				throw new IOException("Not a user snapshot " + file);
+			}
+			int version = header.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported snapshot version " + version + " in " + file);
+			}
+			long eventLogPosition = header.getLong();
+			int userCount = header.getInt();
+			int chunkCount = header.getInt();
+
+			ByteBuffer chunkTable = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES,
+					(long) chunkCount * CHUNK_ENTRY_BYTES);
+			long[] offsets = new long[chunkCount];
+			int[] lengths = new int[chunkCount];
+			int[] checksums = new int[chunkCount];
+			for (int i = 0; i < chunkCount; i++) {
+				offsets[i] = chunkTable.getLong();
+				lengths[i] = chunkTable.getInt();
+				checksums[i] = chunkTable.getInt();
+				if (offsets[i] + lengths[i] > channel.size()) {
+					throw new IOException("Truncated snapshot " + file);
+				}
+			}
+
+			List<User> users = new ArrayList<>(userCount);
+			try {
+				IntStream.range(0, chunkCount).parallel()
+						.mapToObj(i -> readChunk(channel, offsets[i], lengths[i], checksums[i]))
+						.forEachOrdered(users::addAll);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			log.debug("[Snapshot] Loaded {} users in {} ms.", users.size(), (System.nanoTime() - start) / 1000000);
+			return new UserSnapshot(users, eventLogPosition);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	private List<User> readChunk(FileChannel channel, long offset, int length, int checksum) {
+		try {
+			ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+			CRC32C crc = new CRC32C();
+			crc.update(chunk.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				throw new IOException("Corrupted chunk at offset " + offset + " in " + file);
+			}
+			return SnapshotCodec.decodeChunk(chunk);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
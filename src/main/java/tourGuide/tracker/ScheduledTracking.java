@@ -0,0 +1,70 @@
+package tourGuide.tracker;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import tourGuide.domain.User;
+
+/**
+ * Entry of the tracking schedule : a user and the System.nanoTime() at which it is due
+ * An entry without user marks the time to look for newly registered users
+ *
+ * Idle users carry their backoff level and the number of due times they still skip before being tracked again.
+ */
+@Getter
+public class ScheduledTracking implements Delayed {
+
+	private final User user;
+
+	private final long dueTime;
+
+	private final int backoffLevel;
+
+	private final int skipsLeft;
+
+	public ScheduledTracking(User user, long dueTime) {
+		this(user, dueTime, 0, 0);
+	}
+
+	public ScheduledTracking(User user, long dueTime, int backoffLevel, int skipsLeft) {
+		this.user = user;
+		this.dueTime = dueTime;
+		this.backoffLevel = backoffLevel;
+		this.skipsLeft = skipsLeft;
+	}
+
+	/**
+	 * Get the entry following a skipped due time
+	 *
+	 * @param intervalNanos							Long : The polling interval
+	 * @return										ScheduledTracking : The same user, due one interval later
+	 */
+	public ScheduledTracking skip(long intervalNanos) {
+		return new ScheduledTracking(user, dueTime + intervalNanos, backoffLevel, skipsLeft - 1);
+	}
+
+	/**
+	 * Get the entry following a tracking
+	 *
+	 * @param intervalNanos							Long : The polling interval
+	 * @param newBackoffLevel						Integer : The user skips 2^level - 1 due times before its next tracking
+	 * @return										ScheduledTracking : The same user, due one interval later
+	 */
+	public ScheduledTracking next(long intervalNanos, int newBackoffLevel) {
+		return new ScheduledTracking(user, dueTime + intervalNanos, newBackoffLevel, (1 << newBackoffLevel) - 1);
+	}
+
+	@Override
+	public long getDelay(TimeUnit unit) {
+		return unit.convert(dueTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public int compareTo(Delayed other) {
+		if (other instanceof ScheduledTracking) {
+			return Long.compare(dueTime - ((ScheduledTracking) other).dueTime, 0);
+		}
+		return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+	}
+}
@@ -1,7 +1,8 @@
 package tourGuide.tracker;
 
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
@@ -10,12 +11,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import tourGuide.domain.User;
+import tourGuide.metrics.TrackerMetrics;
 import tourGuide.service.TourGuideService;
 import tourGuide.service.UserService;
+import tourGuide.shard.ShardManager;
 
 @Slf4j
 @Component
@@ -27,6 +33,9 @@ public class Tracker {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private ShardManager shardManager;
+
 	@Getter
 	@Value("${internal.liveTestMode.enabled}")
 	private boolean liveTestMode;
@@ -36,47 +45,77 @@ public class Tracker {
 	@Value("${internal.userNumber}")
 	private int internalUserNumber;
 
+	@Autowired
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	// Cycle duration, throughput, outcomes and location staleness of the trackings, built once the registry is injected
+	@Getter
+	private TrackerMetrics trackerMetrics;
+
 	/**
-	 * When tracker has been created, we check if the testMode is enabled
-	 * If test mode is enabled, we initialize internal users
+	 * When tracker has been created, we publish its metrics and check if the testMode is enabled
+	 * If test mode is enabled, we initialize internal users, unless users were recovered from the event log
 	 */
 	@PostConstruct
 	public void initializeTracker() {
-		if (isLiveTestMode()) {
+		trackerMetrics = new TrackerMetrics(meterRegistry);
+		if (isLiveTestMode() && userService.getAllUsers().isEmpty()) {
 			userService.initializeInternalUsers(internalUserNumber);
 		}
 	}
 
 	/**
-	 * This method starts the tracker.
+	 * Get every user that has to be tracked by this node : the users of the shards it owns (see ShardManager)
+	 *
+	 * @return										List<User> : The users to track
+	 */
+	public List<User> getUsers() {
+		return userService.getAllUsers().stream().filter(shardManager::isOwned).collect(Collectors.toList());
+	}
+
+	/**
+	 * Track a single user, errors are logged and complete the future exceptionally
+	 * The age of the previous location and the outcome of the tracking are recorded in the tracker metrics
+	 *
+	 * @param user									User : The user to track
+	 * @return										CompletableFuture : Completes when the location and rewards are computed
+	 */
+	public CompletableFuture<VisitedLocation> trackUser(User user) {
+		trackerMetrics.recordStaleness(user);
+		return tourGuideService.trackUserLocationAndRewards(user).whenComplete((visitedLocation, e) -> {
+			if (e != null) {
+				log.debug("[Tracker] There was an error while tracking user {}", user.getUserName());
+			}
+			trackerMetrics.recordTracking(e == null && visitedLocation != null);
+		});
+	}
+
+	/**
+	 * This method tracks every user of the node at once, it is used for full sweeps and performance tests.
+	 * The live tracker spreads users over the polling interval instead (see TrackerThread).
 	 *
-	 * To improve performances, the method uses parallel streams.
-	 * Parallel streams will split the list into N chunks where N is your number of cores.
-	 * To get equal response time, core are set to 10 (changeable in application.properties)
+	 * Every tracking is submitted right away, the number of gpsUtil calls in flight
+	 * is sized by the adaptive concurrency limiter of TourGuideService.
 	 *
-	 * The time taken is outputted in milliseconds.
+	 * The time taken is outputted in milliseconds, and recorded as a tracker cycle.
 	 */
 	public void startTracker() {
 		// Creating the StopWatch to analyze the performance results
 		StopWatch stopWatch = new StopWatch();
 
-		// Get the list of every users
-		List<User> users = userService.getAllUsers();
-		log.debug("[Tracker] Number of cores available : {}",
-				System.getProperty("java.util.concurrent.ForkJoinPool.common.parallelism"));
+		// Get the list of every users owned by this node
+		List<User> users = getUsers();
 		log.debug("[Tracker] Tracking {} users.", users.size());
 
 		// Track every user in the list and analyze the performance
 		stopWatch.start();
-		users.parallelStream().forEach(u -> {
-			try {
-				tourGuideService.trackUserLocation(u).get();
-			} catch (InterruptedException | ExecutionException e) {
-				log.debug("[Tracker] There was an error while tracking the users");
-				Thread.currentThread().interrupt();
-			}
-		});
+		CompletableFuture<?>[] trackings = users.stream().map(u -> trackUser(u).exceptionally(e -> {
+			log.debug("[Tracker] There was an error while tracking the users");
+			return null;
+		})).toArray(CompletableFuture<?>[]::new);
+		CompletableFuture.allOf(trackings).join();
 		stopWatch.stop();
+		trackerMetrics.recordCycle(users.size(), stopWatch.getNanoTime());
 
 		// Output performances and resetting the stop watch for further executions
 		log.debug("[Tracker] Tracking Over. Total Execution Time : {} ms", stopWatch.getTime());
@@ -3,6 +3,7 @@ package tourGuide.tracker;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
@@ -11,39 +12,48 @@ import lombok.extern.slf4j.Slf4j;
 @Component
 public class TrackerThread extends Thread {
 
-	private final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
-	private boolean exit = false;
+	@Value("${tracker.pollingIntervalMinutes}")
+	private long trackingPollingInterval = 5;
+
+	@Value("${tracker.maxInFlight}")
+	private int maxInFlight = 100;
+
+	@Value("${tracker.priority.activeWindowMinutes}")
+	private long activeWindowMinutes = 30;
+
+	@Value("${tracker.priority.movementMiles}")
+	private double movementMiles = 0.1;
+
+	@Value("${tracker.priority.maxBackoffLevel}")
+	private int maxBackoffLevel = 4;
 
 	@Autowired
 	private Tracker tracker;
 
 	/**
 	 * Runnable method of the thread.
-	 * The thread will be fetching user location every 5 minutes
+	 * Users are tracked continuously : each user location is fetched once every polling interval,
+	 * and users are spread evenly over the interval (see TrackingScheduler)
+	 * Idle users are tracked less often, down to once every 2^maxBackoffLevel intervals (see TrackingPolicy)
 	 */
 	@Override
 	public void run() {
-		while (!exit) {
-
-			if (Thread.currentThread().isInterrupted()) {
-				log.debug("[Tracker] Tracker stopped.");
-				break;
-			}
-
-			tracker.startTracker();
-
-			try {
-				log.debug("[Tracker] Tracker sleeping. Next run scheduled in {} minutes.",
-						trackingPollingInterval / 60);
-				TimeUnit.SECONDS.sleep(trackingPollingInterval);
-			} catch (InterruptedException e) {
-				break;
-			}
-
+		log.debug("[Tracker] Tracker started. Every user will be tracked every {} minutes.", trackingPollingInterval);
+
+		TrackingPolicy trackingPolicy = new TrackingPolicy(activeWindowMinutes, movementMiles, maxBackoffLevel);
+		TrackingScheduler scheduler = new TrackingScheduler(tracker::getUsers, tracker::trackUser,
+				TimeUnit.MINUTES.toNanos(trackingPollingInterval), maxInFlight, tracker.getTrackerMetrics(),
+				trackingPolicy);
+		try {
+			scheduler.run();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+
+		log.debug("[Tracker] Tracker stopped.");
 	}
 
 	public void stopTracking() {
-		exit = true;
+		interrupt();
 	}
 }
@@ -0,0 +1,66 @@
+package tourGuide.tracker;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import gpsUtil.location.VisitedLocation;
+import lombok.Getter;
+import tourGuide.catalog.DistanceQuery;
+import tourGuide.domain.User;
+
+/**
+ * Activity based tracking priorities
+ *
+ * Active and moving users are tracked every polling interval.
+ * Each tracking finding an idle user doubles the number of intervals before its next tracking,
+ * up to 2^maxBackoffLevel intervals. The backoff is reset as soon as the user is active or moving again.
+ */
+public class TrackingPolicy {
+
+	private final long activeWindowMillis;
+
+	private final double movementMiles;
+
+	@Getter
+	private final int maxBackoffLevel;
+
+	public TrackingPolicy(long activeWindowMinutes, double movementMiles, int maxBackoffLevel) {
+		if (maxBackoffLevel < 0 || maxBackoffLevel > 30) {
+			throw new IllegalArgumentException("The maximum backoff level must be between 0 and 30");
+		}
+		this.activeWindowMillis = TimeUnit.MINUTES.toMillis(activeWindowMinutes);
+		this.movementMiles = movementMiles;
+		this.maxBackoffLevel = maxBackoffLevel;
+	}
+
+	/**
+	 * Get the priority class of a user
+	 * A user with less than two locations is considered moving, its movement is not known yet
+	 *
+	 * @param user									User : The user to classify
+	 * @return										TrackingPriority : The priority class of the user
+	 */
+	public TrackingPriority getPriority(User user) {
+		if (System.currentTimeMillis() - user.getLastActivityTime() <= activeWindowMillis) {
+			return TrackingPriority.ACTIVE;
+		}
+
+		List<VisitedLocation> lastLocations = user.getRecentVisitedLocations(2);
+		if (lastLocations.size() < 2 || DistanceQuery.getExactDistance(lastLocations.get(0).location,
+				lastLocations.get(1).location) > movementMiles) {
+			return TrackingPriority.MOVING;
+		}
+		return TrackingPriority.IDLE;
+	}
+
+	/**
+	 * Get the backoff level following a tracking
+	 *
+	 * @param priority								TrackingPriority : The priority class of the tracked user
+	 * @param backoffLevel							Integer : The backoff level before the tracking
+	 * @return										Integer : The new level, the user waits 2^level intervals
+	 */
+	public int getNextBackoffLevel(TrackingPriority priority, int backoffLevel) {
+		return priority == TrackingPriority.IDLE ? Math.min(maxBackoffLevel, backoffLevel + 1) : 0;
+	}
+}
@@ -0,0 +1,12 @@
+package tourGuide.tracker;
+
+/**
+ * Priority class of a user for the tracker
+ *
+ * - ACTIVE : the user made a request recently, tracked every polling interval
+ * - MOVING : the last two locations of the user are apart, tracked every polling interval
+ * - IDLE : neither active nor moving, the user is tracked less and less often (see TrackingPolicy)
+ */
+public enum TrackingPriority {
+	ACTIVE, MOVING, IDLE
+}
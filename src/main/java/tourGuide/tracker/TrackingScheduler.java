@@ -0,0 +1,180 @@
+package tourGuide.tracker;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.User;
+import tourGuide.metrics.TrackerMetrics;
+
+/**
+ * Continuous tracking scheduler
+ *
+ * Instead of tracking every user at once and sleeping, each user has its own due time in a delay queue.
+ * Users are spread evenly over the polling interval, and each tracking schedules the next one an interval later.
+ * The load on gpsUtil stays flat and no user location is older than the interval (unless upstream falls behind).
+ *
+ * Each interval is recorded as a tracker cycle : a cycle lasting longer than the interval means upstream falls behind.
+ *
+ * The users are read again at every interval : new users are spread over the next interval,
+ * and users no longer supplied (e.g. moved to another node by a shard rebalance) leave the schedule when due.
+ *
+ * With a tracking policy, every user is still checked once per interval, but idle users skip their due time
+ * until their backoff is over. A user becoming active or moving is tracked at its next due time.
+ */
+@Slf4j
+public class TrackingScheduler {
+
+	private final Supplier<List<User>> usersSupplier;
+
+	private final Function<User, CompletableFuture<?>> trackingTask;
+
+	private final long intervalNanos;
+
+	// Bounds the number of trackings waiting for gpsUtil, the schedule slows down instead of queuing without limit
+	private final Semaphore inFlight;
+
+	private final DelayQueue<ScheduledTracking> queue = new DelayQueue<>();
+
+	private final Set<UUID> scheduledUsers = ConcurrentHashMap.newKeySet();
+
+	// Ids of the users returned by the last read of the supplier
+	private Set<UUID> suppliedUsers = new HashSet<>();
+
+	// Null when cycles are not recorded
+	private final TrackerMetrics trackerMetrics;
+
+	// Null when every user is tracked every interval
+	private final TrackingPolicy trackingPolicy;
+
+	private final AtomicInteger cycleTrackings = new AtomicInteger();
+
+	private long cycleStart;
+
+	public TrackingScheduler(Supplier<List<User>> usersSupplier, Function<User, CompletableFuture<?>> trackingTask,
+			long intervalNanos, int maxInFlight) {
+		this(usersSupplier, trackingTask, intervalNanos, maxInFlight, null, null);
+	}
+
+	public TrackingScheduler(Supplier<List<User>> usersSupplier, Function<User, CompletableFuture<?>> trackingTask,
+			long intervalNanos, int maxInFlight, TrackerMetrics trackerMetrics, TrackingPolicy trackingPolicy) {
+		this.usersSupplier = usersSupplier;
+		this.trackingTask = trackingTask;
+		this.intervalNanos = intervalNanos;
+		this.inFlight = new Semaphore(maxInFlight);
+		this.trackerMetrics = trackerMetrics;
+		this.trackingPolicy = trackingPolicy;
+	}
+
+	/**
+	 * Run the schedule until the current thread is interrupted
+	 *
+	 * @throws InterruptedException					Thrown when the thread is interrupted while waiting
+	 */
+	public void run() throws InterruptedException {
+		cycleStart = System.nanoTime();
+		scheduleNewUsers(cycleStart);
+
+		while (!Thread.currentThread().isInterrupted()) {
+			ScheduledTracking next = queue.take();
+
+			if (next.getUser() == null) {
+				recordCycle();
+				scheduleNewUsers(next.getDueTime());
+				continue;
+			}
+
+			if (!suppliedUsers.contains(next.getUser().getUserId())) {
+				scheduledUsers.remove(next.getUser().getUserId());
+				continue;
+			}
+
+			// The next due time is based on the previous one so users keep their slot in the interval
+			queue.put(trackOrSkip(next));
+		}
+	}
+
+	private ScheduledTracking trackOrSkip(ScheduledTracking entry) throws InterruptedException {
+		if (trackingPolicy == null) {
+			inFlight.acquire();
+			track(entry.getUser());
+			return entry.next(intervalNanos, 0);
+		}
+
+		TrackingPriority priority = trackingPolicy.getPriority(entry.getUser());
+		boolean skipped = priority == TrackingPriority.IDLE && entry.getSkipsLeft() > 0;
+		if (trackerMetrics != null) {
+			trackerMetrics.recordPriority(priority, skipped);
+		}
+		if (skipped) {
+			return entry.skip(intervalNanos);
+		}
+
+		inFlight.acquire();
+		track(entry.getUser());
+		return entry.next(intervalNanos, trackingPolicy.getNextBackoffLevel(priority, entry.getBackoffLevel()));
+	}
+
+	private void track(User user) {
+		try {
+			trackingTask.apply(user).whenComplete((result, e) -> {
+				cycleTrackings.incrementAndGet();
+				inFlight.release();
+			});
+		} catch (RuntimeException e) {
+			inFlight.release();
+			log.debug("[Tracker] Error while tracking user {} : {}", user.getUserName(), e.getMessage());
+		}
+	}
+
+	private void recordCycle() {
+		long now = System.nanoTime();
+		if (trackerMetrics != null) {
+			trackerMetrics.recordCycle(cycleTrackings.getAndSet(0), now - cycleStart);
+		}
+		cycleStart = now;
+	}
+
+	/**
+	 * Spread users not scheduled yet over the next interval, then plan the next check for new users
+	 *
+	 * @param startTime								Long : The System.nanoTime() of the beginning of the interval
+	 */
+	private void scheduleNewUsers(long startTime) {
+		List<User> newUsers = new ArrayList<>();
+		Set<UUID> users = new HashSet<>();
+		for (User user : usersSupplier.get()) {
+			users.add(user.getUserId());
+			if (scheduledUsers.add(user.getUserId())) {
+				newUsers.add(user);
+			}
+		}
+		suppliedUsers = users;
+
+		for (int i = 0; i < newUsers.size(); i++) {
+			queue.put(new ScheduledTracking(newUsers.get(i), startTime + i * intervalNanos / newUsers.size()));
+		}
+		queue.put(new ScheduledTracking(null, startTime + intervalNanos));
+
+		log.debug("[Tracker] {} users tracked, {} new users scheduled.", scheduledUsers.size(), newUsers.size());
+	}
+
+	/**
+	 * Get the number of users in the schedule
+	 *
+	 * @return										Integer : The number of scheduled users
+	 */
+	public int getScheduledUsersCount() {
+		return scheduledUsers.size();
+	}
+}
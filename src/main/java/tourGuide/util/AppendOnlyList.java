@@ -0,0 +1,156 @@
+package tourGuide.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * List shared between threads where elements are only ever appended
+ *
+ * Reads are lock-free : the elements and the size are published together in an immutable snapshot, so a reader
+ * always sees a consistent prefix of the list. Iterators and streams walk the snapshot taken when they are created,
+ * so they never throw a ConcurrentModificationException.
+ * Appends take the monitor of the list, which only serializes the writers of this list (usually one user).
+ * Elements cannot be replaced or removed, clear() starts a new empty list.
+ *
+ * @param <E>									The type of the elements
+ */
+public class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private static final Object[] EMPTY = new Object[0];
+
+	// Elements at index >= size may be written by an append in progress, readers never look at them
+	private static final class Snapshot {
+
+		private final Object[] elements;
+
+		private final int size;
+
+		private Snapshot(Object[] elements, int size) {
+			this.elements = elements;
+			this.size = size;
+		}
+	}
+
+	private volatile Snapshot snapshot = new Snapshot(EMPTY, 0);
+
+	public AppendOnlyList() {
+	}
+
+	public AppendOnlyList(Collection<? extends E> elements) {
+		addAll(elements);
+	}
+
+	@Override
+	public E get(int index) {
+		Snapshot current = snapshot;
+		if (index < 0 || index >= current.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size);
+		}
+		return elementAt(current, index);
+	}
+
+	@Override
+	public int size() {
+		return snapshot.size;
+	}
+
+	@Override
+	public synchronized boolean add(E element) {
+		Snapshot current = snapshot;
+		Object[] elements = ensureCapacity(current, 1);
+		elements[current.size] = element;
+		snapshot = new Snapshot(elements, current.size + 1);
+		return true;
+	}
+
+	@Override
+	public synchronized boolean addAll(Collection<? extends E> collection) {
+		Object[] added = collection.toArray();
+		if (added.length == 0) {
+			return false;
+		}
+		Snapshot current = snapshot;
+		Object[] elements = ensureCapacity(current, added.length);
+		System.arraycopy(added, 0, elements, current.size, added.length);
+		snapshot = new Snapshot(elements, current.size + added.length);
+		return true;
+	}
+
+	@Override
+	public synchronized void clear() {
+		snapshot = new Snapshot(EMPTY, 0);
+	}
+
+	/**
+	 * Get the last element of the list
+	 *
+	 * @return										E : The last element
+	 * @throws IndexOutOfBoundsException			Thrown if the list is empty
+	 */
+	public E getLast() {
+		Snapshot current = snapshot;
+		if (current.size == 0) {
+			throw new IndexOutOfBoundsException("The list is empty");
+		}
+		return elementAt(current, current.size - 1);
+	}
+
+	/**
+	 * Get a copy of the elements between two indexes, taken from a single snapshot of the list
+	 *
+	 * @param fromIndex								Integer : The first index, inclusive, clamped to the size
+	 * @param toIndex								Integer : The last index, exclusive, clamped to the size
+	 * @return										List<E> : The elements, empty if the range is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public List<E> copyOfRange(int fromIndex, int toIndex) {
+		Snapshot current = snapshot;
+		int to = Math.min(toIndex, current.size);
+		int from = Math.max(0, Math.min(fromIndex, to));
+		return (List<E>) Arrays.asList(Arrays.copyOfRange(current.elements, from, to));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<E> iterator() {
+		Snapshot current = snapshot;
+		return (Iterator<E>) Collections.unmodifiableList(Arrays.asList(current.elements).subList(0, current.size))
+				.iterator();
+	}
+
+	@Override
+	public Spliterator<E> spliterator() {
+		Snapshot current = snapshot;
+		return Spliterators.spliterator(current.elements, 0, current.size, Spliterator.ORDERED);
+	}
+
+	@Override
+	public Object[] toArray() {
+		Snapshot current = snapshot;
+		return Arrays.copyOf(current.elements, current.size);
+	}
+
+	@SuppressWarnings("unchecked")
+	private E elementAt(Snapshot current, int index) {
+		return (E) current.elements[index];
+	}
+
+	// Grow by half when full, the previous array stays valid for the readers of the previous snapshot
+	private static Object[] ensureCapacity(Snapshot current, int added) {
+		int required = current.size + added;
+		if (required <= current.elements.length) {
+			return current.elements;
+		}
+		int capacity = Math.max(required, Math.max(DEFAULT_CAPACITY, current.elements.length + (current.elements.length >> 1)));
+		return Arrays.copyOf(current.elements, capacity);
+	}
+}
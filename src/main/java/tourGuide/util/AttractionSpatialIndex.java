@@ -0,0 +1,139 @@
+package tourGuide.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+/**
+ * Uniform latitude / longitude grid over the attraction catalog.
+ *
+ * The index is built once from a list of attractions and answers "which attractions may be within N miles
+ * of this location" by only visiting the grid cells overlapping the search area.
+ * Returned attractions are candidates : callers still have to check the exact distance.
+ */
+public class AttractionSpatialIndex {
+
+	// One degree of arc on a great circle is 60 nautical miles, expressed here in statute miles
+	public static final double STATUTE_MILES_PER_DEGREE = 60 * 1.15077945;
+
+	// Default cell size in degrees (roughly 69 miles in latitude)
+	public static final double DEFAULT_CELL_SIZE = 1.0;
+
+	// Margin added to the search area to absorb floating point errors on the boundaries
+	private static final double EPSILON_DEGREES = 1e-9;
+
+	private final double cellSize;
+
+	private final int columns;
+
+	private final List<Attraction> attractions;
+
+	private final Map<Long, List<Attraction>> cells = new HashMap<>();
+
+	public AttractionSpatialIndex(List<Attraction> attractions) {
+		this(attractions, DEFAULT_CELL_SIZE);
+	}
+
+	public AttractionSpatialIndex(List<Attraction> attractions, double cellSize) {
+		if (cellSize <= 0 || cellSize > 180) {
+			throw new IllegalArgumentException("Cell size must be between 0 and 180 degrees");
+		}
+		this.cellSize = cellSize;
+		this.columns = (int) Math.ceil(360 / cellSize);
+		this.attractions = Collections.unmodifiableList(new ArrayList<>(attractions));
+
+		for (Attraction attraction : this.attractions) {
+			long key = cellKey(row(attraction.latitude), column(attraction.longitude));
+			cells.computeIfAbsent(key, k -> new ArrayList<>()).add(attraction);
+		}
+	}
+
+	/**
+	 * Get the size of a grid cell
+	 *
+	 * @return										Double : The cell size in degrees
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Get every indexed attraction
+	 *
+	 * @return										List<Attraction> : An unmodifiable list of the indexed attractions
+	 */
+	public List<Attraction> getAttractions() {
+		return attractions;
+	}
+
+	/**
+	 * Get the attractions that may be within a given distance of a location
+	 * The result is a superset of the attractions actually in range, it never misses one
+	 *
+	 * @param location								Location : The center of the search area
+	 * @param radius								Double : The search radius in miles
+	 * @return										List<Attraction> : The candidate attractions
+	 */
+	public List<Attraction> getCandidates(Location location, double radius) {
+
+		if (radius < 0) {
+			return Collections.emptyList();
+		}
+
+		double angularRadius = radius / STATUTE_MILES_PER_DEGREE + EPSILON_DEGREES;
+		double minLatitude = location.latitude - angularRadius;
+		double maxLatitude = location.latitude + angularRadius;
+
+		// The search area covers a pole or most of the globe, every cell has to be checked
+		if (angularRadius >= 90 || minLatitude <= -90 || maxLatitude >= 90) {
+			return attractions;
+		}
+
+		// Widest longitude gap reachable within the angular radius at this latitude
+		double longitudeDelta = Math.toDegrees(Math.asin(
+				Math.min(1, Math.sin(Math.toRadians(angularRadius)) / Math.cos(Math.toRadians(location.latitude)))))
+				+ EPSILON_DEGREES;
+		if (longitudeDelta >= 180) {
+			return attractions;
+		}
+
+		int firstRow = row(minLatitude);
+		int lastRow = row(maxLatitude);
+		int firstColumn = (int) Math.floor((location.longitude - longitudeDelta + 180) / cellSize);
+		int lastColumn = (int) Math.floor((location.longitude + longitudeDelta + 180) / cellSize);
+		int columnSpan = Math.min(columns, lastColumn - firstColumn + 1);
+
+		// Scanning the occupied cells is cheaper than walking a wide empty area
+		if ((long) (lastRow - firstRow + 1) * columnSpan > cells.size()) {
+			return attractions;
+		}
+
+		List<Attraction> candidates = new ArrayList<>();
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int i = 0; i < columnSpan; i++) {
+				List<Attraction> cell = cells.get(cellKey(row, Math.floorMod(firstColumn + i, columns)));
+				if (cell != null) {
+					candidates.addAll(cell);
+				}
+			}
+		}
+		return candidates;
+	}
+
+	private int row(double latitude) {
+		return (int) Math.floor((latitude + 90) / cellSize);
+	}
+
+	private int column(double longitude) {
+		return Math.floorMod((int) Math.floor((longitude + 180) / cellSize), columns);
+	}
+
+	private long cellKey(int row, int column) {
+		return (long) row * columns + column;
+	}
+}
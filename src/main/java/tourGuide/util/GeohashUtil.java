@@ -0,0 +1,76 @@
+package tourGuide.util;
+
+import lombok.NoArgsConstructor;
+
+/**
+ * Geohash cells : the world is split by alternately halving the longitude and latitude ranges,
+ * each character of the hash adds 5 bits, so nearby locations share a prefix.
+ *
+ * Precision 5 is a cell of about 4.9 km x 4.9 km, precision 6 about 1.2 km x 0.6 km, precision 7 about 150 m.
+ */
+@NoArgsConstructor
+public class GeohashUtil {
+
+	public static final int MAX_PRECISION = 12;
+
+	private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+	/**
+	 * Get the geohash cell of a location as a number, cheaper than the string to compare and hash
+	 * Cells of different precisions may share the same number
+	 *
+	 * @param latitude								Double : The latitude of the location
+	 * @param longitude								Double : The longitude of the location
+	 * @param precision								Integer : The number of geohash characters, between 1 and 12
+	 * @return										Long : The 5 * precision bits of the cell
+	 */
+	public static long cell(double latitude, double longitude, int precision) {
+		if (precision < 1 || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("The geohash precision must be between 1 and " + MAX_PRECISION);
+		}
+		double minLatitude = -90;
+		double maxLatitude = 90;
+		double minLongitude = -180;
+		double maxLongitude = 180;
+		long cell = 0;
+		for (int bit = 0; bit < 5 * precision; bit++) {
+			cell <<= 1;
+			if (bit % 2 == 0) {
+				double middle = (minLongitude + maxLongitude) / 2;
+				if (longitude >= middle) {
+					cell |= 1;
+					minLongitude = middle;
+				} else {
+					maxLongitude = middle;
+				}
+			} else {
+				double middle = (minLatitude + maxLatitude) / 2;
+				if (latitude >= middle) {
+					cell |= 1;
+					minLatitude = middle;
+				} else {
+					maxLatitude = middle;
+				}
+			}
+		}
+		return cell;
+	}
+
+	/**
+	 * Get the geohash of a location
+	 *
+	 * @param latitude								Double : The latitude of the location
+	 * @param longitude								Double : The longitude of the location
+	 * @param precision								Integer : The number of geohash characters, between 1 and 12
+	 * @return										String : The geohash of the location
+	 */
+	public static String encode(double latitude, double longitude, int precision) {
+		long cell = cell(latitude, longitude, precision);
+		char[] hash = new char[precision];
+		for (int i = precision - 1; i >= 0; i--) {
+			hash[i] = BASE32[(int) (cell & 31)];
+			cell >>>= 5;
+		}
+		return new String(hash);
+	}
+}
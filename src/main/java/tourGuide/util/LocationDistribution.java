@@ -0,0 +1,61 @@
+package tourGuide.util;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import gpsUtil.location.Location;
+
+/**
+ * How the locations of the generated internal users are spread over the globe
+ */
+public enum LocationDistribution {
+
+	// Anywhere on the map, with the latitudes of the Web Mercator projection
+	UNIFORM {
+		@Override
+		void nextLocation(SplittableRandom random, Location home, double radiusMiles, double[] location) {
+			location[0] = random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE);
+			location[1] = random.nextDouble(-180, 180);
+		}
+	},
+
+	// Within a radius of a home location picked among the cluster centers (the attractions)
+	CLUSTERED {
+		@Override
+		void nextLocation(SplittableRandom random, Location home, double radiusMiles, double[] location) {
+			if (home == null) {
+				UNIFORM.nextLocation(random, null, radiusMiles, location);
+				return;
+			}
+			// Uniform over the disc : the distance grows with the square root of a uniform value
+			double distance = radiusMiles * Math.sqrt(random.nextDouble()) / AttractionSpatialIndex.STATUTE_MILES_PER_DEGREE;
+			double bearing = random.nextDouble(2 * Math.PI);
+			double latitude = home.latitude + distance * Math.cos(bearing);
+			double longitude = home.longitude
+					+ distance * Math.sin(bearing) / Math.max(0.01, Math.cos(Math.toRadians(home.latitude)));
+			location[0] = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+			location[1] = ((longitude + 540) % 360) - 180;
+		}
+	};
+
+	static final double MAX_LATITUDE = 85.05112878;
+
+	/**
+	 * Pick the home location of a user, null when the distribution does not use one
+	 *
+	 * @param random								SplittableRandom : The generator of the user
+	 * @param clusterCenters						List<Location> : The locations users are clustered around
+	 * @return										Location : The home location of the user
+	 */
+	Location nextHome(SplittableRandom random, List<? extends Location> clusterCenters) {
+		if (this == UNIFORM || clusterCenters.isEmpty()) {
+			return null;
+		}
+		return clusterCenters.get(random.nextInt(clusterCenters.size()));
+	}
+
+	/**
+	 * Draw a location, written as [latitude, longitude] to avoid an allocation per location
+	 */
+	abstract void nextLocation(SplittableRandom random, Location home, double radiusMiles, double[] location);
+}
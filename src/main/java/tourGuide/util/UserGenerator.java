@@ -0,0 +1,104 @@
+package tourGuide.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import gpsUtil.location.Location;
+import tourGuide.domain.User;
+
+/**
+ * Seeded generator of internal users, for the live test mode and the load tests
+ *
+ * Users are generated in parallel by chunks, each chunk drawing from its own SplittableRandom split from the seed
+ * in chunk order. The same seed and settings always give the same users (ids, names and locations) whatever the
+ * number of threads, so the runs of a benchmark can be compared. Visit times are drawn relative to the reference
+ * time, usually the time of the generation.
+ */
+public class UserGenerator {
+
+	public static final long DEFAULT_SEED = 42;
+
+	// Visit times are drawn within this many days before the reference time
+	static final int HISTORY_DAYS = 30;
+
+	private static final int CHUNK_USERS = 1024;
+
+	private final long seed;
+
+	private final int historyLength;
+
+	private final LocationDistribution distribution;
+
+	private final double clusterRadiusMiles;
+
+	private final List<? extends Location> clusterCenters;
+
+	/**
+	 * @param seed									Long : The seed of the generation
+	 * @param historyLength							Integer : The number of visited locations of each user
+	 * @param distribution							LocationDistribution : How the locations are spread
+	 * @param clusterRadiusMiles					Double : The radius of the clusters, for the clustered distribution
+	 * @param clusterCenters						List<Location> : The locations users are clustered around
+	 */
+	public UserGenerator(long seed, int historyLength, LocationDistribution distribution, double clusterRadiusMiles,
+			List<? extends Location> clusterCenters) {
+		this.seed = seed;
+		this.historyLength = historyLength;
+		this.distribution = distribution;
+		this.clusterRadiusMiles = clusterRadiusMiles;
+		this.clusterCenters = clusterCenters;
+	}
+
+	/**
+	 * Generate the internal users internalUser0 to internalUser{count - 1}
+	 *
+	 * @param count									Integer : The number of users to generate
+	 * @param referenceTime							Long : The time the visit times are relative to, in milliseconds since epoch
+	 * @return										List<User> : The users, in name order
+	 */
+	public List<User> generate(int count, long referenceTime) {
+		int chunkCount = (count + CHUNK_USERS - 1) / CHUNK_USERS;
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] chunkRandoms = new SplittableRandom[chunkCount];
+		for (int i = 0; i < chunkCount; i++) {
+			chunkRandoms[i] = root.split();
+		}
+		return IntStream.range(0, chunkCount).parallel().boxed()
+				.flatMap(chunk -> IntStream.range(chunk * CHUNK_USERS, Math.min(count, (chunk + 1) * CHUNK_USERS))
+						.mapToObj(i -> generateUser(i, chunkRandoms[chunk], referenceTime)))
+				.collect(Collectors.toList());
+	}
+
+	private User generateUser(int index, SplittableRandom random, long referenceTime) {
+		String userName = "internalUser" + index;
+		User user = new User(nextUuid(random), userName, "000", userName + "@tourGuide.com");
+
+		Location home = distribution.nextHome(random, clusterCenters);
+		double[] latitudes = new double[historyLength];
+		double[] longitudes = new double[historyLength];
+		long[] times = new long[historyLength];
+		double[] location = new double[2];
+		for (int i = 0; i < historyLength; i++) {
+			distribution.nextLocation(random, home, clusterRadiusMiles, location);
+			latitudes[i] = location[0];
+			longitudes[i] = location[1];
+			times[i] = referenceTime - random.nextLong(TimeUnit.DAYS.toMillis(HISTORY_DAYS));
+		}
+		// Histories are ordered by visit time, the locations being independent their order does not matter
+		Arrays.sort(times);
+		user.getVisitedLocations().addAll(user.getUserId(), latitudes, longitudes, times, historyLength);
+		return user;
+	}
+
+	// Random (version 4) UUID drawn from the seeded generator instead of the shared SecureRandom
+	private static UUID nextUuid(SplittableRandom random) {
+		long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+		long leastSignificantBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+		return new UUID(mostSignificantBits, leastSignificantBits);
+	}
+}
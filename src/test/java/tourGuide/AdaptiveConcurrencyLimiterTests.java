@@ -0,0 +1,183 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import tourGuide.concurrency.AdaptiveConcurrencyLimiter;
+
+public class AdaptiveConcurrencyLimiterTests {
+
+	private AtomicInteger running = new AtomicInteger();
+
+	private AtomicInteger maxRunning = new AtomicInteger();
+
+	private int upstreamCall(long latencyMillis) {
+		maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+		try {
+			TimeUnit.MILLISECONDS.sleep(latencyMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			running.decrementAndGet();
+		}
+		return 1;
+	}
+
+	private void runCalls(AdaptiveConcurrencyLimiter limiter, int calls, long latencyMillis)
+			throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(50);
+		for (int i = 0; i < calls; i++) {
+			executorService.execute(() -> limiter.call(() -> upstreamCall(latencyMillis)));
+		}
+		executorService.shutdown();
+		executorService.awaitTermination(1, TimeUnit.MINUTES);
+	}
+
+	@Test
+	public void call_ShouldIncrease_LimitWhenLatencyIsStable() throws InterruptedException {
+
+		// ARRANGE
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 40);
+
+		// ACT
+		runCalls(limiter, 500, 5);
+
+		// ASSERT
+		assertThat(limiter.getLimit()).isGreaterThan(2);
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(40);
+	}
+
+	@Test
+	public void call_ShouldDecrease_LimitWhenLatencyDegrades() throws InterruptedException {
+
+		// ARRANGE
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 40);
+		runCalls(limiter, 500, 2);
+		int stableLimit = limiter.getLimit();
+
+		// ACT
+		runCalls(limiter, 100, 50);
+
+		// ASSERT
+		assertThat(limiter.getLimit()).isLessThan(stableLimit);
+		assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(2);
+	}
+
+	@Test
+	public void call_ShouldNotExceed_Limit() throws InterruptedException {
+
+		// ARRANGE
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 3, 3);
+
+		// ACT
+		runCalls(limiter, 100, 2);
+
+		// ASSERT
+		assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setLimits_ShouldThrow_WhenFloorIsAboveCeiling() {
+
+		// ACT
+		new AdaptiveConcurrencyLimiter("test", 10, 5);
+	}
+
+	@Test
+	public void call_ShouldRun_PriorityCallsFirst() throws InterruptedException {
+
+		// ARRANGE
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1);
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		ExecutorService executorService = Executors.newFixedThreadPool(10);
+		executorService.execute(() -> limiter.call(() -> {
+			holding.countDown();
+			try {
+				return release.await(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}));
+		// The only slot is taken before the other calls start waiting
+		holding.await(1, TimeUnit.MINUTES);
+		for (int i = 0; i < 5; i++) {
+			executorService.execute(() -> limiter.call(() -> order.add("batch")));
+		}
+		TimeUnit.MILLISECONDS.sleep(200);
+		executorService.execute(() -> limiter.call(() -> order.add("request"), true));
+		TimeUnit.MILLISECONDS.sleep(200);
+
+		// ACT
+		release.countDown();
+		executorService.shutdown();
+		executorService.awaitTermination(1, TimeUnit.MINUTES);
+
+		// ASSERT
+		assertThat(order).hasSize(6);
+		assertThat(order.get(0)).isEqualTo("request");
+	}
+
+	@Test
+	public void call_ShouldThrow_WhenInterruptedWhileWaiting() throws Exception {
+
+		// ARRANGE
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1);
+		CountDownLatch holding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		executorService.execute(() -> limiter.call(() -> {
+			holding.countDown();
+			try {
+				return release.await(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}));
+		holding.await(1, TimeUnit.MINUTES);
+		AtomicReference<Throwable> thrown = new AtomicReference<>();
+		AtomicBoolean interruptKept = new AtomicBoolean();
+		Thread waiter = new Thread(() -> {
+			try {
+				limiter.call(() -> 1, true);
+			} catch (CompletionException e) {
+				thrown.set(e);
+				interruptKept.set(Thread.currentThread().isInterrupted());
+			}
+		});
+		waiter.start();
+		TimeUnit.MILLISECONDS.sleep(200);
+
+		// ACT
+		waiter.interrupt();
+		waiter.join(TimeUnit.MINUTES.toMillis(1));
+		release.countDown();
+		executorService.shutdown();
+		executorService.awaitTermination(1, TimeUnit.MINUTES);
+
+		// ASSERT
+		assertThat(thrown.get()).hasCauseInstanceOf(InterruptedException.class);
+		assertThat(interruptKept).isTrue();
+		assertThat(limiter.getInFlight()).isZero();
+		// The abandoned priority call no longer holds back the other calls
+		assertThat(CompletableFuture.supplyAsync(() -> limiter.call(() -> 1)).get(1, TimeUnit.MINUTES)).isEqualTo(1);
+	}
+}
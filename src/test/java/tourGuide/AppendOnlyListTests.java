@@ -0,0 +1,85 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import tourGuide.util.AppendOnlyList;
+
+public class AppendOnlyListTests {
+
+	@Test
+	public void add_ShouldKeep_EveryElementAppendedConcurrently() {
+
+		// ARRANGE
+		AppendOnlyList<Integer> list = new AppendOnlyList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		// ACT
+		List<CompletableFuture<Void>> writers = IntStream.range(0, 8)
+				.mapToObj(writer -> CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < 10000; i++) {
+						list.add(writer * 10000 + i);
+					}
+				}, executor)).collect(Collectors.toList());
+		// Readers walk the list while it grows
+		while (!writers.stream().allMatch(CompletableFuture::isDone)) {
+			int size = 0;
+			for (Integer element : list) {
+				assertThat(element).isNotNull();
+				size++;
+			}
+			assertThat(size).isLessThanOrEqualTo(list.size());
+		}
+		executor.shutdown();
+
+		// ASSERT
+		assertThat(list).hasSize(80000);
+		assertThat(list.stream().distinct().count()).isEqualTo(80000);
+	}
+
+	@Test
+	public void iterator_ShouldWalk_SnapshotTakenAtCreation() {
+
+		// ARRANGE
+		AppendOnlyList<String> list = new AppendOnlyList<>(Arrays.asList("a", "b"));
+		Iterator<String> iterator = list.iterator();
+
+		// ACT
+		list.add("c");
+		List<String> iterated = new ArrayList<>();
+		iterator.forEachRemaining(iterated::add);
+
+		// ASSERT
+		assertThat(iterated).containsExactly("a", "b");
+		assertThat(list).containsExactly("a", "b", "c");
+	}
+
+	@Test
+	public void copyOfRange_ShouldClamp_IndexesToTheSize() {
+
+		// ARRANGE
+		AppendOnlyList<String> list = new AppendOnlyList<>(Arrays.asList("a", "b", "c"));
+
+		// ACT
+		List<String> lastTwo = list.copyOfRange(list.size() - 2, list.size());
+		List<String> beyondSize = list.copyOfRange(-5, 10);
+		list.clear();
+
+		// ASSERT
+		assertThat(lastTwo).containsExactly("b", "c");
+		assertThat(beyondSize).containsExactly("a", "b", "c");
+		assertThat(list).isEmpty();
+	}
+
+}
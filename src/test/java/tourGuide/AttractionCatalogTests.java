@@ -0,0 +1,75 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import gpsUtil.GpsUtil;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.AttractionSnapshot;
+import tourGuide.catalog.CatalogAttraction;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AttractionCatalogTests {
+
+	@Spy
+	private GpsUtil gpsUtilSpy = new GpsUtil();
+
+	@Test
+	public void getSnapshot_ShouldCall_GpsUtilOnce() {
+
+		// ARRANGE
+		AttractionCatalog attractionCatalog = new AttractionCatalog(gpsUtilSpy);
+
+		// ACT
+		attractionCatalog.getSnapshot();
+		attractionCatalog.getAttractions();
+		AttractionSnapshot snapshot = attractionCatalog.getSnapshot();
+
+		// ASSERT
+		assertThat(snapshot.getVersion()).isEqualTo(1);
+		verify(gpsUtilSpy, times(1)).getAttractions();
+	}
+
+	@Test
+	public void refresh_ShouldKeep_AttractionOrdinals() {
+
+		// ARRANGE
+		AttractionCatalog attractionCatalog = new AttractionCatalog(gpsUtilSpy);
+		AttractionSnapshot firstSnapshot = attractionCatalog.getSnapshot();
+
+		// ACT
+		AttractionSnapshot secondSnapshot = attractionCatalog.refresh();
+
+		// ASSERT
+		assertThat(secondSnapshot.getVersion()).isEqualTo(2);
+		for (int i = 0; i < firstSnapshot.size(); i++) {
+			CatalogAttraction first = firstSnapshot.getCatalogAttractions().get(i);
+			CatalogAttraction second = secondSnapshot.getCatalogAttractions().get(i);
+			assertThat(second.getAttraction().attractionName).isEqualTo(first.getAttraction().attractionName);
+			assertThat(second.getOrdinal()).isEqualTo(first.getOrdinal());
+		}
+	}
+
+	@Test
+	public void getCatalogAttraction_ShouldReturn_PrecomputedTrigonometry() {
+
+		// ARRANGE
+		AttractionSnapshot snapshot = new AttractionCatalog(gpsUtilSpy).getSnapshot();
+
+		// ACT
+		CatalogAttraction catalogAttraction = snapshot.getCatalogAttraction(snapshot.getAttractions().get(0));
+
+		// ASSERT
+		double latitude = catalogAttraction.getAttraction().latitude;
+		assertThat(catalogAttraction.getOrdinal()).isEqualTo(0);
+		assertThat(catalogAttraction.getSinLatitude()).isEqualTo(Math.sin(Math.toRadians(latitude)));
+		assertThat(catalogAttraction.getCosLatitude()).isEqualTo(Math.cos(Math.toRadians(latitude)));
+	}
+
+}
@@ -0,0 +1,77 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import tourGuide.service.RewardsService;
+import tourGuide.util.AttractionSpatialIndex;
+
+public class AttractionSpatialIndexTests {
+
+	private GpsUtil gpsUtil = new GpsUtil();
+
+	private RewardsService rewardsService = new RewardsService();
+
+	private List<Attraction> attractions = gpsUtil.getAttractions();
+
+	private AttractionSpatialIndex attractionIndex = new AttractionSpatialIndex(attractions);
+
+	@Test
+	public void getCandidates_ShouldContain_EveryAttractionInRange() {
+
+		// ARRANGE
+		Random random = new Random(42);
+		double[] radiuses = { 0, 10, 200, 1000, 5000 };
+
+		for (int i = 0; i < 2000; i++) {
+			// Half of the locations are drawn around the attractions, the other half anywhere on the globe
+			Attraction attraction = attractions.get(random.nextInt(attractions.size()));
+			Location location = (i % 2 == 0)
+					? new Location(attraction.latitude + random.nextDouble() * 4 - 2,
+							attraction.longitude + random.nextDouble() * 4 - 2)
+					: new Location(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180);
+			double radius = radiuses[i % radiuses.length];
+
+			// ACT
+			List<Attraction> candidates = attractionIndex.getCandidates(location, radius);
+
+			// ASSERT
+			List<Attraction> expected = attractions.stream()
+					.filter(a -> rewardsService.getDistance(a, location) <= radius).collect(Collectors.toList());
+			assertThat(candidates).containsAll(expected);
+		}
+	}
+
+	@Test
+	public void getCandidates_ShouldSkip_FarAwayAttractions() {
+
+		// ARRANGE
+		Attraction attraction = attractions.get(0);
+
+		// ACT
+		List<Attraction> candidates = attractionIndex.getCandidates(attraction, 10);
+
+		// ASSERT
+		assertThat(candidates).contains(attraction);
+		assertThat(candidates.size()).isLessThan(attractions.size());
+	}
+
+	@Test
+	public void getCandidates_ShouldReturn_EveryAttraction_WhenRadiusIsHuge() {
+
+		// ACT
+		List<Attraction> candidates = attractionIndex.getCandidates(new Location(0, 0), Integer.MAX_VALUE);
+
+		// ASSERT
+		assertThat(candidates).hasSameSizeAs(attractions);
+	}
+
+}
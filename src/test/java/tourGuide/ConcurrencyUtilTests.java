@@ -0,0 +1,60 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.Test;
+
+import tourGuide.concurrency.ConcurrencyUtil;
+import tourGuide.concurrency.ExecutionMode;
+
+public class ConcurrencyUtilTests {
+
+	@Test
+	public void newExecutor_ShouldRun_TasksOnVirtualThreads() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		ExecutorService executor = ConcurrencyUtil.newExecutor(ExecutionMode.VIRTUAL, "test", 10);
+
+		// ACT
+		boolean virtual = executor.submit(() -> Thread.currentThread().isVirtual()).get();
+		executor.shutdown();
+
+		// ASSERT
+		assertThat(virtual).isTrue();
+	}
+
+	@Test
+	public void configure_ShouldResize_PlatformThreadPool() {
+
+		// ARRANGE
+		ExecutorService executor = ConcurrencyUtil.newExecutor(ExecutionMode.PLATFORM, "test", 10);
+
+		// ACT
+		ExecutorService configured = ConcurrencyUtil.configure(executor, ExecutionMode.PLATFORM, "test", 50);
+		configured.shutdown();
+
+		// ASSERT
+		assertThat(configured).isSameAs(executor);
+		assertThat(((ThreadPoolExecutor) configured).getMaximumPoolSize()).isEqualTo(50);
+	}
+
+	@Test
+	public void configure_ShouldReplace_PlatformThreadPool_WhenModeIsVirtual() {
+
+		// ARRANGE
+		ExecutorService executor = ConcurrencyUtil.newExecutor(ExecutionMode.PLATFORM, "test", 10);
+
+		// ACT
+		ExecutorService configured = ConcurrencyUtil.configure(executor, ExecutionMode.VIRTUAL, "test", 10);
+		configured.shutdown();
+
+		// ASSERT
+		assertThat(executor.isShutdown()).isTrue();
+		assertThat(configured).isNotInstanceOf(ThreadPoolExecutor.class);
+	}
+
+}
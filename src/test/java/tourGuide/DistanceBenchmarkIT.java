@@ -0,0 +1,91 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.CatalogAttraction;
+import tourGuide.catalog.DistanceQuery;
+
+@Slf4j
+public class DistanceBenchmarkIT {
+
+	private static final int LOCATIONS = 200000;
+
+	private static final double PROXIMITY_BUFFER = 10;
+
+	private List<CatalogAttraction> attractions = new AttractionCatalog(new GpsUtil()).getSnapshot()
+			.getCatalogAttractions();
+
+	/*
+	 * Compares the reference formula with the distance kernel on the proximity check of calculateRewards.
+	 * Each location is checked against every attraction, the number of matches must be the same.
+	 * Throughput is logged in distance checks per second.
+	 */
+	@Test
+	public void distanceKernelThroughput() {
+
+		// ARRANGE
+		Location[] locations = new Location[LOCATIONS];
+		Random random = new Random(42);
+		for (int i = 0; i < LOCATIONS; i++) {
+			locations[i] = new Location(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180);
+		}
+
+		// Warm up both implementations before measuring
+		runExact(locations);
+		runKernel(locations);
+
+		// ACT
+		long exactStart = System.nanoTime();
+		int exactMatches = runExact(locations);
+		long exactTime = System.nanoTime() - exactStart;
+
+		long kernelStart = System.nanoTime();
+		int kernelMatches = runKernel(locations);
+		long kernelTime = System.nanoTime() - kernelStart;
+
+		// ASSERT
+		long checks = (long) LOCATIONS * attractions.size();
+		log.debug("[TEST] distanceKernelThroughput() Exact formula : {} checks/s, {} ms.",
+				checks * TimeUnit.SECONDS.toNanos(1) / exactTime, TimeUnit.NANOSECONDS.toMillis(exactTime));
+		log.debug("[TEST] distanceKernelThroughput() Distance kernel : {} checks/s, {} ms.",
+				checks * TimeUnit.SECONDS.toNanos(1) / kernelTime, TimeUnit.NANOSECONDS.toMillis(kernelTime));
+		log.debug("[TEST] distanceKernelThroughput() Speedup : {}x.", (double) exactTime / kernelTime);
+		assertEquals(exactMatches, kernelMatches);
+	}
+
+	private int runExact(Location[] locations) {
+		int matches = 0;
+		for (Location location : locations) {
+			for (CatalogAttraction attraction : attractions) {
+				if (!(DistanceQuery.getExactDistance(attraction.getAttraction(), location) > PROXIMITY_BUFFER)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+	private int runKernel(Location[] locations) {
+		int matches = 0;
+		for (Location location : locations) {
+			DistanceQuery query = new DistanceQuery(location, PROXIMITY_BUFFER);
+			for (CatalogAttraction attraction : attractions) {
+				if (query.isWithin(attraction)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+}
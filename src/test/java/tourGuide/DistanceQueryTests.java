@@ -0,0 +1,124 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.CatalogAttraction;
+import tourGuide.catalog.DistanceQuery;
+
+public class DistanceQueryTests {
+
+	private List<CatalogAttraction> attractions = new AttractionCatalog(new GpsUtil()).getSnapshot()
+			.getCatalogAttractions();
+
+	@Test
+	public void getDistance_ShouldMatch_ExactDistance() {
+
+		// ARRANGE
+		Random random = new Random(42);
+
+		for (int i = 0; i < 10000; i++) {
+			Location location = new Location(random.nextDouble() * 170 - 85, random.nextDouble() * 360 - 180);
+			DistanceQuery query = new DistanceQuery(location, 10);
+
+			for (CatalogAttraction attraction : attractions) {
+				// ACT
+				double distance = query.getDistance(attraction);
+
+				// ASSERT
+				assertThat(distance).isCloseTo(DistanceQuery.getExactDistance(attraction.getAttraction(), location),
+						within(DistanceQuery.TOLERANCE_MILES));
+			}
+		}
+	}
+
+	@Test
+	public void getDistance_ShouldMatch_ExactDistance_ForClosePoints() {
+
+		// ARRANGE
+		Random random = new Random(42);
+
+		for (int i = 0; i < 10000; i++) {
+			// A few centimeters to a few hundred meters away from an attraction
+			CatalogAttraction attraction = attractions.get(random.nextInt(attractions.size()));
+			double offset = Math.pow(10, -7 + random.nextInt(5));
+			Location location = new Location(attraction.getAttraction().latitude + random.nextGaussian() * offset,
+					attraction.getAttraction().longitude + random.nextGaussian() * offset);
+
+			// ACT
+			double distance = new DistanceQuery(location, 10).getDistance(attraction);
+
+			// ASSERT
+			assertThat(distance).isCloseTo(DistanceQuery.getExactDistance(attraction.getAttraction(), location),
+					within(DistanceQuery.TOLERANCE_MILES));
+		}
+	}
+
+	@Test
+	public void getExactDistance_ShouldMatch_HaversineReference_ForClosePoints() {
+
+		// ARRANGE
+		// Along the equator and along a meridian, the angle between both points is the coordinate gap
+		double gapDegrees = 1e-5;
+		double expected = DistanceQuery.STATUTE_MILES_PER_RADIAN * Math.toRadians(gapDegrees);
+		Location origin = new Location(0, 10);
+
+		// ACT
+		double alongEquator = DistanceQuery.getExactDistance(origin, new Location(0, 10 + gapDegrees));
+		double alongMeridian = DistanceQuery.getExactDistance(origin, new Location(gapDegrees, 10));
+		double samePoint = DistanceQuery.getExactDistance(origin, origin);
+
+		// ASSERT
+		assertThat(alongEquator).isCloseTo(expected, within(DistanceQuery.TOLERANCE_MILES));
+		assertThat(alongMeridian).isCloseTo(expected, within(DistanceQuery.TOLERANCE_MILES));
+		assertThat(samePoint).isZero();
+	}
+
+	@Test
+	public void isWithin_ShouldTake_SameDecisionsAsExactDistance() {
+
+		// ARRANGE
+		Random random = new Random(42);
+		double[] thresholds = { 0, 10, 200, 1000 };
+
+		for (int i = 0; i < 10000; i++) {
+			// Locations are drawn around attractions so that every threshold gets hits and misses
+			CatalogAttraction origin = attractions.get(random.nextInt(attractions.size()));
+			Location location = new Location(origin.getAttraction().latitude + random.nextGaussian(),
+					origin.getAttraction().longitude + random.nextGaussian());
+			double threshold = thresholds[i % thresholds.length];
+			DistanceQuery query = new DistanceQuery(location, threshold);
+
+			for (CatalogAttraction attraction : attractions) {
+				// ACT
+				boolean within = query.isWithin(attraction);
+
+				// ASSERT
+				boolean expected = !(DistanceQuery.getExactDistance(attraction.getAttraction(), location) > threshold);
+				assertThat(within).isEqualTo(expected);
+			}
+		}
+	}
+
+	@Test
+	public void isWithin_ShouldReturn_True_OnTheAttraction() {
+
+		// ARRANGE
+		CatalogAttraction attraction = attractions.get(0);
+
+		// ACT
+		boolean within = new DistanceQuery(attraction.getAttraction(), 0).isWithin(attraction);
+
+		// ASSERT
+		assertThat(within).isTrue();
+	}
+
+}
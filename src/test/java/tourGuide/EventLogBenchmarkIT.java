@@ -0,0 +1,100 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.User;
+import tourGuide.domain.UserReward;
+import tourGuide.eventlog.EventLog;
+import tourGuide.eventlog.EventLogListener;
+import tourGuide.eventlog.SegmentedEventLog;
+
+@Slf4j
+public class EventLogBenchmarkIT {
+
+	private static final int EVENTS = 1000000;
+
+	private static final int PRODUCERS = 8;
+
+	private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MeterRegistry registry = new SimpleMeterRegistry();
+
+	/*
+	 * Appends one million location events from several producers, as the tracker does, with a sync per group commit.
+	 * Then reopens the log and replays every event.
+	 * Ingest throughput is logged in events per second, and replay time per million events.
+	 */
+	@Test
+	public void eventLogIngestAndReplay() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.getRoot().toPath();
+		UUID[] userIds = IntStream.range(0, 1000).mapToObj(i -> UUID.randomUUID()).toArray(UUID[]::new);
+
+		// ACT
+		long ingestStart = System.nanoTime();
+		try (EventLog eventLog = new SegmentedEventLog(directory, SEGMENT_SIZE, true, registry)) {
+			CompletableFuture.allOf(IntStream.range(0, PRODUCERS).mapToObj(producer -> CompletableFuture.runAsync(() -> {
+				CompletableFuture<Void> last = null;
+				for (int i = producer; i < EVENTS; i += PRODUCERS) {
+					UUID userId = userIds[i % userIds.length];
+					last = eventLog.appendVisitedLocation(userId,
+							new VisitedLocation(userId, new Location(i % 170 - 85, i % 360 - 180), new Date(i)));
+				}
+				last.join();
+			})).toArray(CompletableFuture<?>[]::new)).join();
+		}
+		long ingestTime = System.nanoTime() - ingestStart;
+
+		AtomicLong replayedLocations = new AtomicLong();
+		long replayStart = System.nanoTime();
+		try (EventLog eventLog = new SegmentedEventLog(directory, SEGMENT_SIZE, true, registry)) {
+			eventLog.replay(new EventLogListener() {
+
+				@Override
+				public void onUser(User user) {
+				}
+
+				@Override
+				public void onVisitedLocation(VisitedLocation visitedLocation) {
+					replayedLocations.incrementAndGet();
+				}
+
+				@Override
+				public void onUserReward(UUID userId, UserReward userReward) {
+				}
+			});
+		}
+		long replayTime = System.nanoTime() - replayStart;
+
+		// ASSERT
+		log.debug("[TEST] eventLogIngestAndReplay() Ingest : {} events/s, {} ms per million events.",
+				EVENTS * TimeUnit.SECONDS.toNanos(1) / ingestTime,
+				TimeUnit.NANOSECONDS.toMillis(ingestTime) * 1000000 / EVENTS);
+		log.debug("[TEST] eventLogIngestAndReplay() Replay : {} ms per million events.",
+				TimeUnit.NANOSECONDS.toMillis(replayTime) * 1000000 / EVENTS);
+		assertEquals(EVENTS, replayedLocations.get());
+	}
+
+}
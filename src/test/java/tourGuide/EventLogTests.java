@@ -0,0 +1,328 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.javamoney.moneta.Money;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tourGuide.domain.User;
+import tourGuide.domain.UserPreferences;
+import tourGuide.domain.UserReward;
+import tourGuide.eventlog.EventLog;
+import tourGuide.eventlog.EventLogListener;
+import tourGuide.eventlog.SegmentedEventLog;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.service.UserService;
+
+public class EventLogTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MeterRegistry registry = new SimpleMeterRegistry();
+
+	private User user = new User(UUID.randomUUID(), "Alpha", "000", "alpha@tourGuide.com");
+
+	private VisitedLocation visitedLocation(int i) {
+		return new VisitedLocation(user.getUserId(), new Location(i * 0.5, -i * 0.25), new Date(1000L * i));
+	}
+
+	private List<VisitedLocation> replayLocations(EventLog eventLog) {
+		List<VisitedLocation> locations = new ArrayList<>();
+		eventLog.replay(new EventLogListener() {
+
+			@Override
+			public void onUser(User user) {
+			}
+
+			@Override
+			public void onVisitedLocation(VisitedLocation visitedLocation) {
+				locations.add(visitedLocation);
+			}
+
+			@Override
+			public void onUserReward(UUID userId, UserReward userReward) {
+			}
+		});
+		return locations;
+	}
+
+	private UserService userService(EventLog eventLog) {
+		UserService userService = new UserService();
+		ReflectionTestUtils.setField(userService, "eventLog", eventLog);
+		return userService;
+	}
+
+	@Test
+	public void replay_ShouldRebuild_UsersAfterRestart() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.getRoot().toPath();
+		user.addToVisitedLocations(visitedLocation(1));
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		user.addUserReward(new UserReward(visitedLocation(1), attraction, 250));
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			userService(eventLog).addUser(user);
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(2)).join();
+		}
+
+		// ACT
+		UserService restartedUserService;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			restartedUserService = userService(eventLog);
+			restartedUserService.recoverUsers();
+		}
+
+		// ASSERT
+		User recoveredUser = restartedUserService.getUserById(user.getUserId());
+		assertThat(recoveredUser.getUserName()).isEqualTo("Alpha");
+		assertThat(recoveredUser.getEmailAddress()).isEqualTo("alpha@tourGuide.com");
+		assertThat(recoveredUser.getVisitedLocations()).extracting(location -> location.timeVisited.getTime())
+				.containsExactly(1000L, 2000L);
+		assertThat(recoveredUser.getUserRewards()).hasSize(1);
+		assertThat(recoveredUser.getUserRewards().get(0).getRewardPoints()).isEqualTo(250);
+		assertThat(recoveredUser.hasRewardFor(attraction)).isTrue();
+	}
+
+	@Test
+	public void replay_ShouldRestore_PreferenceChanges() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.getRoot().toPath();
+		UserPreferences userPreferences = new UserPreferences();
+		userPreferences.setAttractionProximity(250);
+		userPreferences.setHighPricePoint(Money.of(1250.5, "USD"));
+		userPreferences.setNumberOfChildren(2);
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			UserService userService = userService(eventLog);
+			userService.addUser(user);
+			userService.setUserPreferences(user, userPreferences);
+		}
+
+		// ACT
+		UserService restartedUserService;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			restartedUserService = userService(eventLog);
+			restartedUserService.recoverUsers();
+		}
+
+		// ASSERT
+		assertThat(restartedUserService.getUserById(user.getUserId()).getUserPreferences()).isEqualTo(userPreferences);
+	}
+
+	@Test
+	public void append_ShouldGroupCommit_ConcurrentAppends_AcrossSegments() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.getRoot().toPath();
+
+		// ACT
+		try (EventLog eventLog = new SegmentedEventLog(directory, 4096, false, registry)) {
+			CompletableFuture.allOf(IntStream.range(0, 2000).parallel()
+					.mapToObj(i -> eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(i)))
+					.toArray(CompletableFuture<?>[]::new)).join();
+		}
+		List<VisitedLocation> locations;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 4096, false, registry)) {
+			locations = replayLocations(eventLog);
+		}
+
+		// ASSERT
+		assertThat(locations).hasSize(2000);
+		assertThat(locations.stream().map(location -> location.timeVisited.getTime()).distinct().count())
+				.isEqualTo(2000);
+		try (Stream<Path> segments = Files.list(directory)) {
+			assertThat(segments.collect(Collectors.toList())).hasSizeGreaterThan(1)
+					.allMatch(segment -> segment.toFile().length() <= 4096);
+		}
+		assertThat(registry.get(TourGuideMetrics.EVENT_LOG_COMMIT_SIZE).summary().totalAmount()).isEqualTo(2000);
+	}
+
+	@Test
+	public void append_ShouldReplay_EventsWrittenAfterAFailedWrite() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.getRoot().toPath();
+		List<VisitedLocation> locations;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			FileChannel segment = (FileChannel) ReflectionTestUtils.getField(eventLog, "segment");
+			ReflectionTestUtils.setField(eventLog, "segment", new FailingChannel(segment));
+
+			// ACT
+			assertThatThrownBy(() -> eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(1)).join())
+					.hasCauseInstanceOf(IOException.class);
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(2)).join();
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(3)).join();
+		}
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			locations = replayLocations(eventLog);
+		}
+
+		// ASSERT
+		assertThat(locations).extracting(location -> location.timeVisited.getTime()).containsExactly(2000L, 3000L);
+	}
+
+	@Test
+	public void open_ShouldTruncate_TornRecordAtTheEnd() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.getRoot().toPath();
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(1));
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(2)).join();
+		}
+		// A crash in the middle of the third record
+		Path segment;
+		try (Stream<Path> segments = Files.list(directory)) {
+			segment = segments.findFirst().get();
+		}
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 41, 1, 2, 3 }));
+		}
+
+		// ACT
+		List<VisitedLocation> locations;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(3)).join();
+			locations = replayLocations(eventLog);
+		}
+
+		// ASSERT
+		assertThat(locations).extracting(location -> location.timeVisited.getTime()).containsExactly(1000L, 2000L,
+				3000L);
+	}
+
+	// Segment whose first gathering write stops with an error after a few bytes, as a full disk would
+	private static class FailingChannel extends FileChannel {
+
+		private final FileChannel channel;
+
+		private boolean failed;
+
+		private FailingChannel(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			if (!failed) {
+				failed = true;
+				ByteBuffer head = srcs[offset].duplicate();
+				head.limit(head.position() + 5);
+				channel.write(head);
+				throw new IOException("No space left on device");
+			}
+			return channel.write(srcs, offset, length);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			return channel.read(dst);
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			return channel.read(dsts, offset, length);
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			return channel.write(src);
+		}
+
+		@Override
+		public long position() throws IOException {
+			return channel.position();
+		}
+
+		@Override
+		public FileChannel position(long newPosition) throws IOException {
+			channel.position(newPosition);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return channel.size();
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			channel.truncate(size);
+			return this;
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			channel.force(metaData);
+		}
+
+		@Override
+		public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			return channel.transferTo(position, count, target);
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			return channel.transferFrom(src, position, count);
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			return channel.read(dst, position);
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			return channel.write(src, position);
+		}
+
+		@Override
+		public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+			return channel.map(mode, position, size);
+		}
+
+		@Override
+		public FileLock lock(long position, long size, boolean shared) throws IOException {
+			return channel.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+			return channel.tryLock(position, size, shared);
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			channel.close();
+		}
+	}
+}
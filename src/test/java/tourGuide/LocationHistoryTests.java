@@ -0,0 +1,109 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.history.HistoryStorage;
+import tourGuide.history.LocationHistory;
+
+public class LocationHistoryTests {
+
+	private UUID userId = UUID.randomUUID();
+
+	private List<VisitedLocation> visitedLocations(int count) {
+		List<VisitedLocation> locations = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			locations.add(new VisitedLocation(userId, new Location(i * 0.5, -i * 0.25), new Date(1000L * i)));
+		}
+		return locations;
+	}
+
+	@Test
+	public void get_ShouldReturn_AppendedValues_ForEveryStorage() {
+		for (HistoryStorage storage : HistoryStorage.values()) {
+
+			// ARRANGE
+			LocationHistory history = new LocationHistory(storage);
+			List<VisitedLocation> locations = visitedLocations(100);
+
+			// ACT
+			locations.forEach(history::add);
+
+			// ASSERT
+			assertThat(history).hasSize(100);
+			for (int i = 0; i < 100; i++) {
+				VisitedLocation location = history.get(i);
+				assertThat(location.userId).isEqualTo(userId);
+				assertThat(location.location.latitude).isEqualTo(i * 0.5);
+				assertThat(location.location.longitude).isEqualTo(-i * 0.25);
+				assertThat(location.timeVisited.getTime()).isEqualTo(1000L * i);
+			}
+			assertThat(history.getLast()).isSameAs(locations.get(99));
+		}
+	}
+
+	@Test
+	public void equals_ShouldCompare_ValuesAcrossStorages() {
+
+		// ARRANGE
+		LocationHistory heapHistory = new LocationHistory(HistoryStorage.HEAP);
+		LocationHistory offHeapHistory = new LocationHistory(HistoryStorage.OFF_HEAP);
+
+		// ACT
+		heapHistory.addAll(visitedLocations(20));
+		offHeapHistory.addAll(visitedLocations(20));
+
+		// ASSERT
+		assertThat(heapHistory).isEqualTo(offHeapHistory);
+		assertThat(heapHistory.hashCode()).isEqualTo(offHeapHistory.hashCode());
+		assertThat(heapHistory.copyOfRange(18, 30)).hasSize(2);
+	}
+
+	@Test
+	public void getLast_ShouldThrow_WhenHistoryIsEmpty() {
+
+		// ARRANGE
+		LocationHistory history = new LocationHistory(HistoryStorage.OFF_HEAP);
+		history.addAll(visitedLocations(3));
+
+		// ACT
+		history.clear();
+
+		// ASSERT
+		assertThat(history).isEmpty();
+		assertThatThrownBy(history::getLast).isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void add_ShouldKeep_ReadersConsistent_WhileGrowing() {
+
+		// ARRANGE
+		LocationHistory history = new LocationHistory(HistoryStorage.HEAP);
+		List<VisitedLocation> locations = visitedLocations(50000);
+
+		// ACT
+		CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> locations.forEach(history::add));
+		while (!writer.isDone()) {
+			int size = history.size();
+			if (size > 0) {
+				// Every published entry is fully written
+				assertThat(history.get(size - 1).timeVisited.getTime()).isEqualTo(1000L * (size - 1));
+			}
+		}
+		writer.join();
+
+		// ASSERT
+		assertThat(history).hasSize(50000);
+	}
+
+}
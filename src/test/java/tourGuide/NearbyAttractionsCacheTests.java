@@ -0,0 +1,153 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tourGuide.service.NearbyAttractionsCache;
+import tourGuide.service.NearbyAttractionsCache.RewardedAttraction;
+
+public class NearbyAttractionsCacheTests {
+
+	private MeterRegistry registry = new SimpleMeterRegistry();
+
+	private NearbyAttractionsCache cache = new NearbyAttractionsCache(7, registry, 100, 10);
+
+	private UUID userId = UUID.randomUUID();
+
+	private AtomicInteger loads = new AtomicInteger();
+
+	private Supplier<CompletableFuture<List<RewardedAttraction>>> loader = () -> {
+		loads.incrementAndGet();
+		return CompletableFuture.completedFuture(new ArrayList<>());
+	};
+
+	@Test
+	public void get_ShouldLoad_OncePerCell() {
+
+		// ARRANGE
+		Location location = new Location(33.817595, -117.922008);
+		// A few meters away, in the same 150 m cell
+		Location sameCell = new Location(33.817600, -117.922000);
+
+		// ACT
+		List<RewardedAttraction> first = cache.get(userId, location, 5, 10, 1, loader).join();
+		List<RewardedAttraction> second = cache.get(userId, sameCell, 5, 10, 1, loader).join();
+
+		// ASSERT
+		assertThat(second).isSameAs(first);
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(cache.getStats().hitCount()).isEqualTo(1);
+		assertThat(cache.getStats().missCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void get_ShouldLoad_WhenUserChangesCellOrCount() {
+
+		// ARRANGE
+		Location location = new Location(33.817595, -117.922008);
+		Location otherCell = new Location(34.817595, -117.922008);
+
+		// ACT
+		cache.get(userId, location, 5, 10, 1, loader).join();
+		cache.get(userId, otherCell, 5, 10, 1, loader).join();
+		cache.get(userId, otherCell, 3, 10, 1, loader).join();
+		cache.get(UUID.randomUUID(), otherCell, 3, 10, 1, loader).join();
+
+		// ASSERT
+		assertThat(loads.get()).isEqualTo(4);
+		assertThat(cache.getStats().hitCount()).isZero();
+	}
+
+	@Test
+	public void invalidateIfMoved_ShouldRemove_Entry_OnlyWhenCellChanges() {
+
+		// ARRANGE
+		Location location = new Location(33.817595, -117.922008);
+		cache.get(userId, location, 5, 10, 1, loader).join();
+
+		// ACT
+		cache.invalidateIfMoved(userId, new Location(33.817600, -117.922000));
+		long sizeAfterMoveInCell = cache.size();
+		cache.invalidateIfMoved(userId, new Location(34.817595, -117.922008));
+		cache.get(userId, location, 5, 10, 1, loader).join();
+
+		// ASSERT
+		assertThat(sizeAfterMoveInCell).isEqualTo(1);
+		assertThat(loads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void get_ShouldDrop_Entries_WhenCatalogVersionChanges() {
+
+		// ARRANGE
+		Location location = new Location(33.817595, -117.922008);
+		cache.get(userId, location, 5, 10, 1, loader).join();
+		cache.get(UUID.randomUUID(), location, 5, 10, 1, loader).join();
+
+		// ACT
+		cache.get(userId, location, 5, 10, 2, loader).join();
+
+		// ASSERT
+		assertThat(loads.get()).isEqualTo(3);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	public void get_ShouldNotCache_FailedLoads() {
+
+		// ARRANGE
+		Location location = new Location(33.817595, -117.922008);
+		CompletableFuture<List<RewardedAttraction>> failure = CompletableFuture
+				.failedFuture(new IllegalStateException("RewardCentral is down"));
+
+		// ACT
+		assertThatThrownBy(() -> cache.get(userId, location, 5, 10, 1, () -> failure).join())
+				.isInstanceOf(CompletionException.class);
+		cache.get(userId, location, 5, 10, 1, loader).join();
+
+		// ASSERT
+		assertThat(loads.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void close_ShouldRemove_OnlyItsOwnMeters() {
+
+		// ARRANGE
+		Location location = new Location(33.817595, -117.922008);
+		cache.get(userId, location, 5, 10, 1, loader).join();
+		NearbyAttractionsCache rebuiltCache = new NearbyAttractionsCache(7, registry, 100, 10);
+
+		// ACT
+		double sizeAfterRebuild = registry.get("cache.size").tag("cache", NearbyAttractionsCache.CACHE_NAME).gauge()
+				.value();
+		cache.close();
+		boolean publishedAfterDiscardedClose = registry.find("cache.size")
+				.tag("cache", NearbyAttractionsCache.CACHE_NAME).meter() != null;
+		rebuiltCache.close();
+
+		// ASSERT
+		assertThat(sizeAfterRebuild).isZero();
+		assertThat(publishedAfterDiscardedClose).isTrue();
+		assertThat(registry.find("cache.size").tag("cache", NearbyAttractionsCache.CACHE_NAME).meter()).isNull();
+	}
+
+	@Test
+	public void constructor_ShouldReject_InvalidPrecision() {
+
+		// ACT & ASSERT
+		assertThatThrownBy(() -> new NearbyAttractionsCache(0, registry, 100, 10)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
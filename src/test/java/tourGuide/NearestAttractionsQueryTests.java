@@ -0,0 +1,127 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.catalog.AttractionDistance;
+import tourGuide.catalog.AttractionSnapshot;
+import tourGuide.catalog.CatalogAttraction;
+import tourGuide.catalog.DistanceQuery;
+import tourGuide.catalog.NearestAttractionsQuery;
+
+public class NearestAttractionsQueryTests {
+
+	private AttractionSnapshot snapshot = new AttractionCatalog(new GpsUtil()).getSnapshot();
+
+	@Test
+	public void search_ShouldFind_SameDistancesAsSortingTheCatalog() {
+
+		// ARRANGE
+		Random random = new Random(42);
+		int[] counts = { 1, 5, 10, snapshot.size() + 3 };
+
+		for (int i = 0; i < 5000; i++) {
+			// Half of the locations are drawn around attractions, the others anywhere on the globe
+			Location location;
+			if (i % 2 == 0) {
+				Attraction origin = snapshot.getAttractions().get(random.nextInt(snapshot.size()));
+				location = new Location(origin.latitude + random.nextGaussian(),
+						origin.longitude + random.nextGaussian());
+			} else {
+				location = new Location(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+			}
+			int count = counts[i % counts.length];
+
+			// ACT
+			List<AttractionDistance> nearest = new NearestAttractionsQuery(location, count, Double.POSITIVE_INFINITY)
+					.search(snapshot);
+
+			// ASSERT
+			List<Double> expected = exactDistances(location).stream().limit(count).collect(Collectors.toList());
+			assertThat(nearest).hasSize(expected.size());
+			for (int j = 0; j < expected.size(); j++) {
+				assertThat(nearest.get(j).getDistance()).isCloseTo(expected.get(j),
+						within(DistanceQuery.TOLERANCE_MILES));
+				assertThat(nearest.get(j).getDistance()).isCloseTo(
+						DistanceQuery.getExactDistance(nearest.get(j).getAttraction(), location),
+						within(DistanceQuery.TOLERANCE_MILES));
+			}
+		}
+	}
+
+	@Test
+	public void search_ShouldIgnore_AttractionsBeyondMaxDistance() {
+
+		// ARRANGE
+		Random random = new Random(42);
+		double[] maxDistances = { 0, 10, 200, 1000 };
+
+		for (int i = 0; i < 5000; i++) {
+			Attraction origin = snapshot.getAttractions().get(random.nextInt(snapshot.size()));
+			Location location = new Location(origin.latitude + random.nextGaussian() * 3,
+					origin.longitude + random.nextGaussian() * 3);
+			double maxDistance = maxDistances[i % maxDistances.length];
+
+			// ACT
+			List<AttractionDistance> nearest = new NearestAttractionsQuery(location, 5, maxDistance).search(snapshot);
+
+			// ASSERT
+			long expected = exactDistances(location).stream().filter(distance -> !(distance > maxDistance)).limit(5)
+					.count();
+			assertThat(nearest).hasSize((int) expected);
+			assertThat(nearest).allMatch(attractionDistance -> !(DistanceQuery
+					.getExactDistance(attractionDistance.getAttraction(), location) > maxDistance));
+		}
+	}
+
+	@Test
+	public void search_ShouldReturn_NearestFirst() {
+
+		// ARRANGE
+		Attraction attraction = snapshot.getAttractions().get(0);
+
+		// ACT
+		List<AttractionDistance> nearest = new NearestAttractionsQuery(attraction, 5, Double.POSITIVE_INFINITY)
+				.search(snapshot);
+
+		// ASSERT
+		assertThat(nearest.get(0).getAttraction()).isSameAs(attraction);
+		assertThat(nearest).extracting(AttractionDistance::getDistance).isSorted();
+	}
+
+	@Test
+	public void search_ShouldReturn_Empty_WhenCountIsZero() {
+
+		// ARRANGE
+		Attraction attraction = snapshot.getAttractions().get(0);
+
+		// ACT
+		List<AttractionDistance> nearest = new NearestAttractionsQuery(attraction, 0, Double.POSITIVE_INFINITY)
+				.search(snapshot);
+
+		// ASSERT
+		assertThat(nearest).isEmpty();
+	}
+
+	// Distances of every attraction of the catalog, sorted
+	private List<Double> exactDistances(Location location) {
+		List<Double> distances = new ArrayList<>();
+		for (CatalogAttraction attraction : snapshot.getCatalogAttractions()) {
+			distances.add(DistanceQuery.getExactDistance(attraction.getAttraction(), location));
+		}
+		distances.sort(Comparator.naturalOrder());
+		return distances;
+	}
+}
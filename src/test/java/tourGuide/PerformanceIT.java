@@ -1,5 +1,6 @@
 package tourGuide;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Date;
@@ -18,6 +19,7 @@ import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
 import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.RewardsBatchStatistics;
 import tourGuide.domain.User;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
@@ -82,7 +84,7 @@ public class PerformanceIT {
 	}
 
 	@Test
-	public void highVolumeGetRewards() {
+	public void highVolumeGetRewards() throws InterruptedException, ExecutionException {
 
 		// ARRANGE
 		userService.initializeInternalUsers(30000);
@@ -94,12 +96,15 @@ public class PerformanceIT {
 
 		// ACT
 		stopWatch.start();
-		users.parallelStream().forEach(u -> rewardsService.calculateRewards(u));
+		RewardsBatchStatistics statistics = rewardsService.calculateRewardsBatch(users).get();
 		stopWatch.stop();
 
 		// ASSERT
 		long getTime = stopWatch.getTime();
 		log.debug("[TEST] highVolumeGetRewards() Total Execution Time : {} ms.", getTime);
+		log.debug("[TEST] highVolumeGetRewards() {} users processed, {} rewards granted, {} upstream calls.",
+				statistics.getUsersProcessed(), statistics.getRewardsGranted(), statistics.getUpstreamCalls());
+		assertEquals(users.size(), statistics.getUsersProcessed());
 		assertTrue(TimeUnit.MINUTES.toSeconds(20) >= TimeUnit.MILLISECONDS.toSeconds(getTime));
 	}
 
@@ -0,0 +1,170 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tourGuide.domain.User;
+import tourGuide.history.HistoryCompactor;
+import tourGuide.history.RetentionPolicy;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.service.UserService;
+import tourGuide.util.GeohashUtil;
+
+public class RetentionPolicyTests {
+
+	private static final long NOW = TimeUnit.DAYS.toMillis(20000);
+
+	private User user = new User(UUID.randomUUID(), "Alpha", "000", "alpha@tourGuide.com");
+
+	private void visit(double latitude, double longitude, long minutesAgo) {
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(latitude, longitude),
+				new Date(NOW - TimeUnit.MINUTES.toMillis(minutesAgo))));
+	}
+
+	private List<Long> minutesAgo() {
+		return user.getVisitedLocations().stream()
+				.map(location -> TimeUnit.MILLISECONDS.toMinutes(NOW - location.timeVisited.getTime()))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void compact_ShouldDrop_OldestLocationsBeyondMaxCount() {
+
+		// ARRANGE
+		for (int i = 10; i > 0; i--) {
+			visit(0, 0, i);
+		}
+		user.advanceRewardsWatermark(user.getVisitedLocations().getAppendedCount());
+
+		// ACT
+		int dropped = user.compactVisitedLocations(new RetentionPolicy(3, 0, 0, 0, 0), NOW);
+
+		// ASSERT
+		assertThat(dropped).isEqualTo(7);
+		assertThat(minutesAgo()).containsExactly(3L, 2L, 1L);
+	}
+
+	@Test
+	public void compact_ShouldRetain_NewestLocation_WhenEveryLocationExpired() {
+
+		// ARRANGE
+		visit(0, 0, 300);
+		visit(0, 0, 200);
+		user.advanceRewardsWatermark(user.getVisitedLocations().getAppendedCount());
+		VisitedLocation newest = user.getLastVisitedLocation();
+
+		// ACT
+		user.compactVisitedLocations(new RetentionPolicy(0, 60, 0, 0, 0), NOW);
+
+		// ASSERT
+		assertThat(user.getVisitedLocations()).hasSize(1);
+		assertThat(user.getLastVisitedLocation()).isSameAs(newest);
+	}
+
+	@Test
+	public void compact_ShouldRetain_LocationsNotCheckedForRewards() {
+
+		// ARRANGE
+		for (int i = 10; i > 0; i--) {
+			visit(0, 0, i);
+		}
+		user.advanceRewardsWatermark(user.getVisitedLocations().getAppendedCount());
+		visit(1, 1, 0);
+		visit(2, 2, 0);
+
+		// ACT
+		user.compactVisitedLocations(new RetentionPolicy(1, 0, 0, 0, 0), NOW);
+		int appended = user.getVisitedLocations().getAppendedCount();
+		List<VisitedLocation> unprocessed = user.getUnprocessedLocations(appended);
+		user.advanceRewardsWatermark(appended);
+
+		// ASSERT
+		assertThat(user.getVisitedLocations()).hasSize(2);
+		assertThat(unprocessed).extracting(location -> location.location.latitude).containsExactly(1.0, 2.0);
+		assertThat(user.getUnprocessedLocations(appended)).isEmpty();
+	}
+
+	@Test
+	public void compact_ShouldKeep_OneOldLocationPerWindow() {
+
+		// ARRANGE
+		// Every 10 minutes for 3 hours, windows are aligned on the hour and only the last 30 minutes are recent
+		for (int i = 180; i >= 0; i -= 10) {
+			visit(0, 0, i);
+		}
+		user.advanceRewardsWatermark(user.getVisitedLocations().getAppendedCount());
+
+		// ACT
+		user.compactVisitedLocations(new RetentionPolicy(0, 0, 30, 60, 0), NOW);
+
+		// ASSERT
+		assertThat(minutesAgo()).containsExactly(180L, 120L, 60L, 30L, 20L, 10L, 0L);
+	}
+
+	@Test
+	public void compact_ShouldKeep_OneOldLocationPerGeohashCell() {
+
+		// ARRANGE
+		visit(48.8584, 2.2945, 500);
+		visit(48.8585, 2.2946, 400);
+		visit(48.8606, 2.3376, 300);
+		visit(48.8607, 2.3377, 200);
+		visit(48.8607, 2.3377, 0);
+		user.advanceRewardsWatermark(user.getVisitedLocations().getAppendedCount());
+
+		// ACT
+		user.compactVisitedLocations(new RetentionPolicy(0, 0, 60, 0, 6), NOW);
+
+		// ASSERT
+		assertThat(minutesAgo()).containsExactly(500L, 300L, 0L);
+	}
+
+	@Test
+	public void encode_ShouldReturn_KnownGeohash() {
+
+		// ACT
+		String geohash = GeohashUtil.encode(57.64911, 10.40744, 11);
+
+		// ASSERT
+		assertThat(geohash).isEqualTo("u4pruydqqvj");
+	}
+
+	@Test
+	public void compactAll_ShouldPublish_DroppedLocations() {
+
+		// ARRANGE
+		for (int i = 10; i > 0; i--) {
+			visit(0, 0, i);
+		}
+		user.advanceRewardsWatermark(user.getVisitedLocations().getAppendedCount());
+		UserService userService = new UserService();
+		userService.addUser(user);
+		MeterRegistry registry = new SimpleMeterRegistry();
+		HistoryCompactor compactor = new HistoryCompactor();
+		ReflectionTestUtils.setField(compactor, "userService", userService);
+		ReflectionTestUtils.setField(compactor, "meterRegistry", registry);
+		ReflectionTestUtils.setField(compactor, "maxCount", 3);
+		compactor.startCompaction();
+
+		// ACT
+		long dropped = compactor.compactAll();
+		compactor.stopCompaction();
+
+		// ASSERT
+		assertThat(dropped).isEqualTo(7);
+		assertThat(registry.get(TourGuideMetrics.HISTORY_COMPACTION_DROPPED).counter().count()).isEqualTo(7);
+		assertThat(registry.get(TourGuideMetrics.HISTORY_COMPACTION_DURATION).timer().count()).isEqualTo(1);
+	}
+}
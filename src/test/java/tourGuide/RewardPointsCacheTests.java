@@ -0,0 +1,177 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import gpsUtil.location.Attraction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import tourGuide.service.RewardPointsCache;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RewardPointsCacheTests {
+
+	@Mock
+	private RewardCentral rewardCentralMock;
+
+	private Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+
+	private UUID userId = UUID.randomUUID();
+
+	private MeterRegistry registry = new SimpleMeterRegistry();
+
+	@Test
+	public void getRewardPoints_ShouldCall_RewardCentralOnce() {
+
+		// ARRANGE
+		when(rewardCentralMock.getAttractionRewardPoints(any(UUID.class), any(UUID.class))).thenReturn(42);
+		RewardPointsCache cache = new RewardPointsCache(rewardCentralMock, registry, 100, 60);
+
+		// ACT
+		int firstPoints = cache.getRewardPoints(attraction, userId);
+		int secondPoints = cache.getRewardPoints(attraction, userId);
+
+		// ASSERT
+		assertThat(firstPoints).isEqualTo(42);
+		assertThat(secondPoints).isEqualTo(42);
+		assertThat(cache.getStats().hitCount()).isEqualTo(1);
+		assertThat(cache.getStats().missCount()).isEqualTo(1);
+		verify(rewardCentralMock, times(1)).getAttractionRewardPoints(attraction.attractionId, userId);
+	}
+
+	@Test
+	public void getRewardPoints_ShouldShare_ConcurrentLoads() {
+
+		// ARRANGE
+		when(rewardCentralMock.getAttractionRewardPoints(any(UUID.class), any(UUID.class))).thenAnswer(invocation -> {
+			Thread.sleep(200);
+			return 42;
+		});
+		RewardPointsCache cache = new RewardPointsCache(rewardCentralMock, registry, 100, 60);
+		ExecutorService executorService = Executors.newFixedThreadPool(10);
+
+		// ACT
+		List<CompletableFuture<Integer>> futures = IntStream.range(0, 10)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> cache.getRewardPoints(attraction, userId),
+						executorService))
+				.collect(Collectors.toList());
+		List<Integer> points = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+		executorService.shutdown();
+
+		// ASSERT
+		assertThat(points).containsOnly(42);
+		verify(rewardCentralMock, times(1)).getAttractionRewardPoints(attraction.attractionId, userId);
+	}
+
+	@Test
+	public void getRewardPoints_ShouldHit_AfterAttractionIdChanges() {
+
+		// ARRANGE
+		when(rewardCentralMock.getAttractionRewardPoints(any(UUID.class), any(UUID.class))).thenReturn(42);
+		RewardPointsCache cache = new RewardPointsCache(rewardCentralMock, registry, 100, 60);
+		// gpsUtil gives a new id to the same attraction on each call
+		Attraction refreshedAttraction = newAttraction(attraction.attractionName);
+		cache.getRewardPoints(attraction, userId);
+
+		// ACT
+		int points = cache.getRewardPoints(refreshedAttraction, userId);
+
+		// ASSERT
+		assertThat(points).isEqualTo(42);
+		assertThat(cache.getUpstreamCallCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void getRewardPoints_ShouldEvict_WhenCacheIsFull() {
+
+		// ARRANGE
+		when(rewardCentralMock.getAttractionRewardPoints(any(UUID.class), any(UUID.class))).thenReturn(42);
+		RewardPointsCache cache = new RewardPointsCache(rewardCentralMock, registry, 10, 60);
+
+		// ACT
+		IntStream.range(0, 100).forEach(i -> cache.getRewardPoints(newAttraction("Attraction " + i), userId));
+		cache.cleanUp();
+
+		// ASSERT
+		assertThat(cache.getStats().evictionCount()).isGreaterThan(0);
+	}
+
+	@Test
+	public void getRewardPoints_ShouldNotPin_VirtualThreads() {
+
+		// ARRANGE
+		when(rewardCentralMock.getAttractionRewardPoints(any(UUID.class), any(UUID.class))).thenAnswer(invocation -> {
+			Thread.sleep(200);
+			return 42;
+		});
+		ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+		RewardPointsCache cache = new RewardPointsCache(rewardCentralMock, null, executorService, registry, 10000, 60);
+		StopWatch stopWatch = new StopWatch();
+
+		// ACT
+		stopWatch.start();
+		List<CompletableFuture<Integer>> futures = IntStream.range(0, 1000)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> cache.getRewardPoints(newAttraction("Attraction " + i), userId),
+						executorService))
+				.collect(Collectors.toList());
+		List<Integer> points = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+		stopWatch.stop();
+		executorService.shutdown();
+
+		// ASSERT
+		// 1000 loads of 200 ms on a handful of carrier threads would take several seconds if loads pinned them
+		assertThat(points).hasSize(1000).containsOnly(42);
+		assertThat(stopWatch.getTime()).isLessThan(TimeUnit.SECONDS.toMillis(3));
+	}
+
+	@Test
+	public void close_ShouldRemove_OnlyItsOwnMeters() {
+
+		// ARRANGE
+		when(rewardCentralMock.getAttractionRewardPoints(any(UUID.class), any(UUID.class))).thenReturn(42);
+		RewardPointsCache discardedCache = new RewardPointsCache(rewardCentralMock, registry, 100, 60);
+		discardedCache.getRewardPoints(attraction, userId);
+		discardedCache.getRewardPoints(attraction, userId);
+		RewardPointsCache cache = new RewardPointsCache(rewardCentralMock, registry, 100, 60);
+
+		// ACT
+		double hitsAfterRebuild = cacheHits();
+		discardedCache.close();
+		boolean publishedAfterDiscardedClose = registry.find("cache.gets").tag("cache", RewardPointsCache.CACHE_NAME)
+				.meter() != null;
+		cache.close();
+
+		// ASSERT
+		assertThat(hitsAfterRebuild).isZero();
+		assertThat(publishedAfterDiscardedClose).isTrue();
+		assertThat(registry.find("cache.gets").tag("cache", RewardPointsCache.CACHE_NAME).meter()).isNull();
+	}
+
+	private double cacheHits() {
+		return registry.get("cache.gets").tag("cache", RewardPointsCache.CACHE_NAME).tag("result", "hit")
+				.functionCounter().count();
+	}
+
+	private static Attraction newAttraction(String name) {
+		return new Attraction(name, "Anaheim", "CA", 33.817595, -117.922008);
+	}
+}
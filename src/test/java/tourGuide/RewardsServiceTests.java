@@ -1,8 +1,11 @@
 package tourGuide;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -10,6 +13,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.Before;
@@ -17,13 +21,17 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
+import tourGuide.catalog.AttractionCatalog;
+import tourGuide.domain.RewardsBatchStatistics;
 import tourGuide.domain.User;
 import tourGuide.domain.UserReward;
 import tourGuide.service.RewardsService;
@@ -44,6 +52,9 @@ public class RewardsServiceTests {
 
 	private GpsUtil gpsUtil = new GpsUtil();
 
+	@Spy
+	private AttractionCatalog attractionCatalog = new AttractionCatalog(gpsUtil);
+
 	private RewardCentral rewardsCentral = new RewardCentral();
 
 	private User mockUser;
@@ -85,6 +96,115 @@ public class RewardsServiceTests {
 		assertThat(userRewards).hasSize(1);
 	}
 
+	@Test
+	public void addUserRewardTest_ShouldReward_AttractionOnce() {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		VisitedLocation visitedLocation = new VisitedLocation(mockUser.getUserId(), attraction, new Date());
+
+		// ACT
+		boolean firstReward = mockUser.addUserReward(new UserReward(visitedLocation, attraction, 100));
+		boolean secondReward = mockUser.addUserReward(new UserReward(visitedLocation, attraction, 100));
+
+		// ASSERT
+		assertTrue(firstReward);
+		assertFalse(secondReward);
+		assertTrue(mockUser.hasRewardFor(attraction));
+		assertThat(mockUser.getUserRewards()).hasSize(1);
+	}
+
+	@Test
+	public void calculateRewardsTest_ShouldComplete_WithGrantedRewards() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+
+		// ACT
+		int rewardsGranted = rewardsServiceMock.calculateRewards(mockUser).get();
+
+		// ASSERT
+		assertThat(rewardsGranted).isPositive();
+		assertThat(mockUser.getUserRewards()).hasSize(rewardsGranted);
+	}
+
+	@Test
+	public void calculateRewardsBatchTest_ShouldReturn_BatchStatistics() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		User secondUser = new User(UUID.randomUUID(), "Bravo", "000", "bravo@tourGuide.com");
+		listOfUserMock.add(secondUser);
+		listOfUserMock.forEach(u -> u.addToVisitedLocations(new VisitedLocation(u.getUserId(), attraction, new Date())));
+
+		// ACT
+		RewardsBatchStatistics statistics = rewardsServiceMock.calculateRewardsBatch(listOfUserMock).get();
+
+		// ASSERT
+		assertThat(statistics.getUsersProcessed()).isEqualTo(2);
+		assertThat(statistics.getRewardsGranted()).isEqualTo(
+				mockUser.getUserRewards().size() + secondUser.getUserRewards().size());
+		assertThat(statistics.getUpstreamCalls()).isGreaterThanOrEqualTo(statistics.getRewardsGranted());
+	}
+
+	@Test
+	public void calculateRewardsTest_ShouldOnlyCheck_NewLocations() {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		rewardsServiceMock.calculateRewards(mockUser).join();
+
+		// ACT
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		List<VisitedLocation> unprocessedLocations = mockUser
+				.getUnprocessedLocations(mockUser.getVisitedLocations().getAppendedCount());
+
+		// ASSERT
+		assertThat(unprocessedLocations).hasSize(1);
+	}
+
+	@Test
+	public void calculateRewardsTest_ShouldGrant_Reward_AfterFailedCalculation() {
+
+		// ARRANGE
+		RewardCentral failingRewardCentral = mock(RewardCentral.class);
+		when(failingRewardCentral.getAttractionRewardPoints(any(UUID.class), any(UUID.class)))
+				.thenThrow(new IllegalStateException("RewardCentral is down")).thenReturn(42);
+		ReflectionTestUtils.setField(rewardsServiceMock, "rewardsCentral", failingRewardCentral);
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		assertThatThrownBy(() -> rewardsServiceMock.calculateRewards(mockUser).join())
+				.isInstanceOf(CompletionException.class);
+
+		// ACT
+		int rewardsGranted = rewardsServiceMock.calculateRewards(mockUser).join();
+
+		// ASSERT
+		assertThat(rewardsGranted).isEqualTo(1);
+		assertThat(mockUser.getUserRewards()).extracting(UserReward::getRewardPoints).containsExactly(42);
+		assertThat(mockUser.getRewardsWatermark()).isEqualTo(1);
+	}
+
+	@Test
+	public void resetRewardsWatermarkTest_ShouldReturn_WholeHistory() {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		rewardsServiceMock.calculateRewards(mockUser).join();
+
+		// ACT
+		mockUser.resetRewardsWatermark();
+		List<VisitedLocation> unprocessedLocations = mockUser
+				.getUnprocessedLocations(mockUser.getVisitedLocations().getAppendedCount());
+
+		// ASSERT
+		assertThat(unprocessedLocations).hasSize(2);
+	}
+
 	@Test
 	public void isWithinAttractionProximityTest_ShouldReturn_True() {
 
@@ -107,6 +227,33 @@ public class RewardsServiceTests {
 		assertTrue(rewardsServiceMock.nearAttraction(visitedLocation, attraction));
 	}
 
+	@Test
+	public void getNearbyAttractionsTest_ShouldReturn_VisitedAttraction() {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		VisitedLocation visitedLocation = new VisitedLocation(mockUser.getUserId(), attraction, new Date());
+
+		// ACT
+		List<Attraction> attractions = rewardsServiceMock.getNearbyAttractions(visitedLocation);
+
+		// ASSERT
+		assertThat(attractions).extracting(a -> a.attractionName).contains(attraction.attractionName);
+	}
+
+	@Test
+	public void getAttractionsWithinProximityTest_ShouldReturn_OnlyAttractionsInRange() {
+
+		// ARRANGE
+		Location location = new Location(40.689930310941605, -74.04536481320433);
+
+		// ACT
+		List<Attraction> attractions = rewardsServiceMock.getAttractionsWithinProximity(location);
+
+		// ASSERT
+		assertThat(attractions).allMatch(a -> rewardsServiceMock.getDistance(a, location) <= 200);
+	}
+
 	@Test
 	public void getRewardsPointsTest_ShouldReturn_PositiveResult() {
 
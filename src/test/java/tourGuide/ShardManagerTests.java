@@ -0,0 +1,97 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import tourGuide.shard.ClusterMembership;
+import tourGuide.shard.ShardManager;
+
+public class ShardManagerTests {
+
+	private static final int SHARD_COUNT = 256;
+
+	private List<UUID> userIds = IntStream.range(0, 10000).mapToObj(i -> UUID.randomUUID())
+			.collect(Collectors.toList());
+
+	private ClusterMembership membership = new ClusterMembership(Arrays.asList("node-0", "node-1", "node-2"));
+
+	// Three in-process instances sharing the same membership
+	private List<ShardManager> nodes = IntStream.range(0, 3)
+			.mapToObj(i -> new ShardManager("node-" + i, membership, SHARD_COUNT))
+			.collect(Collectors.toCollection(ArrayList::new));
+
+	private Map<UUID, List<String>> owners(List<ShardManager> shardManagers) {
+		return userIds.stream().collect(Collectors.toMap(id -> id, id -> shardManagers.stream()
+				.filter(node -> node.isOwned(id)).map(ShardManager::getNodeId).collect(Collectors.toList())));
+	}
+
+	@Test
+	public void isOwned_ShouldAssign_EveryUserToExactlyOneNode() {
+
+		// ACT
+		Map<UUID, List<String>> owners = owners(nodes);
+
+		// ASSERT
+		assertThat(owners.values()).allMatch(nodeIds -> nodeIds.size() == 1);
+		for (ShardManager node : nodes) {
+			long ownedUsers = userIds.stream().filter(node::isOwned).count();
+			assertThat(ownedUsers).isBetween(2000L, 4700L);
+		}
+	}
+
+	@Test
+	public void getOwnedShards_ShouldPartition_TheShards() {
+
+		// ACT
+		List<Integer> shards = nodes.stream().flatMap(node -> node.getOwnedShards().stream()).sorted()
+				.collect(Collectors.toList());
+
+		// ASSERT
+		assertThat(shards).containsExactlyElementsOf(
+				IntStream.range(0, SHARD_COUNT).boxed().collect(Collectors.toList()));
+	}
+
+	@Test
+	public void rebalance_ShouldMove_OnlyTheShardsOfTheNewNode() {
+
+		// ARRANGE
+		Map<UUID, List<String>> ownersBefore = owners(nodes);
+
+		// ACT
+		membership.join("node-3");
+		ShardManager newNode = new ShardManager("node-3", membership, SHARD_COUNT);
+		nodes.add(newNode);
+		Map<UUID, List<String>> ownersAfter = owners(nodes);
+
+		// ASSERT
+		assertThat(ownersAfter.values()).allMatch(nodeIds -> nodeIds.size() == 1);
+		long movedUsers = userIds.stream().filter(id -> !ownersBefore.get(id).equals(ownersAfter.get(id))).count();
+		long newNodeUsers = userIds.stream().filter(newNode::isOwned).count();
+		// Users only move to the new node, about a quarter of them
+		assertThat(movedUsers).isEqualTo(newNodeUsers);
+		assertThat(movedUsers).isBetween(1000L, 4000L);
+	}
+
+	@Test
+	public void rebalance_ShouldHandOver_TheShardsOfALeavingNode() {
+
+		// ACT
+		membership.leave("node-2");
+		List<ShardManager> remainingNodes = nodes.subList(0, 2);
+
+		// ASSERT
+		assertThat(owners(remainingNodes).values()).allMatch(nodeIds -> nodeIds.size() == 1);
+		assertThat(nodes.get(2).getOwnedShards()).isEmpty();
+		assertThat(nodes.get(0).getNodes()).containsExactly("node-0", "node-1");
+	}
+
+}
@@ -0,0 +1,77 @@
+package tourGuide;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import lombok.extern.slf4j.Slf4j;
+import tourGuide.domain.User;
+import tourGuide.domain.UserReward;
+import tourGuide.snapshot.UserSnapshot;
+import tourGuide.snapshot.UserSnapshotStore;
+
+@Slf4j
+public class SnapshotBenchmarkIT {
+
+	private static final int USERS = 250000;
+
+	private static final int LOCATIONS_PER_USER = 10;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/*
+	 * Writes a snapshot of 250 000 users with 10 visited locations and a reward each, then loads it back.
+	 * Write and load times are logged per million users.
+	 */
+	@Test
+	public void snapshotWriteAndLoad() throws IOException {
+
+		// ARRANGE
+		Path file = folder.getRoot().toPath().resolve("users.snapshot");
+		Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+		List<User> users = IntStream.range(0, USERS).parallel().mapToObj(i -> {
+			User user = new User(UUID.randomUUID(), "internalUser" + i, "000", "internalUser" + i + "@tourGuide.com");
+			for (int j = 0; j < LOCATIONS_PER_USER; j++) {
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
+						new Location(j % 170 - 85, i % 360 - 180), new Date(1000L * j)));
+			}
+			user.addUserReward(new UserReward(user.getLastVisitedLocation(), attraction, 100));
+			return user;
+		}).collect(Collectors.toList());
+		UserSnapshotStore snapshotStore = new UserSnapshotStore(file);
+
+		// ACT
+		long writeStart = System.nanoTime();
+		snapshotStore.write(users, 0);
+		long writeTime = System.nanoTime() - writeStart;
+		users = null;
+
+		long loadStart = System.nanoTime();
+		UserSnapshot snapshot = snapshotStore.read();
+		long loadTime = System.nanoTime() - loadStart;
+
+		// ASSERT
+		log.debug("[TEST] snapshotWriteAndLoad() Write : {} ms per million users, {} bytes per user.",
+				TimeUnit.NANOSECONDS.toMillis(writeTime) * 1000000 / USERS, file.toFile().length() / USERS);
+		log.debug("[TEST] snapshotWriteAndLoad() Load : {} ms per million users.",
+				TimeUnit.NANOSECONDS.toMillis(loadTime) * 1000000 / USERS);
+		assertEquals(USERS, snapshot.getUsers().size());
+		assertEquals(LOCATIONS_PER_USER, snapshot.getUsers().get(USERS - 1).getVisitedLocations().size());
+	}
+
+}
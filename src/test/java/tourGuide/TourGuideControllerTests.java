@@ -1,27 +1,41 @@
 package tourGuide;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -29,24 +43,44 @@ import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import tourGuide.controller.TourGuideController;
 import tourGuide.domain.User;
 import tourGuide.domain.dto.UserPreferencesDto;
 import tourGuide.domain.response.AttractionInformation;
 import tourGuide.domain.response.NearbyAttractionsResponse;
 import tourGuide.domain.response.UserLocationResponse;
+import tourGuide.metrics.TourGuideMetrics;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
 import tourGuide.service.UserService;
 import tourGuide.tracker.TrackerThread;
+import tripPricer.Provider;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(TourGuideController.class)
+@TestPropertySource(properties = { "controller.getLocation.timeoutMillis=200",
+		"controller.getNearbyAttractions.timeoutMillis=200", "controller.getTripDeals.timeoutMillis=200",
+		"controller.batch.timeoutMillis=200", "controller.batch.maxUsers=3" })
 public class TourGuideControllerTests {
 
+	@TestConfiguration
+	static class MetricsConfiguration {
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
 	@Autowired
 	private MockMvc mockMvc;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@MockBean
 	private TrackerThread trackerThread; // Had to define this bean to load ApplicationContext correctly
 
@@ -91,13 +125,56 @@ public class TourGuideControllerTests {
 		Attraction attraction = gpsUtil.getAttractions().get(0);
 		VisitedLocation visitedLocation = new VisitedLocation(mockUser.getUserId(), attraction, new Date());
 		when(userServiceMock.getUser(anyString())).thenReturn(mockUser);
-		when(tourGuideServiceMock.getUserLocation(any(User.class))).thenReturn(visitedLocation);
+		when(tourGuideServiceMock.getUserLocationAsync(any(User.class)))
+				.thenReturn(CompletableFuture.completedFuture(visitedLocation));
 
-		// ACT AND ASSERT
-		mockMvc.perform(get("/getLocation").param("userName", USERNAME)).andExpect(status().isOk())
+		// ACT
+		MvcResult result = mockMvc.perform(get("/getLocation").param("userName", USERNAME))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
 				.andExpect(jsonPath("$.location.attractionName").value("Disneyland"));
 	}
 
+	@Test
+	public void getLocation_ShouldReturn_StaleLocation_WhenTrackingTimesOut() throws Exception {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		when(userServiceMock.getUser(anyString())).thenReturn(mockUser);
+		when(tourGuideServiceMock.getUserLocationAsync(any(User.class))).thenReturn(new CompletableFuture<>());
+		Counter fallbacks = meterRegistry.counter(TourGuideMetrics.ENDPOINT_FALLBACKS, "endpoint", "getLocation");
+		double fallbacksBefore = fallbacks.count();
+
+		// ACT
+		MvcResult result = mockMvc.perform(get("/getLocation").param("userName", USERNAME))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.WARNING, "110 - \"Response is Stale\""))
+				.andExpect(jsonPath("$.location.latitude").value(attraction.latitude));
+		assertThat(fallbacks.count()).isEqualTo(fallbacksBefore + 1);
+	}
+
+	@Test
+	public void getLocation_ShouldReturn_ServiceUnavailable_WhenUserHasNoLocation() throws Exception {
+
+		// ARRANGE
+		when(userServiceMock.getUser(anyString())).thenReturn(mockUser);
+		when(tourGuideServiceMock.getUserLocationAsync(any(User.class)))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("gpsUtil is down")));
+
+		// ACT
+		MvcResult result = mockMvc.perform(get("/getLocation").param("userName", USERNAME))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+	}
+
 	@Test
 	public void testGetNearbyAttractions_ShouldReturn_StatusOk() throws Exception {
 
@@ -117,13 +194,33 @@ public class TourGuideControllerTests {
 		response.setNearbyAttractions(attractions);
 
 		when(userServiceMock.getUser(anyString())).thenReturn(mockUser);
-		when(tourGuideServiceMock.getNearByAttractions(any(User.class))).thenReturn(response);
+		when(tourGuideServiceMock.getNearByAttractionsAsync(any(User.class)))
+				.thenReturn(CompletableFuture.completedFuture(response));
 
-		// ACT AND ASSERT
-		mockMvc.perform(get("/getNearbyAttractions").param("userName", USERNAME)).andExpect(status().isOk())
+		// ACT
+		MvcResult result = mockMvc.perform(get("/getNearbyAttractions").param("userName", USERNAME))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
 				.andExpect(jsonPath("$.nearbyAttractions[0].nameOfAttraction").value("Disneyland"));
 	}
 
+	@Test
+	public void getNearbyAttractions_ShouldReturn_ServiceUnavailable_WhenTimesOut() throws Exception {
+
+		// ARRANGE
+		when(userServiceMock.getUser(anyString())).thenReturn(mockUser);
+		when(tourGuideServiceMock.getNearByAttractionsAsync(any(User.class))).thenReturn(new CompletableFuture<>());
+
+		// ACT
+		MvcResult result = mockMvc.perform(get("/getNearbyAttractions").param("userName", USERNAME))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+	}
+
 	@Test
 	public void testGetAllCurrentLocations_ShouldReturn_StatusOk() throws Exception {
 
@@ -144,14 +241,131 @@ public class TourGuideControllerTests {
 
 	}
 
+	@Test
+	public void streamAllCurrentLocations_ShouldWrite_NdjsonWithNextCursor() throws Exception {
+
+		// ARRANGE
+		UserLocationResponse userLocationResponse = new UserLocationResponse();
+		userLocationResponse.setUserId(mockUser.getUserId());
+		userLocationResponse.setUserLocation(new Location(40.689930310941605, -74.04536481320433));
+		when(userServiceMock.getUsersAfter(null, 1)).thenReturn(List.of(mockUser));
+		doAnswer(invocation -> {
+			Consumer<UserLocationResponse> consumer = invocation.getArgument(1);
+			consumer.accept(userLocationResponse);
+			return null;
+		}).when(tourGuideServiceMock).streamUsersLocation(eq(List.of(mockUser)), any());
+
+		// ACT
+		MvcResult result = mockMvc.perform(get("/streamAllCurrentLocations").param("limit", "1"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().string("Next-Cursor", mockUser.getUserId().toString()))
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andExpect(content().string("{\"userId\":\"" + mockUser.getUserId()
+						+ "\",\"userLocation\":{\"longitude\":-74.04536481320433,\"latitude\":40.689930310941605}}\n"));
+	}
+
+	@Test
+	public void streamAllCurrentLocations_ShouldWrite_JsonArray() throws Exception {
+
+		// ARRANGE
+		when(userServiceMock.getUsersAfter(null, 0)).thenReturn(List.of(mockUser));
+		doAnswer(invocation -> {
+			Consumer<UserLocationResponse> consumer = invocation.getArgument(1);
+			for (int i = 0; i < 2; i++) {
+				UserLocationResponse userLocationResponse = new UserLocationResponse();
+				userLocationResponse.setUserId(mockUser.getUserId());
+				userLocationResponse.setUserLocation(new Location(i, i));
+				consumer.accept(userLocationResponse);
+			}
+			return null;
+		}).when(tourGuideServiceMock).streamUsersLocation(any(), any());
+
+		// ACT
+		MvcResult result = mockMvc.perform(get("/streamAllCurrentLocations").param("format", "json"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().doesNotExist("Next-Cursor"))
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[1].userLocation.latitude").value(1.0));
+	}
+
 	@Test
 	public void testGetTripDeals_ShouldReturn_StatusOk() throws Exception {
 
 		// ARRANGE
 		when(userServiceMock.getUser(anyString())).thenReturn(mockUser);
+		when(tourGuideServiceMock.getTripDealsAsync(any(User.class)))
+				.thenReturn(CompletableFuture.completedFuture(new ArrayList<>()));
+
+		// ACT
+		MvcResult result = mockMvc.perform(get("/getTripDeals").param("userName", USERNAME))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.WARNING));
+	}
+
+	@Test
+	public void getTripDeals_ShouldReturn_PreviousDeals_WhenTripPricerTimesOut() throws Exception {
+
+		// ARRANGE
+		List<Provider> previousDeals = new ArrayList<>();
+		previousDeals.add(new Provider(UUID.randomUUID(), "Holiday Travels", 250.0));
+		mockUser.setTripDeals(previousDeals);
+		when(userServiceMock.getUser(anyString())).thenReturn(mockUser);
+		when(tourGuideServiceMock.getTripDealsAsync(any(User.class))).thenReturn(new CompletableFuture<>());
+
+		// ACT
+		MvcResult result = mockMvc.perform(get("/getTripDeals").param("userName", USERNAME))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.WARNING, "110 - \"Response is Stale\""))
+				.andExpect(jsonPath("$[0].name").value("Holiday Travels"));
+	}
+
+	@Test
+	public void batchGetLocation_ShouldReturn_PerUserResultsAndErrors() throws Exception {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		User slowUser = new User(UUID.randomUUID(), "Bravo", "000", "bravo@tourGuide.com");
+		VisitedLocation visitedLocation = new VisitedLocation(mockUser.getUserId(), attraction, new Date());
+		when(userServiceMock.getUser(USERNAME)).thenReturn(mockUser);
+		when(userServiceMock.getUser("Bravo")).thenReturn(slowUser);
+		when(tourGuideServiceMock.getUserLocationAsync(mockUser))
+				.thenReturn(CompletableFuture.completedFuture(visitedLocation));
+		when(tourGuideServiceMock.getUserLocationAsync(slowUser)).thenReturn(new CompletableFuture<>());
+
+		// ACT
+		MvcResult result = mockMvc.perform(post("/batch/getLocation").contentType(MediaType.APPLICATION_JSON)
+				.content("[\"Alpha\", \"Unknown\", \"Bravo\", \"Alpha\"]"))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// ASSERT
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(3))
+				.andExpect(jsonPath("$[0].userName").value(USERNAME))
+				.andExpect(jsonPath("$[0].result.location.attractionName").value("Disneyland"))
+				.andExpect(jsonPath("$[1].error").value("Username was not found"))
+				.andExpect(jsonPath("$[2].userName").value("Bravo"))
+				.andExpect(jsonPath("$[2].error").value("No answer within the batch timeout"));
+	}
+
+	@Test
+	public void batchGetRewards_ShouldReturn_BadRequest_WhenTooManyUsers() throws Exception {
 
 		// ACT AND ASSERT
-		mockMvc.perform(get("/getTripDeals").param("userName", USERNAME)).andExpect(status().isOk());
+		MvcResult result = mockMvc.perform(post("/batch/getRewards").contentType(MediaType.APPLICATION_JSON)
+				.content("[\"a\", \"b\", \"c\", \"d\"]")).andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
 	}
 
 	@Test
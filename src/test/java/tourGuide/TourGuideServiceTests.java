@@ -1,14 +1,29 @@
 package tourGuide;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import javax.money.CurrencyUnit;
 import javax.money.Monetary;
@@ -19,16 +34,24 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tourGuide.catalog.AttractionCatalog;
 import tourGuide.domain.User;
 import tourGuide.domain.UserPreferences;
+import tourGuide.domain.response.AttractionInformation;
 import tourGuide.domain.response.NearbyAttractionsResponse;
 import tourGuide.domain.response.UserLocationResponse;
+import tourGuide.metrics.TourGuideMetrics;
 import tourGuide.service.RewardsService;
 import tourGuide.service.TourGuideService;
 import tourGuide.service.UserService;
@@ -46,8 +69,12 @@ public class TourGuideServiceTests {
 	@Mock
 	private UserService userServiceMock;
 
+	@Spy
 	private GpsUtil gpsUtil = new GpsUtil();
 
+	@Spy
+	private AttractionCatalog attractionCatalog = new AttractionCatalog(gpsUtil);
+
 	@Value("${tripPricer.api.key}")
 	public String tripPricerApiKey;
 
@@ -55,8 +82,13 @@ public class TourGuideServiceTests {
 
 	private List<User> listOfUserMock = new ArrayList<>();
 
+	private MeterRegistry registry = new SimpleMeterRegistry();
+
 	@Before
 	public void initUser() {
+		ReflectionTestUtils.setField(tourGuideServiceMock, "meterRegistry", registry);
+		tourGuideServiceMock.initializeConcurrencyLimits();
+
 		// This call is important in order to reset the list when calling getAllUsers()
 		userServiceMock.initializeInternalUsers(0);
 
@@ -112,6 +144,9 @@ public class TourGuideServiceTests {
 	@Test
 	public void testTrackUserLocation_ShouldReturn_NonNullResponse() throws InterruptedException, ExecutionException {
 
+		// ARRANGE
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+
 		// ACT
 		VisitedLocation response = tourGuideServiceMock.trackUserLocation(mockUser).get();
 
@@ -123,11 +158,69 @@ public class TourGuideServiceTests {
 	@Test
 	public void testGetNearByAttractions_ShouldReturn_5_Attractions() throws InterruptedException, ExecutionException {
 
+		// ARRANGE
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+		when(rewardsServiceMock.getRewardPointsAsync(any(Attraction.class), any(User.class)))
+				.thenReturn(CompletableFuture.completedFuture(100));
+
 		// ACT
 		NearbyAttractionsResponse response = tourGuideServiceMock.getNearByAttractions(mockUser);
 
 		// ASSERT
 		assertThat(response.getNearbyAttractions()).hasSize(5);
+		assertThat(response.getNearbyAttractions()).extracting(AttractionInformation::getDistanceToAttraction)
+				.isSorted();
+		assertThat(response.getNearbyAttractions()).extracting(AttractionInformation::getAttractionRewardPoints)
+				.containsOnly(100);
+	}
+
+	@Test
+	public void getNearByAttractions_ShouldReuse_CachedResponse_InSameCell()
+			throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		when(rewardsServiceMock.getRewardPointsAsync(any(Attraction.class), any(User.class)))
+				.thenReturn(CompletableFuture.completedFuture(100));
+
+		// ACT
+		NearbyAttractionsResponse first = tourGuideServiceMock.getNearByAttractions(mockUser);
+		// A few meters away, in the same cell
+		Location movedLocation = new Location(attraction.latitude + 0.00001, attraction.longitude);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), movedLocation, new Date()));
+		NearbyAttractionsResponse second = tourGuideServiceMock.getNearByAttractions(mockUser);
+
+		// ASSERT
+		assertThat(second.getNearbyAttractions()).extracting(AttractionInformation::getNameOfAttraction)
+				.containsExactlyElementsOf(first.getNearbyAttractions().stream()
+						.map(AttractionInformation::getNameOfAttraction).collect(Collectors.toList()));
+		assertThat(second.getUserLocation()).isSameAs(movedLocation);
+		assertThat(second.getNearbyAttractions().get(0).getDistanceToAttraction())
+				.isGreaterThan(first.getNearbyAttractions().get(0).getDistanceToAttraction());
+		verify(rewardsServiceMock, times(5)).getRewardPointsAsync(any(Attraction.class), any(User.class));
+		assertThat(tourGuideServiceMock.getNearbyAttractionsCacheStats().hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void getNearByAttractions_ShouldOnlyReturn_AttractionsWithinProximity()
+			throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		mockUser.addToVisitedLocations(new VisitedLocation(mockUser.getUserId(), attraction, new Date()));
+		mockUser.getUserPreferences().setAttractionProximity(0);
+		when(rewardsServiceMock.getRewardPointsAsync(any(Attraction.class), any(User.class)))
+				.thenReturn(CompletableFuture.completedFuture(100));
+
+		// ACT
+		NearbyAttractionsResponse response = tourGuideServiceMock.getNearByAttractions(mockUser);
+
+		// ASSERT
+		assertThat(response.getNearbyAttractions()).extracting(AttractionInformation::getNameOfAttraction)
+				.containsExactly(attraction.attractionName);
+		assertThat(response.getNearbyAttractions().get(0).getAttractionLocation().latitude)
+				.isEqualTo(attraction.latitude);
 	}
 
 	@Test
@@ -137,6 +230,7 @@ public class TourGuideServiceTests {
 		User secondUser = new User(UUID.randomUUID(), "Bravo", "000", "bravo@tourGuide.com");
 		listOfUserMock.add(secondUser);
 		when(userServiceMock.getAllUsers()).thenReturn(listOfUserMock);
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
 
 		// ACT
 		List<UserLocationResponse> response = tourGuideServiceMock.getAllUsersLocation();
@@ -146,9 +240,104 @@ public class TourGuideServiceTests {
 
 	}
 
+	@Test
+	public void streamUsersLocation_ShouldKeep_UsersOrder() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "");
+			// Every other user has no history and is tracked
+			if (i % 2 == 0) {
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			}
+			users.add(user);
+		}
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+
+		// ACT
+		List<UserLocationResponse> response = new ArrayList<>();
+		tourGuideServiceMock.streamUsersLocation(users, response::add);
+
+		// ASSERT
+		assertThat(response).extracting(UserLocationResponse::getUserId)
+				.containsExactlyElementsOf(users.stream().map(User::getUserId).collect(Collectors.toList()));
+		assertThat(response.get(0).getUserLocation().latitude).isEqualTo(attraction.latitude);
+		assertThat(response).allMatch(userLocationResponse -> userLocationResponse.getUserLocation() != null);
+	}
+
+	@Test
+	public void streamUsersLocation_ShouldStream_OtherUsers_WhenTrackingFails()
+			throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "");
+			if (i % 2 == 0) {
+				user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			}
+			users.add(user);
+		}
+		User failingUser = users.get(3);
+		doThrow(new IllegalStateException("gpsUtil is down")).when(gpsUtil).getUserLocation(failingUser.getUserId());
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+
+		// ACT
+		List<UserLocationResponse> response = new ArrayList<>();
+		tourGuideServiceMock.streamUsersLocation(users, response::add);
+
+		// ASSERT
+		assertThat(response).extracting(UserLocationResponse::getUserId).containsExactlyElementsOf(users.stream()
+				.filter(user -> user != failingUser).map(User::getUserId).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void getNearByAttractions_ShouldFail_WhenUserCannotBeLocated() {
+
+		// ARRANGE
+		doThrow(new IllegalStateException("gpsUtil is down")).when(gpsUtil).getUserLocation(mockUser.getUserId());
+
+		// ACT & ASSERT
+		assertThatThrownBy(() -> tourGuideServiceMock.getNearByAttractions(mockUser))
+				.isInstanceOf(ExecutionException.class);
+	}
+
+	@Test
+	public void getNearByAttractionsAsync_ShouldRead_CatalogOncePerBatch() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		Attraction attraction = gpsUtil.getAttractions().get(0);
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "");
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			users.add(user);
+		}
+
+		when(rewardsServiceMock.getRewardPointsAsync(any(Attraction.class), any(User.class)))
+				.thenReturn(CompletableFuture.completedFuture(100));
+
+		// ACT
+		Map<UUID, CompletableFuture<NearbyAttractionsResponse>> responses = tourGuideServiceMock
+				.getNearByAttractionsAsync(users);
+
+		// ASSERT
+		assertThat(responses).containsOnlyKeys(users.stream().map(User::getUserId).collect(Collectors.toList()));
+		for (CompletableFuture<NearbyAttractionsResponse> response : responses.values()) {
+			assertThat(response.get().getNearbyAttractions()).hasSize(5);
+		}
+		verify(attractionCatalog, times(1)).getSnapshot();
+	}
+
 	@Test
 	public void getUserLocation_ShouldReturn_FirstUserLocation() throws InterruptedException, ExecutionException {
 
+		// ARRANGE
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+
 		// ACT
 		VisitedLocation visitedLocation = tourGuideServiceMock.trackUserLocation(mockUser).get();
 
@@ -156,4 +345,138 @@ public class TourGuideServiceTests {
 		assertEquals(visitedLocation.userId, mockUser.getUserId());
 	}
 
+	@Test
+	public void trackUserLocation_ShouldShare_TrackingInProgress() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+		CountDownLatch gpsUtilCalled = new CountDownLatch(1);
+		CountDownLatch releaseGpsUtil = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			gpsUtilCalled.countDown();
+			releaseGpsUtil.await();
+			return invocation.callRealMethod();
+		}).when(gpsUtil).getUserLocation(mockUser.getUserId());
+
+		// ACT
+		CompletableFuture<VisitedLocation> firstTracking = tourGuideServiceMock.trackUserLocation(mockUser);
+		gpsUtilCalled.await();
+		CompletableFuture<VisitedLocation> secondTracking = tourGuideServiceMock.trackUserLocation(mockUser);
+		releaseGpsUtil.countDown();
+		VisitedLocation visitedLocation = firstTracking.get();
+
+		// ASSERT
+		assertThat(secondTracking).isSameAs(firstTracking);
+		assertThat(visitedLocation).isNotNull();
+		assertThat(mockUser.getVisitedLocations()).hasSize(1);
+		assertThat(tourGuideServiceMock.getCoalescedTrackings()).isEqualTo(1);
+		verify(gpsUtil, times(1)).getUserLocation(mockUser.getUserId());
+		verify(rewardsServiceMock, times(1)).calculateRewards(mockUser);
+	}
+
+	@Test
+	public void trackUserLocation_ShouldReturn_LocationBeforeItsRewards()
+			throws InterruptedException, ExecutionException, TimeoutException {
+
+		// ARRANGE
+		CompletableFuture<Integer> rewards = new CompletableFuture<>();
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(rewards);
+
+		// ACT
+		VisitedLocation visitedLocation = tourGuideServiceMock.trackUserLocation(mockUser).get(5, TimeUnit.SECONDS);
+		CompletableFuture<VisitedLocation> rewarded = tourGuideServiceMock.trackUserLocationAndRewards(mockUser);
+		boolean rewardedBeforeRewards = rewarded.isDone();
+		rewards.complete(1);
+
+		// ASSERT
+		assertThat(rewardedBeforeRewards).isFalse();
+		assertThat(rewarded.get(5, TimeUnit.SECONDS)).isSameAs(visitedLocation);
+		verify(gpsUtil, times(1)).getUserLocation(mockUser.getUserId());
+	}
+
+	@Test
+	public void trackUserLocation_ShouldKeep_Location_WhenRewardsFail()
+			throws InterruptedException, ExecutionException, TimeoutException {
+
+		// ARRANGE
+		when(rewardsServiceMock.calculateRewards(any(User.class)))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("RewardCentral is down")));
+
+		// ACT
+		CompletableFuture<VisitedLocation> rewarded = tourGuideServiceMock.trackUserLocationAndRewards(mockUser);
+		VisitedLocation visitedLocation = tourGuideServiceMock.getUserLocationAsync(mockUser).get(5, TimeUnit.SECONDS);
+
+		// ASSERT
+		assertThatThrownBy(() -> rewarded.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+				.hasRootCauseInstanceOf(IllegalStateException.class);
+		assertThat(visitedLocation.userId).isEqualTo(mockUser.getUserId());
+		assertThat(mockUser.getVisitedLocations()).hasSize(1);
+	}
+
+	@Test
+	public void trackUserLocation_ShouldRecord_GpsUtilLatency() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+
+		// ACT
+		tourGuideServiceMock.trackUserLocation(mockUser).get();
+
+		// ASSERT
+		assertThat(registry.get(TourGuideMetrics.UPSTREAM_CALLS).tag("upstream", TourGuideMetrics.GPS_UTIL).timer()
+				.count()).isEqualTo(1);
+	}
+
+	@Test
+	public void trackUserLocation_ShouldFail_WhenGpsUtilFails() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		doThrow(new IllegalStateException("gpsUtil is down")).when(gpsUtil).getUserLocation(mockUser.getUserId());
+
+		// ACT
+		CompletableFuture<VisitedLocation> tracking = tourGuideServiceMock.trackUserLocation(mockUser);
+
+		// ASSERT
+		assertThatThrownBy(tracking::get).isInstanceOf(ExecutionException.class)
+				.hasRootCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void trackUserLocation_ShouldNotLeak_TrackingRejectedByExecutor()
+			throws InterruptedException, ExecutionException, TimeoutException {
+
+		// ARRANGE
+		ExecutorService executorService = (ExecutorService) ReflectionTestUtils.getField(tourGuideServiceMock,
+				"executorService");
+		ExecutorService rejectingExecutor = Executors.newSingleThreadExecutor();
+		rejectingExecutor.shutdown();
+		ReflectionTestUtils.setField(tourGuideServiceMock, "executorService", rejectingExecutor);
+		CompletableFuture<VisitedLocation> rejectedTracking = tourGuideServiceMock.trackUserLocation(mockUser);
+		ReflectionTestUtils.setField(tourGuideServiceMock, "executorService", executorService);
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+
+		// ACT
+		VisitedLocation visitedLocation = tourGuideServiceMock.trackUserLocation(mockUser).get(5, TimeUnit.SECONDS);
+
+		// ASSERT
+		assertThatThrownBy(rejectedTracking::get).hasCauseInstanceOf(RejectedExecutionException.class);
+		assertThat(visitedLocation.userId).isEqualTo(mockUser.getUserId());
+	}
+
+	@Test
+	public void trackUserLocation_ShouldStart_NewTrackingOnceCompleted() throws InterruptedException, ExecutionException {
+
+		// ARRANGE
+		when(rewardsServiceMock.calculateRewards(any(User.class))).thenReturn(CompletableFuture.completedFuture(0));
+
+		// ACT
+		tourGuideServiceMock.trackUserLocation(mockUser).get();
+		tourGuideServiceMock.trackUserLocation(mockUser).get();
+
+		// ASSERT
+		assertThat(mockUser.getVisitedLocations()).hasSize(2);
+		assertThat(tourGuideServiceMock.getCoalescedTrackings()).isZero();
+		verify(gpsUtil, times(2)).getUserLocation(mockUser.getUserId());
+	}
+
 }
@@ -0,0 +1,81 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tourGuide.domain.User;
+import tourGuide.metrics.TourGuideMetrics;
+import tourGuide.metrics.TrackerMetrics;
+
+public class TrackerMetricsTests {
+
+	private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private TrackerMetrics trackerMetrics = new TrackerMetrics(registry);
+
+	private User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+	@Test
+	public void recordCycle_ShouldPublish_DurationAndThroughput() {
+
+		// ACT
+		trackerMetrics.recordCycle(100, TimeUnit.SECONDS.toNanos(2));
+
+		// ASSERT
+		assertThat(registry.get(TourGuideMetrics.TRACKER_CYCLE_DURATION).timer().count()).isEqualTo(1);
+		assertThat(registry.get(TourGuideMetrics.TRACKER_CYCLE_DURATION).timer().totalTime(TimeUnit.SECONDS))
+				.isEqualTo(2.0);
+		assertThat(registry.get(TourGuideMetrics.TRACKER_CYCLE_THROUGHPUT).gauge().value()).isEqualTo(50.0);
+	}
+
+	@Test
+	public void recordTracking_ShouldCount_OutcomesSeparately() {
+
+		// ACT
+		trackerMetrics.recordTracking(true);
+		trackerMetrics.recordTracking(true);
+		trackerMetrics.recordTracking(false);
+
+		// ASSERT
+		assertThat(registry.get(TourGuideMetrics.TRACKER_TRACKINGS).tag("outcome", "success").counter().count())
+				.isEqualTo(2.0);
+		assertThat(registry.get(TourGuideMetrics.TRACKER_TRACKINGS).tag("outcome", "failure").counter().count())
+				.isEqualTo(1.0);
+	}
+
+	@Test
+	public void recordStaleness_ShouldRecord_AgeOfTheLastLocation() {
+
+		// ARRANGE
+		Date oneMinuteAgo = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(33.8, -117.9), oneMinuteAgo));
+
+		// ACT
+		trackerMetrics.recordStaleness(user);
+
+		// ASSERT
+		assertThat(registry.get(TourGuideMetrics.TRACKER_LOCATION_STALENESS).timer().count()).isEqualTo(1);
+		assertThat(registry.get(TourGuideMetrics.TRACKER_LOCATION_STALENESS).timer().max(TimeUnit.SECONDS))
+				.isCloseTo(60.0, within(5.0));
+	}
+
+	@Test
+	public void recordStaleness_ShouldSkip_UsersWithoutLocation() {
+
+		// ACT
+		trackerMetrics.recordStaleness(user);
+
+		// ASSERT
+		assertThat(registry.get(TourGuideMetrics.TRACKER_LOCATION_STALENESS).timer().count()).isEqualTo(0);
+	}
+
+}
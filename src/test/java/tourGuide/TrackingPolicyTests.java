@@ -0,0 +1,97 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import tourGuide.domain.User;
+import tourGuide.tracker.TrackingPolicy;
+import tourGuide.tracker.TrackingPriority;
+
+public class TrackingPolicyTests {
+
+	private TrackingPolicy trackingPolicy = new TrackingPolicy(30, 0.1, 4);
+
+	private User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+	private void visit(double latitude, double longitude) {
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(latitude, longitude), new Date()));
+	}
+
+	@Test
+	public void getPriority_ShouldReturn_Active_WhenUserMadeARequest() {
+
+		// ARRANGE
+		visit(33.8, -117.9);
+		visit(33.8, -117.9);
+		user.markActive();
+
+		// ACT
+		TrackingPriority priority = trackingPolicy.getPriority(user);
+
+		// ASSERT
+		assertThat(priority).isEqualTo(TrackingPriority.ACTIVE);
+	}
+
+	@Test
+	public void getPriority_ShouldReturn_Moving_WhenLastLocationsAreApart() {
+
+		// ARRANGE
+		visit(33.8, -117.9);
+		visit(34.0, -118.2);
+
+		// ACT
+		TrackingPriority priority = trackingPolicy.getPriority(user);
+
+		// ASSERT
+		assertThat(priority).isEqualTo(TrackingPriority.MOVING);
+	}
+
+	@Test
+	public void getPriority_ShouldReturn_Moving_WhenMovementIsUnknown() {
+
+		// ARRANGE
+		visit(33.8, -117.9);
+
+		// ACT
+		TrackingPriority priority = trackingPolicy.getPriority(user);
+
+		// ASSERT
+		assertThat(priority).isEqualTo(TrackingPriority.MOVING);
+	}
+
+	@Test
+	public void getPriority_ShouldReturn_Idle_WhenUserIsStationary() {
+
+		// ARRANGE
+		visit(33.8, -117.9);
+		visit(33.8001, -117.9);
+
+		// ACT
+		TrackingPriority priority = trackingPolicy.getPriority(user);
+
+		// ASSERT
+		assertThat(priority).isEqualTo(TrackingPriority.IDLE);
+	}
+
+	@Test
+	public void getNextBackoffLevel_ShouldGrow_UpToTheMaximum_WhileIdle() {
+
+		// ACT
+		int level = 0;
+		for (int i = 0; i < 10; i++) {
+			level = trackingPolicy.getNextBackoffLevel(TrackingPriority.IDLE, level);
+		}
+		int resetLevel = trackingPolicy.getNextBackoffLevel(TrackingPriority.MOVING, level);
+
+		// ASSERT
+		assertThat(level).isEqualTo(4);
+		assertThat(resetLevel).isEqualTo(0);
+	}
+
+}
@@ -0,0 +1,178 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+import tourGuide.domain.User;
+import tourGuide.tracker.TrackingPolicy;
+import tourGuide.tracker.TrackingScheduler;
+
+public class TrackingSchedulerTests {
+
+	private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(400);
+
+	private List<User> users = IntStream.range(0, 20)
+			.mapToObj(i -> new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"))
+			.collect(Collectors.toCollection(CopyOnWriteArrayList::new));
+
+	private Map<UUID, AtomicInteger> trackingCount = new ConcurrentHashMap<>();
+
+	private List<Long> trackingTimes = Collections.synchronizedList(new ArrayList<>());
+
+	private CompletableFuture<?> track(User user) {
+		trackingCount.computeIfAbsent(user.getUserId(), id -> new AtomicInteger()).incrementAndGet();
+		trackingTimes.add(System.nanoTime());
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Test
+	public void run_ShouldTrack_EveryUserOncePerInterval() throws InterruptedException {
+
+		// ARRANGE
+		TrackingScheduler scheduler = new TrackingScheduler(() -> users, this::track, INTERVAL, 10);
+		Thread thread = new Thread(() -> {
+			try {
+				scheduler.run();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		// ACT
+		thread.start();
+		TimeUnit.NANOSECONDS.sleep(INTERVAL * 3);
+		thread.interrupt();
+		thread.join();
+
+		// ASSERT
+		assertThat(trackingCount).hasSize(users.size());
+		assertThat(trackingCount.values()).allMatch(count -> count.get() >= 2 && count.get() <= 4);
+	}
+
+	@Test
+	public void run_ShouldSpread_UsersOverTheInterval() throws InterruptedException {
+
+		// ARRANGE
+		TrackingScheduler scheduler = new TrackingScheduler(() -> users, this::track, INTERVAL, 10);
+		Thread thread = new Thread(() -> {
+			try {
+				scheduler.run();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		// ACT
+		thread.start();
+		TimeUnit.NANOSECONDS.sleep(INTERVAL / 2);
+		thread.interrupt();
+		thread.join();
+
+		// ASSERT : only the users of the first half of the interval have been tracked
+		assertThat(trackingCount.size()).isBetween(users.size() / 4, users.size() * 3 / 4);
+	}
+
+	@Test
+	public void run_ShouldSchedule_NewUsers() throws InterruptedException {
+
+		// ARRANGE
+		TrackingScheduler scheduler = new TrackingScheduler(() -> users, this::track, INTERVAL, 10);
+		Thread thread = new Thread(() -> {
+			try {
+				scheduler.run();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		// ACT
+		thread.start();
+		User newUser = new User(UUID.randomUUID(), "newUser", "000", "newUser@tourGuide.com");
+		users.add(newUser);
+		TimeUnit.NANOSECONDS.sleep(INTERVAL * 5 / 2);
+		thread.interrupt();
+		thread.join();
+
+		// ASSERT
+		assertThat(scheduler.getScheduledUsersCount()).isEqualTo(users.size());
+		assertThat(trackingCount).containsKey(newUser.getUserId());
+	}
+
+	@Test
+	public void run_ShouldUnschedule_UsersNoLongerSupplied() throws InterruptedException {
+
+		// ARRANGE
+		TrackingScheduler scheduler = new TrackingScheduler(() -> users, this::track, INTERVAL, 10);
+		Thread thread = new Thread(() -> {
+			try {
+				scheduler.run();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		// ACT : the user moves to another node after its first tracking
+		thread.start();
+		User movedUser = users.get(0);
+		TimeUnit.NANOSECONDS.sleep(INTERVAL / 4);
+		users.remove(movedUser);
+		TimeUnit.NANOSECONDS.sleep(INTERVAL * 5 / 2);
+		thread.interrupt();
+		thread.join();
+
+		// ASSERT
+		assertThat(trackingCount.get(movedUser.getUserId()).get()).isEqualTo(1);
+		assertThat(scheduler.getScheduledUsersCount()).isEqualTo(users.size());
+	}
+
+	@Test
+	public void run_ShouldBackOff_IdleUsers() throws InterruptedException {
+
+		// ARRANGE : an idle user at the same place for its last two locations, and an active user
+		User idleUser = users.get(0);
+		User activeUser = users.get(1);
+		Location location = new Location(33.8, -117.9);
+		idleUser.addToVisitedLocations(new VisitedLocation(idleUser.getUserId(), location, new Date()));
+		idleUser.addToVisitedLocations(new VisitedLocation(idleUser.getUserId(), location, new Date()));
+		activeUser.markActive();
+		TrackingPolicy trackingPolicy = new TrackingPolicy(30, 0.1, 3);
+		TrackingScheduler scheduler = new TrackingScheduler(() -> users, this::track, INTERVAL, 10, null,
+				trackingPolicy);
+		Thread thread = new Thread(() -> {
+			try {
+				scheduler.run();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		// ACT
+		thread.start();
+		TimeUnit.NANOSECONDS.sleep(INTERVAL * 8);
+		thread.interrupt();
+		thread.join();
+
+		// ASSERT : the idle user is tracked after 1, 2 then 4 intervals
+		assertThat(trackingCount.get(activeUser.getUserId()).get()).isBetween(7, 9);
+		assertThat(trackingCount.get(idleUser.getUserId()).get()).isBetween(3, 4);
+	}
+
+}
@@ -0,0 +1,91 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import gpsUtil.location.Location;
+import tourGuide.catalog.DistanceQuery;
+import tourGuide.domain.User;
+import tourGuide.util.LocationDistribution;
+import tourGuide.util.UserGenerator;
+
+public class UserGeneratorTests {
+
+	private static final long REFERENCE_TIME = 1700000000000L;
+
+	private List<String> describe(List<User> users) {
+		return users.stream().map(user -> user.getUserId() + " " + user.getUserName() + " "
+				+ user.getVisitedLocations().stream()
+						.map(location -> location.location.latitude + "," + location.location.longitude + ","
+								+ location.timeVisited.getTime())
+						.collect(Collectors.joining(";")))
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void generate_ShouldReturn_SameUsers_ForSameSeed() {
+
+		// ARRANGE
+		UserGenerator generator = new UserGenerator(7, 5, LocationDistribution.UNIFORM, 0, Collections.emptyList());
+		UserGenerator otherSeedGenerator = new UserGenerator(8, 5, LocationDistribution.UNIFORM, 0,
+				Collections.emptyList());
+
+		// ACT
+		List<User> users = generator.generate(3000, REFERENCE_TIME);
+		List<User> sameUsers = new UserGenerator(7, 5, LocationDistribution.UNIFORM, 0, Collections.emptyList())
+				.generate(3000, REFERENCE_TIME);
+		List<User> otherUsers = otherSeedGenerator.generate(3000, REFERENCE_TIME);
+
+		// ASSERT
+		assertThat(users).hasSize(3000);
+		assertThat(users.get(2999).getUserName()).isEqualTo("internalUser2999");
+		assertThat(users.get(0).getUserId().version()).isEqualTo(4);
+		assertThat(users.stream().map(User::getUserId).distinct().count()).isEqualTo(3000);
+		assertThat(describe(sameUsers)).isEqualTo(describe(users));
+		assertThat(otherUsers.get(0).getUserId()).isNotEqualTo(users.get(0).getUserId());
+	}
+
+	@Test
+	public void generate_ShouldOrder_HistoryByVisitTime() {
+
+		// ARRANGE
+		UserGenerator generator = new UserGenerator(7, 10, LocationDistribution.UNIFORM, 0, Collections.emptyList());
+
+		// ACT
+		User user = generator.generate(1, REFERENCE_TIME).get(0);
+
+		// ASSERT
+		assertThat(user.getVisitedLocations()).hasSize(10);
+		assertThat(user.getVisitedLocations()).extracting(location -> location.timeVisited.getTime()).isSorted()
+				.allMatch(time -> time <= REFERENCE_TIME && time > REFERENCE_TIME - 30L * 24 * 3600 * 1000);
+	}
+
+	@Test
+	public void generate_ShouldKeep_ClusteredLocationsWithinRadius() {
+
+		// ARRANGE
+		List<Location> centers = Arrays.asList(new Location(33.817595, -117.922008), new Location(48.8584, 2.2945));
+		UserGenerator generator = new UserGenerator(7, 20, LocationDistribution.CLUSTERED, 10, centers);
+
+		// ACT
+		List<User> users = generator.generate(200, REFERENCE_TIME);
+
+		// ASSERT
+		assertThat(users).allSatisfy(user -> {
+			Location first = user.getVisitedLocations().get(0).location;
+			Location center = centers.stream()
+					.min((a, b) -> Double.compare(DistanceQuery.getExactDistance(a, first),
+							DistanceQuery.getExactDistance(b, first)))
+					.get();
+			assertThat(user.getVisitedLocations())
+					.allMatch(location -> DistanceQuery.getExactDistance(center, location.location) <= 10.1);
+		});
+	}
+
+}
@@ -1,5 +1,6 @@
 package tourGuide;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -7,12 +8,13 @@ import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
-import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.junit.MockitoJUnitRunner;
 
 import tourGuide.domain.User;
 import tourGuide.service.UserService;
@@ -85,4 +87,58 @@ public class UserServiceTests {
 		// ASSERT
 		assertEquals(users.get(0).getUserName(), firstUserMock.getUserName());
 	}
+
+	@Test
+	public void addUser_ShouldIndex_UsersAddedConcurrently() {
+
+		// ARRANGE
+		UserService userService = new UserService();
+		List<User> users = new ArrayList<>();
+		IntStream.range(0, 10000).forEach(i -> users.add(new User(UUID.randomUUID(), "user" + i, "000", "")));
+
+		// ACT
+		users.parallelStream().forEach(userService::addUser);
+		users.parallelStream().forEach(userService::addUser);
+
+		// ASSERT
+		assertThat(userService.getAllUsers()).hasSize(10000);
+		assertThat(users).allMatch(user -> userService.getUser(user.getUserName()) == user
+				&& userService.getUserById(user.getUserId()) == user);
+	}
+
+	@Test
+	public void addUser_ShouldKeep_FirstUserWithTheSameUsername() {
+
+		// ARRANGE
+		UserService userService = new UserService();
+		User duplicatedUser = new User(UUID.randomUUID(), "Alpha", "111", "alpha@tourGuide.com");
+
+		// ACT
+		userService.addUser(firstUserMock);
+		userService.addUser(duplicatedUser);
+
+		// ASSERT
+		assertThat(userService.getUser("Alpha")).isSameAs(firstUserMock);
+		assertThat(userService.getUserById(duplicatedUser.getUserId())).isNull();
+	}
+
+	@Test
+	public void getUsersAfter_ShouldPage_EveryUserOnceInIdOrder() {
+
+		// ARRANGE
+		UserService userService = new UserService();
+		IntStream.range(0, 250).forEach(i -> userService.addUser(new User(UUID.randomUUID(), "user" + i, "000", "")));
+
+		// ACT
+		List<User> pagedUsers = new ArrayList<>();
+		List<User> page = userService.getUsersAfter(null, 100);
+		while (!page.isEmpty()) {
+			pagedUsers.addAll(page);
+			page = userService.getUsersAfter(page.get(page.size() - 1).getUserId(), 100);
+		}
+
+		// ASSERT
+		assertThat(pagedUsers).hasSize(250).extracting(User::getUserId).isSorted().doesNotHaveDuplicates();
+		assertThat(userService.getUsersAfter(null, 0)).hasSize(250);
+	}
 }
@@ -0,0 +1,183 @@
+package tourGuide;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.javamoney.moneta.Money;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tourGuide.domain.User;
+import tourGuide.domain.UserReward;
+import tourGuide.eventlog.EventLog;
+import tourGuide.eventlog.SegmentedEventLog;
+import tourGuide.service.UserService;
+import tourGuide.snapshot.UserSnapshot;
+import tourGuide.snapshot.UserSnapshotStore;
+
+public class UserSnapshotTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MeterRegistry registry = new SimpleMeterRegistry();
+
+	private User user = new User(UUID.randomUUID(), "Alpha", "000", "alpha@tourGuide.com");
+
+	private Attraction attraction = new Attraction("Disneyland", "Anaheim", "CA", 33.817595, -117.922008);
+
+	private VisitedLocation visitedLocation(int i) {
+		return new VisitedLocation(user.getUserId(), new Location(i * 0.5, -i * 0.25), new Date(1000L * i));
+	}
+
+	private UserService userService(EventLog eventLog, UserSnapshotStore snapshotStore) {
+		UserService userService = new UserService();
+		ReflectionTestUtils.setField(userService, "eventLog", eventLog);
+		ReflectionTestUtils.setField(userService, "snapshotStore", snapshotStore);
+		return userService;
+	}
+
+	@Test
+	public void read_ShouldRestore_PreferencesHistoryAndRewards() throws IOException {
+
+		// ARRANGE
+		UserSnapshotStore snapshotStore = new UserSnapshotStore(folder.getRoot().toPath().resolve("users.snapshot"));
+		user.getUserPreferences().setAttractionProximity(250);
+		user.getUserPreferences().setLowerPricePoint(Money.of(12.5, "USD"));
+		user.getUserPreferences().setNumberOfChildren(2);
+		user.setLatestLocationTimestamp(new Date(4000L));
+		for (int i = 1; i <= 3; i++) {
+			user.addToVisitedLocations(visitedLocation(i));
+		}
+		user.advanceRewardsWatermark(user.getVisitedLocations().getAppendedCount());
+		user.addToVisitedLocations(visitedLocation(4));
+		user.addUserReward(new UserReward(visitedLocation(1), attraction, 250));
+
+		// ACT
+		snapshotStore.write(Collections.singletonList(user), 42);
+		UserSnapshot snapshot = snapshotStore.read();
+
+		// ASSERT
+		assertThat(snapshot.getEventLogPosition()).isEqualTo(42);
+		assertThat(snapshot.getUsers()).hasSize(1);
+		User restoredUser = snapshot.getUsers().get(0);
+		assertThat(restoredUser.getUserId()).isEqualTo(user.getUserId());
+		assertThat(restoredUser.getEmailAddress()).isEqualTo("alpha@tourGuide.com");
+		assertThat(restoredUser.getLatestLocationTimestamp()).isEqualTo(new Date(4000L));
+		assertThat(restoredUser.getUserPreferences()).isEqualTo(user.getUserPreferences());
+		assertThat(restoredUser.getVisitedLocations()).isEqualTo(user.getVisitedLocations());
+		assertThat(restoredUser.getUserRewards()).hasSize(1);
+		assertThat(restoredUser.hasRewardFor(attraction)).isTrue();
+		assertThat(restoredUser
+				.getUnprocessedLocations(restoredUser.getVisitedLocations().getAppendedCount())).extracting(location -> location.timeVisited.getTime())
+				.containsExactly(4000L);
+	}
+
+	@Test
+	public void read_ShouldFail_WhenTheVersionIsUnknown() throws IOException {
+
+		// ARRANGE
+		Path file = folder.getRoot().toPath().resolve("users.snapshot");
+		UserSnapshotStore snapshotStore = new UserSnapshotStore(file);
+		snapshotStore.write(Collections.singletonList(user), 0);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 99), Integer.BYTES);
+		}
+
+		// ACT & ASSERT
+		assertThatThrownBy(snapshotStore::read).isInstanceOf(IOException.class)
+				.hasMessageContaining("Unsupported snapshot version 99");
+	}
+
+	@Test
+	public void recoverUsers_ShouldReplay_EventsAppendedAfterTheSnapshot() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.newFolder("events").toPath();
+		UserSnapshotStore snapshotStore = new UserSnapshotStore(folder.getRoot().toPath().resolve("users.snapshot"));
+		user.addToVisitedLocations(visitedLocation(1));
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			UserService userService = userService(eventLog, snapshotStore);
+			userService.addUser(user);
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(2)).join();
+			user.addToVisitedLocations(visitedLocation(2));
+			// Applied to the user before the snapshot, but only written to the log after it
+			user.addToVisitedLocations(visitedLocation(3));
+			userService.writeSnapshot();
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(3)).join();
+			user.addToVisitedLocations(visitedLocation(4));
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(4)).join();
+		}
+
+		// ACT
+		UserService restartedUserService;
+		long replayedEvents;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 1024 * 1024, true, registry)) {
+			restartedUserService = userService(eventLog, snapshotStore);
+			replayedEvents = restartedUserService.recoverUsers();
+		}
+
+		// ASSERT
+		assertThat(replayedEvents).isEqualTo(2);
+		assertThat(restartedUserService.getUserById(user.getUserId()).getVisitedLocations())
+				.extracting(location -> location.timeVisited.getTime()).containsExactly(1000L, 2000L, 3000L, 4000L);
+	}
+
+	@Test
+	public void writeSnapshot_ShouldDelete_SegmentsBeforeTheSnapshot() throws IOException {
+
+		// ARRANGE
+		Path directory = folder.newFolder("events").toPath();
+		UserSnapshotStore snapshotStore = new UserSnapshotStore(folder.getRoot().toPath().resolve("users.snapshot"));
+		long segmentsBeforeSnapshot;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 256, true, registry)) {
+			UserService userService = userService(eventLog, snapshotStore);
+			userService.addUser(user);
+			for (int i = 1; i <= 100; i++) {
+				user.addToVisitedLocations(visitedLocation(i));
+				eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(i)).join();
+			}
+			segmentsBeforeSnapshot = segmentCount(directory);
+
+			// ACT
+			userService.writeSnapshot();
+			user.addToVisitedLocations(visitedLocation(101));
+			eventLog.appendVisitedLocation(user.getUserId(), visitedLocation(101)).join();
+		}
+		UserService restartedUserService;
+		try (EventLog eventLog = new SegmentedEventLog(directory, 256, true, registry)) {
+			restartedUserService = userService(eventLog, snapshotStore);
+			restartedUserService.recoverUsers();
+		}
+
+		// ASSERT
+		assertThat(segmentsBeforeSnapshot).isGreaterThan(10);
+		assertThat(segmentCount(directory)).isLessThanOrEqualTo(2);
+		assertThat(restartedUserService.getUserById(user.getUserId()).getVisitedLocations()).hasSize(101);
+	}
+
+	private static long segmentCount(Path directory) throws IOException {
+		try (Stream<Path> segments = Files.list(directory)) {
+			return segments.count();
+		}
+	}
+
+}